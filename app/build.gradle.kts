@@ -32,6 +32,15 @@ application {
     mainClass.set("cogito.Main")
 }
 
+// Converts the graphs of ~/.cogito/graphs to the current storage format,
+// run with -Pthreads=N to set the number of graphs migrated at once
+tasks.register<JavaExec>("migrateStore") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("cogito.util.StoreMigration")
+    if (project.hasProperty("threads"))
+        args(project.property("threads").toString())
+}
+
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
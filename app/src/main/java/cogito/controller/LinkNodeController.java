@@ -55,8 +55,10 @@ public class LinkNodeController extends GraphEditorMouseController {
             this.view.hideSelectedCircle();
         } else {
             this.dst = nodeClicked;
-            this.model.link(this.src, this.dst);
-            this.model.updateObservers();
+            if (!this.model.hasEdge(this.src, this.dst)) {
+                this.model.link(this.src, this.dst);
+                this.model.updateObservers();
+            }
             this.setSrcAndDstToNull();
         }
     }
@@ -0,0 +1,41 @@
+package cogito.model;
+
+import java.util.UUID;
+
+/**
+ * Receives the differences between two states of a graph.
+ *
+ * @see GraphSnapshot#diff(GraphSnapshot, ChangeVisitor)
+ */
+public interface ChangeVisitor {
+
+    /**
+     * Called for a node that was added or whose state changed.
+     *
+     * @param node The new state of the node.
+     */
+    void nodePut(NodeRecord node);
+
+    /**
+     * Called for a node that was removed, along with its links.
+     *
+     * @param identifier The identifier of the removed node.
+     */
+    void nodeRemoved(UUID identifier);
+
+    /**
+     * Called for a link that was added.
+     *
+     * @param src The identifier of the source of the link.
+     * @param dst The identifier of the destination of the link.
+     */
+    void linked(UUID src, UUID dst);
+
+    /**
+     * Called for a link that was removed, while its source was kept.
+     *
+     * @param src The identifier of the source of the link.
+     * @param dst The identifier of the destination of the link.
+     */
+    void unlinked(UUID src, UUID dst);
+}
@@ -0,0 +1,205 @@
+package cogito.model;
+
+import java.util.Objects;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable compressed sparse row (CSR) representation of the links of a
+ * graph.
+ *
+ * Each node is given a dense identifier in [0; nodeCount()[, in the order of
+ * the UUIDs of the nodes. The neighbors of the node of identifier i are the
+ * identifiers stored in targets[offsets[i]] to targets[offsets[i + 1] - 1],
+ * which lets traversals run over primitive arrays instead of maps and lists of
+ * objects.
+ *
+ * A compact graph is a copy: it does not reflect the changes made to the graph
+ * it was created from. Its nodes, however, are the nodes of that graph.
+ */
+public final class CompactGraph {
+
+    // The nodes, indexed by their dense identifier, sorted by UUID.
+    private final Node[] nodes;
+
+    // Start of the neighbors of each node in targets, plus the end of the last
+    // node neighbors.
+    private final int[] offsets;
+
+    // The dense identifiers of the neighbors of every node, node after node.
+    private final int[] targets;
+
+    // Error messages
+    private static final String INVALID_ID_ERROR = "Invalid node identifier";
+
+    /**
+     * Creates a compact graph of the links of graph.
+     *
+     * @param graph The graph to copy.
+     */
+    CompactGraph(Graph graph) {
+        Node[] sorted = graph.getNodesView().toArray(new Node[0]);
+        Arrays.sort(sorted, (a, b) -> a.getUuid().compareTo(b.getUuid()));
+        this.nodes = sorted;
+        this.offsets = new int[sorted.length + 1];
+        int edgeCount = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            this.offsets[i] = edgeCount;
+            edgeCount += graph.outgoingOf(sorted[i]).size();
+        }
+        this.offsets[sorted.length] = edgeCount;
+        this.targets = new int[edgeCount];
+        int k = 0;
+        for (Node node: sorted) {
+            for (Node neighbor: graph.outgoingOf(node))
+                this.targets[k++] = this.idOf(neighbor.getUuid());
+        }
+    }
+
+    /**
+     * Returns the number of nodes of this compact graph.
+     *
+     * @return The number of nodes.
+     */
+    public int nodeCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Returns the number of links of this compact graph.
+     *
+     * @return The number of links.
+     */
+    public int edgeCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * Returns the dense identifier of the node of given UUID.
+     *
+     * @param identifier The UUID of a node, not null.
+     * @return The dense identifier of the node, or -1 if it is absent.
+     * @throws NullPointerException if identifier is null.
+     */
+    public int idOf(UUID identifier) {
+        Objects.requireNonNull(identifier, "Identifier can not be null");
+        int lo = 0;
+        int hi = this.nodes.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = this.nodes[mid].getUuid().compareTo(identifier);
+            if (cmp < 0)
+                lo = mid + 1;
+            else if (cmp > 0)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the dense identifier of node.
+     *
+     * @param node A node, not null.
+     * @return The dense identifier of node, or -1 if it is absent.
+     * @throws NullPointerException if node is null.
+     */
+    public int idOf(Node node) {
+        Objects.requireNonNull(node, "Node must not be null");
+        int id = this.idOf(node.getUuid());
+        return (id != -1 && this.nodes[id] == node) ? id : -1;
+    }
+
+    /**
+     * Returns the node of given dense identifier.
+     *
+     * @param id A dense identifier in [0; nodeCount()[.
+     * @return The corresponding node.
+     * @throws IllegalArgumentException if id is out of bounds.
+     */
+    public Node getNode(int id) {
+        this.checkId(id);
+        return this.nodes[id];
+    }
+
+    /**
+     * Returns the UUID of the node of given dense identifier.
+     *
+     * @param id A dense identifier in [0; nodeCount()[.
+     * @return The UUID of the corresponding node.
+     * @throws IllegalArgumentException if id is out of bounds.
+     */
+    public UUID getUuid(int id) {
+        return this.getNode(id).getUuid();
+    }
+
+    /**
+     * Returns the number of neighbors of the node of given dense identifier.
+     *
+     * @param id A dense identifier in [0; nodeCount()[.
+     * @return The out-degree of the node.
+     * @throws IllegalArgumentException if id is out of bounds.
+     */
+    public int neighborCount(int id) {
+        this.checkId(id);
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    /**
+     * Returns the k-th neighbor of the node of given dense identifier.
+     *
+     * @param id A dense identifier in [0; nodeCount()[.
+     * @param k The index of the neighbor, in [0; neighborCount(id)[.
+     * @return The dense identifier of the neighbor.
+     * @throws IllegalArgumentException if id or k are out of bounds.
+     */
+    public int neighbor(int id, int k) {
+        if (k < 0 || k >= this.neighborCount(id))
+            throw new IllegalArgumentException("Invalid neighbor index");
+        return this.targets[this.offsets[id] + k];
+    }
+
+    /**
+     * Performs the given action on the dense identifier of each neighbor of
+     * the node of given dense identifier.
+     *
+     * @param id A dense identifier in [0; nodeCount()[.
+     * @param action The action to perform, not null.
+     * @throws NullPointerException if action is null.
+     * @throws IllegalArgumentException if id is out of bounds.
+     */
+    public void forEachNeighbor(int id, IntConsumer action) {
+        Objects.requireNonNull(action, "Action can not be null");
+        this.checkId(id);
+        for (int k = this.offsets[id]; k < this.offsets[id + 1]; k++)
+            action.accept(this.targets[k]);
+    }
+
+    /**
+     * Returns a copy of the offsets array: the neighbors of the node of dense
+     * identifier i are at indices [offsets[i]; offsets[i + 1][ of the targets
+     * array.
+     *
+     * @return An array of nodeCount() + 1 offsets.
+     */
+    public int[] getOffsets() {
+        return this.offsets.clone();
+    }
+
+    /**
+     * Returns a copy of the targets array, the dense identifiers of the
+     * neighbors of every node, node after node.
+     *
+     * @return An array of edgeCount() dense identifiers.
+     */
+    public int[] getTargets() {
+        return this.targets.clone();
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.nodes.length)
+            throw new IllegalArgumentException(INVALID_ID_ERROR);
+    }
+}
@@ -0,0 +1,286 @@
+package cogito.model;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.awt.Rectangle;
+import cogito.view.Observer;
+
+/**
+ * A Graph that can be read by several threads while another thread, usually
+ * the event dispatch thread, modifies it.
+ *
+ * Queries hold a shared read lock, so that any number of threads can traverse
+ * this graph at the same time, and modifications, including the moves of its
+ * nodes, hold an exclusive write lock. The lock is reentrant, which lets the
+ * methods of this graph call each other and lets the actions passed to
+ * forEachNode and forEachNeighbor query this graph.
+ *
+ * Unlike Graph, getNodesView and getNeighborsView return read-only copies
+ * instead of live views, as a live view could not be iterated safely while
+ * another thread modifies this graph. The actions passed to forEachNode and
+ * forEachNeighbor run under the read lock and must not modify this graph.
+ * Observers are updated on the thread that modified this graph, without the
+ * lock held.
+ */
+public class ConcurrentGraph extends Graph {
+
+    // Guards the state of this graph.
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * Creates a new empty concurrent graph.
+     *
+     * The name of the graph is the string representation of its UUID.
+     */
+    public ConcurrentGraph() {
+        super();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Creates a new named concurrent graph.
+     *
+     * @param name The name of the graph, must not be empty, not null and of at
+     *        most 100 characters long.
+     * @throws NullPointerException if name is null.
+     * @throws IllegalArgumentException if name is empty or is longer than 100
+     *         characters.
+     */
+    public ConcurrentGraph(String name) {
+        super(name);
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Creates a new named concurrent graph of given identifier.
+     *
+     * @param name The name of the graph.
+     * @param identifier The identifier of the graph.
+     */
+    public ConcurrentGraph(String name, UUID identifier) {
+        super(name, identifier);
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public int size() {
+        return this.read(super::size);
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return this.read(() -> super.contains(node));
+    }
+
+    @Override
+    public void add(Node node) {
+        this.write(() -> super.add(node));
+    }
+
+    @Override
+    public void remove(Node node) {
+        this.write(() -> super.remove(node));
+    }
+
+    @Override
+    public void link(Node src, Node dst) {
+        this.write(() -> super.link(src, dst));
+    }
+
+    @Override
+    public void unlink(Node src, Node dst) {
+        this.write(() -> super.unlink(src, dst));
+    }
+
+    @Override
+    void commit(GraphBatch batch) {
+        this.write(() -> super.commit(batch));
+    }
+
+    @Override
+    void moveNode(Node node, Runnable move) {
+        this.write(() -> super.moveNode(node, move));
+    }
+
+    @Override
+    void nodeChanged(Node node) {
+        this.write(() -> super.nodeChanged(node));
+    }
+
+    @Override
+    public GraphSnapshot snapshot() {
+        return this.read(super::snapshot);
+    }
+
+    @Override
+    public boolean hasEdge(Node src, Node dst) {
+        return this.read(() -> super.hasEdge(src, dst));
+    }
+
+    @Override
+    public List<Node> getNodesLinkedTo(Node node) {
+        return this.read(() -> super.getNodesLinkedTo(node));
+    }
+
+    @Override
+    public List<Node> getNodesLinkingTo(Node node) {
+        return this.read(() -> super.getNodesLinkingTo(node));
+    }
+
+    @Override
+    public int inDegree(Node node) {
+        return this.read(() -> super.inDegree(node));
+    }
+
+    @Override
+    public int neighborCount(Node node) {
+        return this.read(() -> super.neighborCount(node));
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, Consumer<? super Node> action) {
+        this.read(() -> {
+            super.forEachNeighbor(node, action);
+            return null;
+        });
+    }
+
+    @Override
+    public Set<Node> getNeighborsView(Node node) {
+        return this.read(() -> Collections.unmodifiableSet(
+          new LinkedHashSet<>(super.getNeighborsView(node))
+        ));
+    }
+
+    @Override
+    public CompactGraph toCompactGraph() {
+        return this.read(super::toCompactGraph);
+    }
+
+    @Override
+    public void subscribe(Observer observer) {
+        this.write(() -> super.subscribe(observer));
+    }
+
+    @Override
+    public void addGraphListener(GraphListener listener) {
+        this.write(() -> super.addGraphListener(listener));
+    }
+
+    @Override
+    public void removeGraphListener(GraphListener listener) {
+        this.write(() -> super.removeGraphListener(listener));
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+        return this.read(super::getNodes);
+    }
+
+    @Override
+    public Set<Node> getNodesView() {
+        return this.read(() -> Collections.unmodifiableSet(
+          new HashSet<>(super.getNodesView())
+        ));
+    }
+
+    @Override
+    public void forEachNode(Consumer<? super Node> action) {
+        this.read(() -> {
+            super.forEachNode(action);
+            return null;
+        });
+    }
+
+    @Override
+    public Node getNodeAt(int x, int y, int radius) {
+        return this.read(() -> super.getNodeAt(x, y, radius));
+    }
+
+    @Override
+    public String toString() {
+        return this.read(super::toString);
+    }
+
+    @Override
+    public Node getNode(String identifier) {
+        return this.read(() -> super.getNode(identifier));
+    }
+
+    @Override
+    public Node getNode(UUID identifier) {
+        return this.read(() -> super.getNode(identifier));
+    }
+
+    @Override
+    public Set<Node> getNodesInRectangle(Rectangle rect) {
+        return this.read(() -> super.getNodesInRectangle(rect));
+    }
+
+    @Override
+    public Map<Node, ArrayList<Node>> getSubGraphInRectangle(Rectangle rect) {
+        return this.read(() -> super.getSubGraphInRectangle(rect));
+    }
+
+    @Override
+    void visitNodesInBox(long[] box, Consumer<Node> action) {
+        this.read(() -> {
+            super.visitNodesInBox(box, action);
+            return null;
+        });
+    }
+
+    @Override
+    Set<Node> outgoingOf(Node node) {
+        if (this.isHeldByCurrentThread())
+            return super.outgoingOf(node);
+        return this.read(() -> new LinkedHashSet<>(super.outgoingOf(node)));
+    }
+
+    @Override
+    Set<Node> incomingOf(Node node) {
+        if (this.isHeldByCurrentThread())
+            return super.incomingOf(node);
+        return this.read(() -> new LinkedHashSet<>(super.incomingOf(node)));
+    }
+
+    // Indicates if the current thread holds the lock, in which case the sets
+    // of this graph can be returned without copy, as no other thread can
+    // modify them until it is released.
+    private boolean isHeldByCurrentThread() {
+        return this.lock.getReadHoldCount() > 0
+            || this.lock.isWriteLockedByCurrentThread();
+    }
+
+    // Returns the result of query, computed under the read lock.
+    private <T> T read(Supplier<T> query) {
+        Lock readLock = this.lock.readLock();
+        readLock.lock();
+        try {
+            return query.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Runs modification under the write lock.
+    private void write(Runnable modification) {
+        Lock writeLock = this.lock.writeLock();
+        writeLock.lock();
+        try {
+            modification.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -8,8 +8,13 @@ import java.util.HashMap;
 import java.util.UUID;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Collections;
 import cogito.view.Observer;
+import cogito.util.PersistentMap;
 import java.awt.Rectangle;
+import java.util.function.Consumer;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Encapsulates relations between Nodes in a graph space.
@@ -20,8 +25,34 @@ import java.awt.Rectangle;
  */
 public class Graph implements Observable {
 
-    // Adjacency list of nodes.
-    private final Map<Node, ArrayList<Node>> adj;
+    // Adjacency list of nodes, the neighbors of a node are kept in the order
+    // they were linked.
+    private final Map<Node, Set<Node>> adj;
+
+    // Reverse adjacency list of nodes, maps each node to the nodes linked to
+    // it.
+    private final Map<Node, Set<Node>> incoming;
+
+    // Index of the nodes of this Graph by their identifier.
+    private final Map<UUID, Node> nodesByUuid;
+
+    // Index of the nodes of this Graph by their position in the graph space.
+    private final SpatialIndex spatialIndex;
+
+    // Keeps the indexes and the records up to date when a node of this Graph
+    // changes.
+    private final NodeListener nodeListener;
+
+    // The state of the nodes of this Graph, by identifier, in a persistent
+    // map so that snapshots can share it.
+    private PersistentMap<UUID, NodeRecord> nodeRecords;
+
+    // The identifiers of the neighbors of the nodes of this Graph, by
+    // identifier, in persistent maps so that snapshots can share them.
+    private PersistentMap<UUID, PersistentMap<UUID, Boolean>> linkRecords;
+
+    // The number of links of this Graph.
+    private int edgeCount;
 
     // The universally unique identifier of this Graph.
     private final UUID identifier;
@@ -29,6 +60,9 @@ public class Graph implements Observable {
     // The observers subscribed to the updates of this Graph.
     private final List<Observer> observers;
 
+    // The listeners notified of each modification of this Graph.
+    private final List<GraphListener> graphListeners;
+
     private String name;
 
     // Error messages
@@ -38,14 +72,20 @@ public class Graph implements Observable {
     private static final String ABSENT_NODE_ERROR = "Node not in graph";
     private static final String SELF_LINK_ERROR =
         "Node can not be linked to itself";
+    private static final String ALREADY_LINKED_ERROR = "Nodes already linked";
     private static final String NULL_OBSERVER_ERROR =
         "Observer can not be null";
     private static final String ALREADY_SUBSCRIBED_ERROR =
         "Observer already subscribed";
     private static final String ABSENT_OBSERVER_ERROR =
         "Observer not subscribed";
+    private static final String NULL_LISTENER_ERROR =
+        "Listener can not be null";
+    private static final String ALREADY_LISTENING_ERROR =
+        "Listener already added";
     private static final String NEGATIVE_RADIUS_ERROR =
         "Radius must be greater than or equal to 0";
+    private static final String NULL_ACTION_ERROR = "Action can not be null";
     private static final String NULL_NAME_ERROR = "Name must be not null";
     private static final String EMPTY_NAME_ERROR = "Name must not be empty";
     private static final String NAME_LENGTH_ERROR =
@@ -57,9 +97,17 @@ public class Graph implements Observable {
      * The name of the graph is the string representation of its UUID.
      */
     public Graph() {
-        this.adj = new HashMap<Node, ArrayList<Node>>();
+        this.adj = new HashMap<Node, Set<Node>>();
+        this.incoming = new HashMap<Node, Set<Node>>();
+        this.nodesByUuid = new HashMap<UUID, Node>();
+        this.spatialIndex = new SpatialIndex();
+        this.nodeListener = new NodeChangeHandler();
+        this.nodeRecords = PersistentMap.empty();
+        this.linkRecords = PersistentMap.empty();
+        this.edgeCount = 0;
         this.identifier = UUID.randomUUID();
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
+        this.graphListeners = new CopyOnWriteArrayList<>();
         this.name = null;
     }
 
@@ -91,8 +139,16 @@ public class Graph implements Observable {
     public Graph(String name, UUID identifier) {
         this.name = name;
         this.identifier = identifier;
-        this.adj = new HashMap<Node, ArrayList<Node>>();
-        this.observers = new ArrayList<>();
+        this.adj = new HashMap<Node, Set<Node>>();
+        this.incoming = new HashMap<Node, Set<Node>>();
+        this.nodesByUuid = new HashMap<UUID, Node>();
+        this.spatialIndex = new SpatialIndex();
+        this.nodeListener = new NodeChangeHandler();
+        this.nodeRecords = PersistentMap.empty();
+        this.linkRecords = PersistentMap.empty();
+        this.edgeCount = 0;
+        this.observers = new CopyOnWriteArrayList<>();
+        this.graphListeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -127,7 +183,7 @@ public class Graph implements Observable {
         Objects.requireNonNull(node, NULL_NODE_ERROR);
         if (this.contains(node))
             throw new IllegalArgumentException(NODE_ALREADY_IN_GRAPH_ERROR);
-        this.adj.put(node, new ArrayList<>());
+        this.addUnchecked(node);
     }
 
     /**
@@ -141,11 +197,7 @@ public class Graph implements Observable {
         Objects.requireNonNull(node, NULL_NODE_ERROR);
         if (!this.contains(node))
             throw new IllegalArgumentException(ABSENT_NODE_ERROR);
-        for (Node other: this.getNodes()) {
-            List<Node> neighbors = this.adj.get(other);
-            neighbors.remove(node);
-        }
-        this.adj.remove(node);
+        this.removeUnchecked(node);
     }
 
     /**
@@ -168,8 +220,9 @@ public class Graph implements Observable {
             throw new IllegalArgumentException(ABSENT_NODE_ERROR);
         if (src.equals(dst))
             throw new IllegalArgumentException(SELF_LINK_ERROR);
-        List<Node> value = this.adj.get(src);
-        value.add(dst);
+        if (this.hasEdge(src, dst))
+            throw new IllegalArgumentException(ALREADY_LINKED_ERROR);
+        this.linkUnchecked(src, dst);
     }
 
     /**
@@ -192,8 +245,158 @@ public class Graph implements Observable {
             throw new IllegalArgumentException(
               "Node can not be unlinked of itself"
             );
-        List<Node> value = this.adj.get(src);
-        value.remove(dst);
+        this.unlinkUnchecked(src, dst);
+    }
+
+    /**
+     * Applies several modifications to this Graph at once, and updates the
+     * observers of this Graph once they are all applied.
+     *
+     * The modifications are recorded on the batch passed to edits, then
+     * validated all together before any of them is applied: if one of them is
+     * invalid, this Graph is left unchanged and its observers are not updated.
+     * The batch can only be used inside edits.
+     *
+     * @param edits Records the modifications on the given batch, not null.
+     * @throws NullPointerException if edits is null, or if a null node was
+     *         passed to the batch.
+     * @throws IllegalArgumentException if one of the modifications is invalid,
+     *         for the reasons given by the corresponding method of this Graph.
+     */
+    public void batch(Consumer<GraphBatch> edits) {
+        Objects.requireNonNull(edits, "Edits can not be null");
+        GraphBatch batch = new GraphBatch(this);
+        edits.accept(batch);
+        this.commit(batch);
+        this.updateObservers();
+    }
+
+    // Validates and applies the modifications recorded by batch.
+    void commit(GraphBatch batch) {
+        batch.commit();
+    }
+
+    // Called to move node, part of this Graph, which move does.
+    void moveNode(Node node, Runnable move) {
+        int oldX = node.getX();
+        int oldY = node.getY();
+        move.run();
+        this.spatialIndex.move(node, oldX, oldY);
+        this.nodeChanged(node);
+    }
+
+    // Called when the state of node, part of this Graph, changed.
+    void nodeChanged(Node node) {
+        NodeRecord old = this.nodeRecords.get(node.getUuid());
+        NodeRecord record = NodeRecord.of(node);
+        this.nodeRecords = this.nodeRecords.put(node.getUuid(), record);
+        for (GraphListener listener: this.graphListeners) {
+            if (old.x() != record.x() || old.y() != record.y())
+                listener.nodeMoved(node);
+            if (!old.title().equals(record.title()))
+                listener.nodeTitleChanged(node);
+            if (!old.hasSameInformation(record))
+                listener.nodeInformationChanged(node);
+        }
+    }
+
+    // Adds node without checking that it is absent.
+    void addUnchecked(Node node) {
+        this.adj.put(node, new LinkedHashSet<>());
+        this.incoming.put(node, new LinkedHashSet<>());
+        this.nodesByUuid.put(node.getUuid(), node);
+        this.spatialIndex.add(node);
+        node.addListener(this.nodeListener);
+        UUID id = node.getUuid();
+        this.nodeRecords = this.nodeRecords.put(id, NodeRecord.of(node));
+        this.linkRecords = this.linkRecords.put(id, PersistentMap.empty());
+        for (GraphListener listener: this.graphListeners)
+            listener.nodeAdded(node);
+    }
+
+    // Removes node and its links without checking that it is present.
+    void removeUnchecked(Node node) {
+        UUID id = node.getUuid();
+        // only the nodes linked to node and linked from node are visited
+        for (Node src: this.incoming.get(node)) {
+            this.adj.get(src).remove(node);
+            UUID srcId = src.getUuid();
+            this.linkRecords = this.linkRecords.put(srcId,
+                    this.linkRecords.get(srcId).remove(id));
+        }
+        for (Node dst: this.adj.get(node))
+            this.incoming.get(dst).remove(node);
+        this.edgeCount -= this.adj.get(node).size()
+            + this.incoming.get(node).size();
+        this.adj.remove(node);
+        this.incoming.remove(node);
+        this.nodesByUuid.remove(id);
+        this.spatialIndex.remove(node);
+        node.removeListener(this.nodeListener);
+        this.nodeRecords = this.nodeRecords.remove(id);
+        this.linkRecords = this.linkRecords.remove(id);
+        for (GraphListener listener: this.graphListeners)
+            listener.nodeRemoved(node);
+    }
+
+    // Links src to dst, both present, distinct and not linked yet.
+    void linkUnchecked(Node src, Node dst) {
+        this.adj.get(src).add(dst);
+        this.incoming.get(dst).add(src);
+        this.edgeCount++;
+        UUID srcId = src.getUuid();
+        this.linkRecords = this.linkRecords.put(srcId,
+                this.linkRecords.get(srcId).put(dst.getUuid(), Boolean.TRUE));
+        for (GraphListener listener: this.graphListeners)
+            listener.nodesLinked(src, dst);
+    }
+
+    // Unlinks src from dst, both present, does nothing if they are not linked.
+    void unlinkUnchecked(Node src, Node dst) {
+        if (!this.adj.get(src).remove(dst))
+            return;
+        this.incoming.get(dst).remove(src);
+        this.edgeCount--;
+        UUID srcId = src.getUuid();
+        this.linkRecords = this.linkRecords.put(srcId,
+                this.linkRecords.get(srcId).remove(dst.getUuid()));
+        for (GraphListener listener: this.graphListeners)
+            listener.nodesUnlinked(src, dst);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current state of this Graph, in
+     * constant time.
+     *
+     * The snapshot shares the persistent maps this Graph keeps its state in,
+     * and is not affected by the later modifications of this Graph.
+     *
+     * @return A snapshot of this Graph.
+     */
+    public GraphSnapshot snapshot() {
+        return new GraphSnapshot(
+          this.getName(),
+          this.identifier,
+          this.nodeRecords,
+          this.linkRecords,
+          this.edgeCount
+        );
+    }
+
+    /**
+     * Indicates if the first node is linked to the second node.
+     *
+     * @param src The source of the link, not null.
+     * @param dst The destination of the link, not null.
+     * @return True if and only if src and dst are part of this graph and src
+     *         is linked to dst.
+     * @throws NullPointerException if src or dst are null.
+     */
+    public boolean hasEdge(Node src, Node dst) {
+        Objects.requireNonNull(src, NULL_NODE_ERROR);
+        Objects.requireNonNull(dst, NULL_NODE_ERROR);
+        Set<Node> neighbors = this.adj.get(src);
+        return neighbors != null && neighbors.contains(dst);
     }
 
     /**
@@ -212,7 +415,7 @@ public class Graph implements Observable {
         Objects.requireNonNull(node, NULL_NODE_ERROR);
         if (!this.contains(node))
             throw new IllegalArgumentException(ABSENT_NODE_ERROR);
-        List<Node> nodes = this.adj.get(node);
+        Set<Node> nodes = this.adj.get(node);
         if (nodes != null) {
             List<Node> copy = new ArrayList<>();
             copy.addAll(nodes);
@@ -221,6 +424,105 @@ public class Graph implements Observable {
         return null;
     }
 
+    /**
+     * Returns the list of nodes that link to the given node.
+     *
+     * The list of nodes linking to the given node is the list of nodes that
+     * were passed as source to a call to link where the destination was the
+     * given node.
+     *
+     * @param node A node of the graph, not null, not absent.
+     * @return A list of nodes of the graph, the nodes that have node as
+     *         neighbor.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalArgumentException if node is not in graph.
+     */
+    public List<Node> getNodesLinkingTo(Node node) {
+        Objects.requireNonNull(node, NULL_NODE_ERROR);
+        if (!this.contains(node))
+            throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+        return new ArrayList<>(this.incoming.get(node));
+    }
+
+    /**
+     * Returns the number of links whose destination is the given node.
+     *
+     * @param node A node of the graph, not null, not absent.
+     * @return The in-degree of node.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalArgumentException if node is not in graph.
+     */
+    public int inDegree(Node node) {
+        Objects.requireNonNull(node, NULL_NODE_ERROR);
+        if (!this.contains(node))
+            throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+        return this.incoming.get(node).size();
+    }
+
+    /**
+     * Returns the number of neighbors of the given node.
+     *
+     * @param node A node of the graph, not null, not absent.
+     * @return The out-degree of node.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalArgumentException if node is not in graph.
+     */
+    public int neighborCount(Node node) {
+        Objects.requireNonNull(node, NULL_NODE_ERROR);
+        if (!this.contains(node))
+            throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+        return this.adj.get(node).size();
+    }
+
+    /**
+     * Performs the given action on each neighbor of the given node, without
+     * copying the neighbors.
+     *
+     * The action must not modify this Graph.
+     *
+     * @param node A node of the graph, not null, not absent.
+     * @param action The action to perform on each neighbor, not null.
+     * @throws NullPointerException if node or action are null.
+     * @throws IllegalArgumentException if node is not in graph.
+     */
+    public void forEachNeighbor(Node node, Consumer<? super Node> action) {
+        Objects.requireNonNull(node, NULL_NODE_ERROR);
+        Objects.requireNonNull(action, NULL_ACTION_ERROR);
+        if (!this.contains(node))
+            throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+        this.adj.get(node).forEach(action);
+    }
+
+    /**
+     * Returns a read-only live view of the neighbors of the given node.
+     *
+     * Unlike getNodesLinkedTo, the set returned is not a copy: it reflects the
+     * later links and unlinks of node, and must not be iterated while this
+     * Graph is modified. It is iterated in the order the neighbors were
+     * linked.
+     *
+     * @param node A node of the graph, not null, not absent.
+     * @return An unmodifiable view of the neighbors of node.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalArgumentException if node is not in graph.
+     */
+    public Set<Node> getNeighborsView(Node node) {
+        Objects.requireNonNull(node, NULL_NODE_ERROR);
+        if (!this.contains(node))
+            throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+        return Collections.unmodifiableSet(this.adj.get(node));
+    }
+
+    /**
+     * Returns an immutable compressed sparse row copy of the links of this
+     * Graph, for traversals over primitive arrays.
+     *
+     * @return A compact graph of the nodes and links of this Graph.
+     */
+    public CompactGraph toCompactGraph() {
+        return new CompactGraph(this);
+    }
+
     /**
      * Returns the UUID of this Graph.
      *
@@ -258,6 +560,33 @@ public class Graph implements Observable {
             observer.updateWithData(this);
     }
 
+    /**
+     * Adds a listener notified of each modification of this Graph.
+     *
+     * @param listener The listener to add, not null.
+     * @throws NullPointerException if listener is null.
+     * @throws IllegalArgumentException if listener was already added.
+     */
+    public void addGraphListener(GraphListener listener) {
+        Objects.requireNonNull(listener, NULL_LISTENER_ERROR);
+        if (this.graphListeners.contains(listener))
+            throw new IllegalArgumentException(ALREADY_LISTENING_ERROR);
+        this.graphListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added to this Graph.
+     *
+     * Does nothing if listener was not added.
+     *
+     * @param listener The listener to remove, not null.
+     * @throws NullPointerException if listener is null.
+     */
+    public void removeGraphListener(GraphListener listener) {
+        Objects.requireNonNull(listener, NULL_LISTENER_ERROR);
+        this.graphListeners.remove(listener);
+    }
+
     /**
      * Returns the nodes of this Graph.
      *
@@ -270,13 +599,39 @@ public class Graph implements Observable {
     }
 
     /**
-     * Returns the first node around the given location, or null if there is
+     * Returns a read-only live view of the nodes of this Graph.
+     *
+     * Unlike getNodes, the set returned is not a copy: it reflects the later
+     * additions and removals of nodes, and must not be iterated while this
+     * Graph is modified.
+     *
+     * @return An unmodifiable view of the set of nodes of this Graph.
+     */
+    public Set<Node> getNodesView() {
+        return Collections.unmodifiableSet(this.adj.keySet());
+    }
+
+    /**
+     * Performs the given action on each node of this Graph, without copying
+     * the nodes.
+     *
+     * The action must not modify this Graph.
+     *
+     * @param action The action to perform on each node, not null.
+     * @throws NullPointerException if action is null.
+     */
+    public void forEachNode(Consumer<? super Node> action) {
+        Objects.requireNonNull(action, NULL_ACTION_ERROR);
+        this.adj.keySet().forEach(action);
+    }
+
+    /**
+     * Returns the nearest node around the given location, or null if there is
      * none.
      *
      * This function searches for a node inside a circle of given radius around
      * the given location. If there is none, null is returned. If there are
-     * multiple candidates, the first node encountered in the traversal is
-     * returned.
+     * multiple candidates, the one nearest to the location is returned.
      * One way to get the node exactly at the given location is to pass a radius
      * equal to 0.
      *
@@ -285,17 +640,13 @@ public class Graph implements Observable {
      * @param radius The radius of the search circle, must be greater than or
      *        equal to 0.
      * @throws IllegalArgumentException if radius is strictly inferior to 0.
-     * @return The first node encountered inside the circle of given radius
-     *         around the given location, or null if there is none.
+     * @return The nearest node inside the circle of given radius around the
+     *         given location, or null if there is none.
      */
     public Node getNodeAt(int x, int y, int radius) {
         if (radius < 0)
             throw new IllegalArgumentException(NEGATIVE_RADIUS_ERROR);
-        for (Node node: this.adj.keySet()) {
-            if (node.distanceFrom(x, y) <= radius)
-                return node;
-        }
-        return null;
+        return this.spatialIndex.nearest(x, y, radius);
     }
 
     /**
@@ -315,9 +666,9 @@ public class Graph implements Observable {
         StringBuilder builder = new StringBuilder()
             .append(this.getName())
             .append("\n");
-        for (Node node: this.getNodes()) {
-            builder.append(node.getUuid());
-            for (Node neighbor: this.getNodesLinkedTo(node)) {
+        for (Map.Entry<Node, Set<Node>> entry: this.adj.entrySet()) {
+            builder.append(entry.getKey().getUuid());
+            for (Node neighbor: entry.getValue()) {
                 builder.append(",");
                 builder.append(neighbor.getUuid());
             }
@@ -341,14 +692,27 @@ public class Graph implements Observable {
      * graph.
      *
      * @param identifier A UUID identifier as a string.
-     * @return The corresponding node, or null if it is absent.
+     * @return The corresponding node, or null if it is absent or if identifier
+     *         is not a valid UUID.
      */
     public Node getNode(String identifier) {
-        for (Node node: this.getNodes()) {
-            if (node.getUuid().toString().equals(identifier))
-                return node;
+        if (identifier == null)
+            return null;
+        try {
+            return this.getNode(UUID.fromString(identifier));
+        } catch (IllegalArgumentException iae) {
+            return null;
         }
-        return null;
+    }
+
+    /**
+     * Returns the node identified with the given identifier in this graph.
+     *
+     * @param identifier A UUID identifier.
+     * @return The corresponding node, or null if it is absent.
+     */
+    public Node getNode(UUID identifier) {
+        return this.nodesByUuid.get(identifier);
     }
 
     /**
@@ -364,17 +728,36 @@ public class Graph implements Observable {
     public Set<Node> getNodesInRectangle(Rectangle rect) {
         Objects.requireNonNull(rect, "Rectangle cannot be null");
         Set<Node> res = new HashSet<>();
-        for (Node node: this.adj.keySet()) {
-            if (rectContains(rect, node.getX(), node.getY())) {
+        long minX = Math.min(rect.x, (long)rect.x + rect.width);
+        long maxX = Math.max(rect.x, (long)rect.x + rect.width);
+        long minY = Math.min(rect.y, (long)rect.y + rect.height);
+        long maxY = Math.max(rect.y, (long)rect.y + rect.height);
+        this.visitNodesInBox(new long[] {minX, minY, maxX, maxY}, node -> {
+            if (rectContains(rect, node.getX(), node.getY()))
                 res.add(node);
-            }
-        }
+        });
         return res;
     }
 
+    // Passes to action the nodes that may lay inside the bounding box
+    // {minX, minY, maxX, maxY}, it is up to action to filter them.
+    void visitNodesInBox(long[] box, Consumer<Node> action) {
+        this.spatialIndex.visit(box[0], box[1], box[2], box[3], action);
+    }
+
+    // Returns the neighbors of node, without copy.
+    Set<Node> outgoingOf(Node node) {
+        return this.adj.get(node);
+    }
+
+    // Returns the nodes linking to node, without copy.
+    Set<Node> incomingOf(Node node) {
+        return this.incoming.get(node);
+    }
+
     // Same as java.awt.Rectangle.contains() but returns true if (x, y) in on an
     // edge of the rectangle.
-    private static boolean rectContains(Rectangle rect, int x, int y) {
+    static boolean rectContains(Rectangle rect, int x, int y) {
         if (rect.contains(x, y))
             return true;
         // xy on top edge
@@ -411,25 +794,24 @@ public class Graph implements Observable {
      * @param rect A non-null rectangle that represents a rectangular portion of
      * the graph space.
      * @return A subgraph of this graph that follows the aformentioned
-     * properties, as a map of adjacencies.
+     * properties, as an unmodifiable map of adjacencies.
      */
     public Map<Node, ArrayList<Node>> getSubGraphInRectangle(Rectangle rect) {
         Objects.requireNonNull(rect, "Rectangle cannot be null");
-        Set<Node> visibleNodes = this.getNodesInRectangle(rect);
-        Map<Node, ArrayList<Node>> subgraph = new HashMap<>();
-        for (Node node: visibleNodes)
-            subgraph.put(node, this.adj.get(node));
-        for (Node node: this.adj.keySet()) {
-            if (subgraph.keySet().contains(node))
-                continue;
-            ArrayList<Node> visibleNeighbors = new ArrayList<>();
-            for (Node neighbor: this.getNodesLinkedTo(node)) {
-                if (visibleNodes.contains(neighbor))
-                    visibleNeighbors.add(neighbor);
-            }
-            if (!visibleNeighbors.isEmpty())
-                subgraph.put(node, visibleNeighbors);
+        return new Viewport(this, rect).getSubGraph();
+    }
+
+    // Forwards the changes of the nodes of this Graph.
+    private class NodeChangeHandler implements NodeListener {
+
+        @Override
+        public void moveNode(Node node, Runnable move) {
+            Graph.this.moveNode(node, move);
+        }
+
+        @Override
+        public void nodeChanged(Node node) {
+            Graph.this.nodeChanged(node);
         }
-        return subgraph;
     }
 }
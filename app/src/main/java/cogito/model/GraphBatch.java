@@ -0,0 +1,234 @@
+package cogito.model;
+
+import java.util.Objects;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+
+/**
+ * Records modifications of a graph to apply them all at once.
+ *
+ * A batch is obtained through Graph.batch(). Its methods record the
+ * modifications without applying them: once recorded, the modifications are
+ * validated together against the state the graph will be in when each of
+ * them is applied, then applied without further checks.
+ */
+public final class GraphBatch {
+
+    // The kinds of modification a batch can record.
+    private enum Kind { ADD, REMOVE, LINK, UNLINK, MOVE }
+
+    // A recorded modification, b is the destination of links, x and y the
+    // position of moves.
+    private record Operation(Kind kind, Node a, Node b, int x, int y) {}
+
+    // A directed link between two nodes.
+    private record Edge(Node src, Node dst) {}
+
+    // The graph modified by this batch.
+    private final Graph graph;
+
+    // The recorded modifications, in order.
+    private final List<Operation> operations;
+
+    // Indicates if this batch was committed, in which case it can not record
+    // modifications anymore.
+    private boolean committed;
+
+    // Error messages
+    private static final String NULL_NODE_ERROR = "Node must not be null";
+    private static final String NODE_ALREADY_IN_GRAPH_ERROR =
+        "Node already in graph";
+    private static final String ABSENT_NODE_ERROR = "Node not in graph";
+    private static final String SELF_LINK_ERROR =
+        "Node can not be linked to itself";
+    private static final String SELF_UNLINK_ERROR =
+        "Node can not be unlinked of itself";
+    private static final String ALREADY_LINKED_ERROR = "Nodes already linked";
+    private static final String COMMITTED_ERROR = "Batch already committed";
+
+    /**
+     * Creates a new empty batch of modifications of graph.
+     *
+     * @param graph The graph to modify.
+     */
+    GraphBatch(Graph graph) {
+        this.graph = graph;
+        this.operations = new ArrayList<>();
+        this.committed = false;
+    }
+
+    /**
+     * Records the addition of node to the graph.
+     *
+     * @param node The node to add, not null.
+     * @return This batch.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalStateException if this batch was committed.
+     */
+    public GraphBatch add(Node node) {
+        return this.record(Kind.ADD, node, null, 0, 0);
+    }
+
+    /**
+     * Records the removal of node from the graph.
+     *
+     * @param node The node to remove, not null.
+     * @return This batch.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalStateException if this batch was committed.
+     */
+    public GraphBatch remove(Node node) {
+        return this.record(Kind.REMOVE, node, null, 0, 0);
+    }
+
+    /**
+     * Records the link of src to dst.
+     *
+     * @param src The source of the link, not null.
+     * @param dst The destination of the link, not null.
+     * @return This batch.
+     * @throws NullPointerException if src or dst are null.
+     * @throws IllegalStateException if this batch was committed.
+     */
+    public GraphBatch link(Node src, Node dst) {
+        Objects.requireNonNull(dst, NULL_NODE_ERROR);
+        return this.record(Kind.LINK, src, dst, 0, 0);
+    }
+
+    /**
+     * Records the unlink of src from dst.
+     *
+     * @param src The source of the link, not null.
+     * @param dst The destination of the link, not null.
+     * @return This batch.
+     * @throws NullPointerException if src or dst are null.
+     * @throws IllegalStateException if this batch was committed.
+     */
+    public GraphBatch unlink(Node src, Node dst) {
+        Objects.requireNonNull(dst, NULL_NODE_ERROR);
+        return this.record(Kind.UNLINK, src, dst, 0, 0);
+    }
+
+    /**
+     * Records the move of node to (x, y) in the graph space.
+     *
+     * @param node The node to move, not null.
+     * @param x The new x coordinate of node.
+     * @param y The new y coordinate of node.
+     * @return This batch.
+     * @throws NullPointerException if node is null.
+     * @throws IllegalStateException if this batch was committed.
+     */
+    public GraphBatch move(Node node, int x, int y) {
+        return this.record(Kind.MOVE, node, null, x, y);
+    }
+
+    private GraphBatch record(Kind kind, Node a, Node b, int x, int y) {
+        Objects.requireNonNull(a, NULL_NODE_ERROR);
+        if (this.committed)
+            throw new IllegalStateException(COMMITTED_ERROR);
+        this.operations.add(new Operation(kind, a, b, x, y));
+        return this;
+    }
+
+    /**
+     * Validates the recorded modifications, then applies them to the graph.
+     *
+     * @throws IllegalArgumentException if one of the modifications is invalid,
+     *         in which case none is applied.
+     */
+    void commit() {
+        this.committed = true;
+        this.validate();
+        for (Operation op: this.operations) {
+            switch (op.kind()) {
+                case ADD -> this.graph.addUnchecked(op.a());
+                case REMOVE -> this.graph.removeUnchecked(op.a());
+                case LINK -> this.graph.linkUnchecked(op.a(), op.b());
+                case UNLINK -> this.graph.unlinkUnchecked(op.a(), op.b());
+                case MOVE -> {
+                    op.a().setX(op.x());
+                    op.a().setY(op.y());
+                }
+            }
+        }
+    }
+
+    // Simulates the recorded modifications on top of the graph state, throws
+    // an IAE at the first invalid one.
+    private void validate() {
+        // nodes added (true) or removed (false) by this batch
+        Map<Node, Boolean> presence = new HashMap<>();
+        // links added (true) or removed (false) by this batch
+        Map<Edge, Boolean> links = new HashMap<>();
+        // links recorded in links, by node
+        Map<Node, List<Edge>> linksByNode = new HashMap<>();
+        // nodes removed by this batch at some point, their former links are
+        // gone
+        Set<Node> removed = new HashSet<>();
+        for (Operation op: this.operations) {
+            Node a = op.a();
+            Node b = op.b();
+            switch (op.kind()) {
+                case ADD -> {
+                    if (isPresent(a, presence))
+                        throw new IllegalArgumentException(
+                          NODE_ALREADY_IN_GRAPH_ERROR
+                        );
+                    presence.put(a, true);
+                }
+                case REMOVE -> {
+                    if (!isPresent(a, presence))
+                        throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+                    presence.put(a, false);
+                    removed.add(a);
+                    List<Edge> edges = linksByNode.remove(a);
+                    if (edges != null)
+                        edges.forEach(links::remove);
+                }
+                case LINK, UNLINK -> {
+                    if (!isPresent(a, presence) || !isPresent(b, presence))
+                        throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+                    boolean link = op.kind() == Kind.LINK;
+                    if (a.equals(b))
+                        throw new IllegalArgumentException(
+                          link ? SELF_LINK_ERROR : SELF_UNLINK_ERROR
+                        );
+                    Edge edge = new Edge(a, b);
+                    if (link && this.isLinked(edge, links, removed))
+                        throw new IllegalArgumentException(
+                          ALREADY_LINKED_ERROR
+                        );
+                    links.put(edge, link);
+                    linksByNode.computeIfAbsent(a, k -> new ArrayList<>())
+                        .add(edge);
+                    linksByNode.computeIfAbsent(b, k -> new ArrayList<>())
+                        .add(edge);
+                }
+                case MOVE -> {
+                    if (!isPresent(a, presence))
+                        throw new IllegalArgumentException(ABSENT_NODE_ERROR);
+                }
+            }
+        }
+    }
+
+    private boolean isPresent(Node node, Map<Node, Boolean> presence) {
+        Boolean present = presence.get(node);
+        return (present != null) ? present : this.graph.contains(node);
+    }
+
+    private boolean isLinked(Edge edge, Map<Edge, Boolean> links,
+            Set<Node> removed) {
+        Boolean linked = links.get(edge);
+        if (linked != null)
+            return linked;
+        if (removed.contains(edge.src()) || removed.contains(edge.dst()))
+            return false;
+        return this.graph.hasEdge(edge.src(), edge.dst());
+    }
+}
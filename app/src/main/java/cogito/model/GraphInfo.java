@@ -4,15 +4,37 @@ import java.util.Objects;
 import java.util.UUID;
 
 /**
- * Encapsulates the name and the UUID of a graph.
+ * Encapsulates the name and the UUID of a graph, along with a summary of its
+ * content and of its storage.
+ *
+ * @param name The name of the graph.
+ * @param identifier The UUID of the graph.
+ * @param nodeCount The number of nodes of the graph.
+ * @param edgeCount The number of edges of the graph.
+ * @param lastModified The time of the last modification of the stored graph,
+ *        in milliseconds since the epoch, 0 if unknown.
+ * @param byteSize The size in bytes of the stored graph, 0 if unknown.
  */
-public record GraphInfo(String name, UUID identifier) {
+public record GraphInfo(
+  String name,
+  UUID identifier,
+  int nodeCount,
+  int edgeCount,
+  long lastModified,
+  long byteSize
+) {
 
     /**
-     * Creates a new graph info object with given name and identifier.
+     * Creates a new graph info object with given name, identifier and
+     * summary.
      *
      * @param name The name of a graph, not null.
      * @param identifier The identifier of a graph, not null.
+     * @param nodeCount The number of nodes of the graph.
+     * @param edgeCount The number of edges of the graph.
+     * @param lastModified The time of the last modification of the stored
+     *        graph, in milliseconds since the epoch.
+     * @param byteSize The size in bytes of the stored graph.
      * @throws NullPointerException if name or identifer are null.
      */
     public GraphInfo {
@@ -20,6 +42,18 @@ public record GraphInfo(String name, UUID identifier) {
         Objects.requireNonNull(identifier, "Identifier can not be null.");
     }
 
+    /**
+     * Creates a new graph info object with given name and identifier, and an
+     * empty summary.
+     *
+     * @param name The name of a graph, not null.
+     * @param identifier The identifier of a graph, not null.
+     * @throws NullPointerException if name or identifer are null.
+     */
+    public GraphInfo(String name, UUID identifier) {
+        this(name, identifier, 0, 0, 0, 0);
+    }
+
     @Override
     public String toString() {
         return this.name;
@@ -0,0 +1,67 @@
+package cogito.model;
+
+/**
+ * Receives a notification for each modification of a Graph it listens to.
+ *
+ * The methods are called on the thread that modified the graph, right after
+ * the modification, and for a ConcurrentGraph while its write lock is held:
+ * they must be quick and must not modify the graph. The modifications made
+ * through Graph.batch are notified one by one.
+ *
+ * All methods do nothing by default.
+ *
+ * @see Graph#addGraphListener(GraphListener)
+ */
+public interface GraphListener {
+
+    /**
+     * Called after node was added to the graph.
+     *
+     * @param node The added node.
+     */
+    default void nodeAdded(Node node) {}
+
+    /**
+     * Called after node was removed from the graph, along with its links.
+     *
+     * @param node The removed node.
+     */
+    default void nodeRemoved(Node node) {}
+
+    /**
+     * Called after src was linked to dst.
+     *
+     * @param src The source of the new link.
+     * @param dst The destination of the new link.
+     */
+    default void nodesLinked(Node src, Node dst) {}
+
+    /**
+     * Called after src was unlinked from dst.
+     *
+     * @param src The source of the removed link.
+     * @param dst The destination of the removed link.
+     */
+    default void nodesUnlinked(Node src, Node dst) {}
+
+    /**
+     * Called after the position of node changed.
+     *
+     * @param node The node that moved.
+     */
+    default void nodeMoved(Node node) {}
+
+    /**
+     * Called after the title of node changed.
+     *
+     * @param node The node whose title changed.
+     */
+    default void nodeTitleChanged(Node node) {}
+
+    /**
+     * Called after the information of node changed.
+     *
+     * @param node The node whose information changed.
+     */
+    default void nodeInformationChanged(Node node) {}
+}
@@ -0,0 +1,246 @@
+package cogito.model;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import cogito.util.PersistentMap;
+
+/**
+ * Immutable view of the state of a graph at the time it was taken.
+ *
+ * A snapshot is obtained with Graph.snapshot() in constant time: the graph
+ * keeps its state in persistent maps, so the snapshot only holds a reference
+ * to their current version, which the later modifications of the graph leave
+ * unchanged. A snapshot can be read from any thread, for instance to save or
+ * export a graph while it is being edited.
+ */
+public final class GraphSnapshot {
+
+    // The name of the graph.
+    private final String name;
+
+    // The identifier of the graph.
+    private final UUID identifier;
+
+    // The state of the nodes, by identifier.
+    private final PersistentMap<UUID, NodeRecord> nodes;
+
+    // The identifiers of the neighbors of the nodes, by identifier.
+    private final PersistentMap<UUID, PersistentMap<UUID, Boolean>> links;
+
+    // The number of links.
+    private final int edgeCount;
+
+    // Error messages
+    private static final String NULL_IDENTIFIER_ERROR =
+        "Identifier can not be null";
+    private static final String NULL_ACTION_ERROR = "Action can not be null";
+    private static final String NULL_SNAPSHOT_ERROR =
+        "Snapshot can not be null";
+    private static final String NULL_VISITOR_ERROR =
+        "Visitor can not be null";
+
+    /**
+     * Creates a new snapshot of given state.
+     *
+     * @param name The name of the graph.
+     * @param identifier The identifier of the graph.
+     * @param nodes The state of the nodes.
+     * @param links The neighbors of the nodes.
+     * @param edgeCount The number of links.
+     */
+    GraphSnapshot(
+      String name,
+      UUID identifier,
+      PersistentMap<UUID, NodeRecord> nodes,
+      PersistentMap<UUID, PersistentMap<UUID, Boolean>> links,
+      int edgeCount
+    ) {
+        this.name = name;
+        this.identifier = identifier;
+        this.nodes = nodes;
+        this.links = links;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Returns the name of the graph.
+     *
+     * @return The name of the graph, or its UUID as a string if it has none.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the UUID of the graph.
+     *
+     * @return The identifier of the graph.
+     */
+    public UUID getUuid() {
+        return this.identifier;
+    }
+
+    /**
+     * Returns the number of nodes of the graph.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Returns the number of links of the graph.
+     *
+     * @return The number of links.
+     */
+    public int edgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * Indicates if the graph has a node of given identifier.
+     *
+     * @param identifier The UUID of a node, not null.
+     * @return True if and only if the graph has a node of that identifier.
+     * @throws NullPointerException if identifier is null.
+     */
+    public boolean contains(UUID identifier) {
+        Objects.requireNonNull(identifier, NULL_IDENTIFIER_ERROR);
+        return this.nodes.containsKey(identifier);
+    }
+
+    /**
+     * Returns the state of the node of given identifier.
+     *
+     * @param identifier The UUID of a node, not null.
+     * @return The state of the node, or null if it is absent.
+     * @throws NullPointerException if identifier is null.
+     */
+    public NodeRecord getNode(UUID identifier) {
+        Objects.requireNonNull(identifier, NULL_IDENTIFIER_ERROR);
+        return this.nodes.get(identifier);
+    }
+
+    /**
+     * Performs the given action on the state of each node, in no particular
+     * order.
+     *
+     * @param action The action to perform, not null.
+     * @throws NullPointerException if action is null.
+     */
+    public void forEachNode(Consumer<? super NodeRecord> action) {
+        Objects.requireNonNull(action, NULL_ACTION_ERROR);
+        this.nodes.forEach((id, record) -> action.accept(record));
+    }
+
+    /**
+     * Performs the given action on the identifier of each neighbor of the node
+     * of given identifier, in no particular order.
+     *
+     * Does nothing if the node is absent.
+     *
+     * @param identifier The UUID of a node, not null.
+     * @param action The action to perform, not null.
+     * @throws NullPointerException if identifier or action are null.
+     */
+    public void forEachNeighbor(UUID identifier,
+            Consumer<? super UUID> action) {
+        Objects.requireNonNull(identifier, NULL_IDENTIFIER_ERROR);
+        Objects.requireNonNull(action, NULL_ACTION_ERROR);
+        PersistentMap<UUID, Boolean> neighbors = this.links.get(identifier);
+        if (neighbors != null)
+            neighbors.forEach((id, present) -> action.accept(id));
+    }
+
+    /**
+     * Returns the number of neighbors of the node of given identifier.
+     *
+     * @param identifier The UUID of a node, not null.
+     * @return The out-degree of the node, 0 if it is absent.
+     * @throws NullPointerException if identifier is null.
+     */
+    public int neighborCount(UUID identifier) {
+        Objects.requireNonNull(identifier, NULL_IDENTIFIER_ERROR);
+        PersistentMap<UUID, Boolean> neighbors = this.links.get(identifier);
+        return (neighbors == null) ? 0 : neighbors.size();
+    }
+
+    /**
+     * Indicates if the first node is linked to the second node.
+     *
+     * @param src The UUID of the source of the link, not null.
+     * @param dst The UUID of the destination of the link, not null.
+     * @return True if and only if src is linked to dst.
+     * @throws NullPointerException if src or dst are null.
+     */
+    public boolean hasEdge(UUID src, UUID dst) {
+        Objects.requireNonNull(src, NULL_IDENTIFIER_ERROR);
+        Objects.requireNonNull(dst, NULL_IDENTIFIER_ERROR);
+        PersistentMap<UUID, Boolean> neighbors = this.links.get(src);
+        return neighbors != null && neighbors.containsKey(dst);
+    }
+
+    /**
+     * Reports the changes that turn previous into this snapshot to visitor.
+     *
+     * The added and changed nodes are reported first, then the added and
+     * removed links, then the removed nodes. The links of the removed nodes
+     * are not reported. As snapshots taken from the same graph share the
+     * parts of their state that did not change, the time taken is
+     * proportional to the number of changes between them, not to the size of
+     * the graph.
+     *
+     * @param previous A snapshot of an earlier state of the graph, not null.
+     * @param visitor The visitor the changes are reported to, not null.
+     * @throws NullPointerException if previous or visitor are null.
+     */
+    public void diff(GraphSnapshot previous, ChangeVisitor visitor) {
+        Objects.requireNonNull(previous, NULL_SNAPSHOT_ERROR);
+        Objects.requireNonNull(visitor, NULL_VISITOR_ERROR);
+        List<UUID> removed = new ArrayList<>();
+        this.nodes.diff(
+          previous.nodes,
+          (id, record) -> visitor.nodePut(record),
+          (id, record) -> removed.add(id)
+        );
+        this.links.diff(
+          previous.links,
+          (src, neighbors) -> {
+              PersistentMap<UUID, Boolean> old = previous.links.get(src);
+              neighbors.diff(
+                (old == null) ? PersistentMap.empty() : old,
+                (dst, present) -> visitor.linked(src, dst),
+                (dst, present) -> visitor.unlinked(src, dst)
+              );
+          },
+          (src, neighbors) -> {} // implied by the removal of src
+        );
+        for (UUID id: removed)
+            visitor.nodeRemoved(id);
+    }
+
+    /**
+     * Returns a new graph with the state of this snapshot.
+     *
+     * The nodes of the graph returned are new nodes, with the identifiers of
+     * the nodes of this snapshot.
+     *
+     * @return A new graph, of same name and identifier as the graph of this
+     *         snapshot.
+     */
+    public Graph toGraph() {
+        Graph graph = new Graph(this.name, this.identifier);
+        this.nodes.forEach((id, record) -> graph.add(record.toNode()));
+        this.links.forEach((src, neighbors) -> {
+            Node srcNode = graph.getNode(src);
+            neighbors.forEach(
+              (dst, present) -> graph.link(srcNode, graph.getNode(dst))
+            );
+        });
+        return graph;
+    }
+}
@@ -0,0 +1,46 @@
+package cogito.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Identifies a version of a graph kept by the history of its saves.
+ *
+ * @param identifier The UUID of the graph.
+ * @param number The number of the version, from 1 for the first save.
+ * @param time The time of the save, in milliseconds since the epoch.
+ */
+public record GraphVersion(UUID identifier, int number, long time) {
+
+    // Formats the time of the versions listed.
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter
+        .ofLocalizedDateTime(FormatStyle.MEDIUM)
+        .withZone(ZoneId.systemDefault());
+
+    /**
+     * Creates a new graph version object.
+     *
+     * @param identifier The identifier of a graph, not null.
+     * @param number The number of the version, at least 1.
+     * @param time The time of the save, in milliseconds since the epoch.
+     * @throws NullPointerException if identifier is null.
+     * @throws IllegalArgumentException if number is less than 1.
+     */
+    public GraphVersion {
+        Objects.requireNonNull(identifier, "Identifier can not be null.");
+        if (number < 1)
+            throw new IllegalArgumentException(
+              "Version number must be at least 1."
+            );
+    }
+
+    @Override
+    public String toString() {
+        return "Version " + this.number + ", "
+            + TIME_FORMATTER.format(Instant.ofEpochMilli(this.time));
+    }
+}
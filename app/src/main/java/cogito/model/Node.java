@@ -4,6 +4,8 @@ import java.util.Objects;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import cogito.view.Observer;
 
 /**
@@ -13,24 +15,31 @@ import cogito.view.Observer;
  * The title of a Node is mandatory, must be not empty and have a length of at
  * most 100 characters. A Node can encapsulate at most 5000 characters of
  * textual information.
+ *
+ * The textual information of a Node can be supplied lazily, in which case it
+ * is only loaded when first requested.
  */
 public class Node implements Observable {
 
     // The title, length inside [1; 100]
-    private String title;
+    private volatile String title;
 
-    // The textual information stored in this Node
-    private String information;
+    // Supplies the textual information stored in this Node
+    private volatile Supplier<String> information;
 
     // The x coordinate of this Node in the graph space
-    private int x;
+    private volatile int x;
 
     // The y coordinate of this Node in the graph space
-    private int y;
+    private volatile int y;
 
     // The observers subscribed to this Node updates
     private final List<Observer> observers;
 
+    // The structures indexing this Node, notified of its changes, possibly
+    // from several threads
+    private final List<NodeListener> listeners;
+
     // The universally unique identifier of this Node
     private final UUID identifier;
 
@@ -43,8 +52,13 @@ public class Node implements Observable {
     // Minimal textual information length
     private static final int MIN_TEXT_LEN = 0;
 
-    // Maximal textual information length
-    private static final int MAX_TEXT_LEN = 5000;
+    /**
+     * Maximal length in characters of the textual information of a Node.
+     */
+    public static final int MAX_TEXT_LEN = 5000;
+
+    // Supplies the information of a Node created without any
+    private static final Supplier<String> NO_INFORMATION = () -> "";
 
     // Error messages
     private static final String SHORT_TITLE_ERROR =
@@ -75,8 +89,9 @@ public class Node implements Observable {
     public Node(String title) {
         checkTitleValidity(title);
         this.title = title;
-        this.information = "";
+        this.information = NO_INFORMATION;
         this.observers = new ArrayList<>();
+        this.listeners = new CopyOnWriteArrayList<>();
         this.identifier = UUID.randomUUID();
         this.x = 0;
         this.y = 0;
@@ -114,7 +129,7 @@ public class Node implements Observable {
     public Node(String title, String information) {
         this(title);
         checkInformationValidity(information);
-        this.information = information;
+        this.information = textOf(information);
     }
 
     /**
@@ -127,12 +142,36 @@ public class Node implements Observable {
      * @param id The UUID of the node.
      */
     public Node(String title, String information, int x, int y, UUID id) {
+        this(title, textOf(information), x, y, id);
+    }
+
+    /**
+     * Creates a Node of given title, position and identifier, whose
+     * information is supplied by information when first requested.
+     *
+     * The supplier is expected to return the information the Node was saved
+     * with, it is not checked.
+     *
+     * @param title The title of the node.
+     * @param information Supplies the information of the node.
+     * @param x The x position in the graph space of the node.
+     * @param y The y position in the graph space of the node.
+     * @param id The UUID of the node.
+     */
+    public Node(
+      String title,
+      Supplier<String> information,
+      int x,
+      int y,
+      UUID id
+    ) {
         this.title = title;
         this.information = information;
         this.x = x;
         this.y = y;
         this.identifier = id;
         this.observers = new ArrayList<>();
+        this.listeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -157,6 +196,7 @@ public class Node implements Observable {
     public void setTitle(String newTitle) {
         checkTitleValidity(newTitle);
         this.title = newTitle;
+        this.notifyChanged();
     }
 
     /**
@@ -165,6 +205,16 @@ public class Node implements Observable {
      * @return The information stored in this Node as a string.
      */
     public String getInformation() {
+        return this.information.get();
+    }
+
+    /**
+     * Returns the supplier of the information of this Node, so that it can
+     * be recorded without being loaded.
+     *
+     * @return The supplier of the information of this Node.
+     */
+    Supplier<String> getInformationSupplier() {
         return this.information;
     }
 
@@ -179,7 +229,8 @@ public class Node implements Observable {
      */
     public void setInformation(String newInformation) {
         checkInformationValidity(newInformation);
-        this.information = newInformation;
+        this.information = textOf(newInformation);
+        this.notifyChanged();
     }
 
     @Override
@@ -234,7 +285,8 @@ public class Node implements Observable {
      * @param newX The new x coordinate of this Node in the graph space.
      */
     public void setX(int newX) {
-        this.x = newX;
+        if (this.x != newX)
+            this.move(() -> this.x = newX);
     }
 
     /**
@@ -252,7 +304,8 @@ public class Node implements Observable {
      * @param newY The new y coordinate of this Node in the graph space.
      */
     public void setY(int newY) {
-        this.y = newY;
+        if (this.y != newY)
+            this.move(() -> this.y = newY);
     }
 
     /**
@@ -269,6 +322,48 @@ public class Node implements Observable {
         return (int)(100 * dist) / 100.0;
     }
 
+    /**
+     * Registers a listener to be notified of the changes of this Node.
+     *
+     * @param listener The listener to register.
+     */
+    void addListener(NodeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener of this Node.
+     *
+     * @param listener The listener to unregister.
+     */
+    void removeListener(NodeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    // Runs setter, which changes the coordinates of this Node, inside the
+    // moveNode calls of all the listeners, so that none of them can be seen
+    // with the new coordinates and its structures not updated yet.
+    private void move(Runnable setter) {
+        Runnable move = setter;
+        for (NodeListener listener: this.listeners) {
+            Runnable inner = move;
+            move = () -> listener.moveNode(this, inner);
+        }
+        move.run();
+    }
+
+    // Notifies the listeners that the title or information of this Node
+    // changed.
+    private void notifyChanged() {
+        for (NodeListener listener: this.listeners)
+            listener.nodeChanged(this);
+    }
+
+    // Returns a supplier of information, already loaded.
+    private static Supplier<String> textOf(String information) {
+        return () -> information;
+    }
+
     // Checks that title length is in bounds and not null.
     private void checkTitleValidity(String title) {
         checkStringValidity(title, MIN_TITLE_LEN, MAX_TITLE_LEN,
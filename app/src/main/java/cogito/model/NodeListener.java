@@ -0,0 +1,25 @@
+package cogito.model;
+
+/**
+ * Receives notifications about the changes of the state of a Node that the
+ * structures indexing it need to know about.
+ */
+interface NodeListener {
+
+    /**
+     * Called to change the position of node: the listener runs move, which
+     * sets the coordinates of node, and updates its structures, so that it
+     * can do both atomically.
+     *
+     * @param node The node that moves.
+     * @param move Sets the new coordinates of node.
+     */
+    void moveNode(Node node, Runnable move);
+
+    /**
+     * Called after the title or the information of node changed.
+     *
+     * @param node The node that changed.
+     */
+    void nodeChanged(Node node);
+}
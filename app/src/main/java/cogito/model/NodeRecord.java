@@ -0,0 +1,176 @@
+package cogito.model;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Immutable copy of the state of a Node at a given time.
+ *
+ * The information of a record is not read until it is requested, so that
+ * recording a node whose information is loaded lazily does not load it.
+ */
+public final class NodeRecord {
+
+    // The UUID of the node
+    private final UUID identifier;
+
+    // The title of the node
+    private final String title;
+
+    // Supplies the textual information of the node
+    private final Supplier<String> information;
+
+    // The coordinates of the node in the graph space
+    private final int x;
+    private final int y;
+
+    /**
+     * Creates a record of given state.
+     *
+     * @param identifier The UUID of the node.
+     * @param title The title of the node.
+     * @param information The textual information of the node.
+     * @param x The x coordinate of the node in the graph space.
+     * @param y The y coordinate of the node in the graph space.
+     */
+    public NodeRecord(
+      UUID identifier,
+      String title,
+      String information,
+      int x,
+      int y
+    ) {
+        this(identifier, title, () -> information, x, y);
+    }
+
+    // Creates a record whose information is supplied by information.
+    private NodeRecord(
+      UUID identifier,
+      String title,
+      Supplier<String> information,
+      int x,
+      int y
+    ) {
+        this.identifier = identifier;
+        this.title = title;
+        this.information = information;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Returns a record of the current state of node.
+     *
+     * @param node A node, not null.
+     * @return The record of the state of node.
+     */
+    static NodeRecord of(Node node) {
+        return new NodeRecord(
+          node.getUuid(),
+          node.getTitle(),
+          node.getInformationSupplier(),
+          node.getX(),
+          node.getY()
+        );
+    }
+
+    /**
+     * Returns the UUID of the node.
+     *
+     * @return The UUID of the node.
+     */
+    public UUID identifier() {
+        return this.identifier;
+    }
+
+    /**
+     * Returns the title of the node.
+     *
+     * @return The title of the node.
+     */
+    public String title() {
+        return this.title;
+    }
+
+    /**
+     * Returns the textual information of the node, loading it if needed.
+     *
+     * @return The information of the node.
+     */
+    public String information() {
+        return this.information.get();
+    }
+
+    /**
+     * Returns the x coordinate of the node in the graph space.
+     *
+     * @return The x coordinate of the node.
+     */
+    public int x() {
+        return this.x;
+    }
+
+    /**
+     * Returns the y coordinate of the node in the graph space.
+     *
+     * @return The y coordinate of the node.
+     */
+    public int y() {
+        return this.y;
+    }
+
+    /**
+     * Returns a new node holding the state of this record.
+     *
+     * The information of the node is supplied as the one of this record, so
+     * it is not loaded if it was not yet.
+     *
+     * @return A node of same identifier, title, information and position as
+     *         this record.
+     */
+    public Node toNode() {
+        return new Node(this.title, this.information, this.x, this.y,
+                this.identifier);
+    }
+
+    /**
+     * Indicates if this record and other hold the same information, without
+     * loading it when both share its source.
+     *
+     * @param other A record, not null.
+     * @return True if and only if the information of both records is equal.
+     */
+    boolean hasSameInformation(NodeRecord other) {
+        return this.information == other.information
+            || this.information().equals(other.information());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof NodeRecord))
+            return false;
+        NodeRecord other = (NodeRecord) obj;
+        return this.x == other.x
+            && this.y == other.y
+            && this.identifier.equals(other.identifier)
+            && this.title.equals(other.title)
+            && this.hasSameInformation(other);
+    }
+
+    @Override
+    public int hashCode() {
+        // the information is left out so that hashing does not load it
+        return Objects.hash(this.identifier, this.title, this.x, this.y);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeRecord[identifier=" + this.identifier
+            + ", title=" + this.title
+            + ", x=" + this.x
+            + ", y=" + this.y + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package cogito.model;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * Uniform grid over the graph space, used to find the nodes around a location
+ * or inside a rectangle without visiting every node of a graph.
+ *
+ * The graph space is divided into square cells of CELL_SIZE units, and each
+ * non-empty cell holds the nodes whose position lays inside it. A query only
+ * visits the cells that overlap its area, or the non-empty cells if there are
+ * fewer of them.
+ */
+class SpatialIndex {
+
+    // Length of the side of a cell in the graph space.
+    static final int CELL_SIZE = 128;
+
+    // Non-empty cells, keyed by their packed column and row.
+    private final Map<Long, List<Node>> cells;
+
+    /**
+     * Creates a new empty spatial index.
+     */
+    SpatialIndex() {
+        this.cells = new HashMap<>();
+    }
+
+    /**
+     * Indexes node at its current position.
+     *
+     * @param node The node to index.
+     */
+    void add(Node node) {
+        this.addAt(node, node.getX(), node.getY());
+    }
+
+    /**
+     * Removes node, indexed at its current position, from this index.
+     *
+     * @param node The node to remove.
+     */
+    void remove(Node node) {
+        this.removeAt(node, node.getX(), node.getY());
+    }
+
+    /**
+     * Moves node from its previous position to its current position.
+     *
+     * @param node The node that moved.
+     * @param oldX The x coordinate of node when it was indexed.
+     * @param oldY The y coordinate of node when it was indexed.
+     */
+    void move(Node node, int oldX, int oldY) {
+        long oldKey = key(cellOf(oldX), cellOf(oldY));
+        long newKey = key(cellOf(node.getX()), cellOf(node.getY()));
+        if (oldKey == newKey)
+            return;
+        this.removeAt(node, oldX, oldY);
+        this.add(node);
+    }
+
+    /**
+     * Returns the node nearest to (x, y) within the given radius, or null if
+     * there is none.
+     *
+     * @param x The x coordinate of the location.
+     * @param y The y coordinate of the location.
+     * @param radius The radius of the search circle, greater than or equal to
+     *        0.
+     * @return The nearest node inside the circle, or null.
+     */
+    Node nearest(int x, int y, int radius) {
+        Node[] best = new Node[1];
+        double[] bestDistance = {Double.MAX_VALUE};
+        this.visit((long)x - radius, (long)y - radius,
+                (long)x + radius, (long)y + radius, node -> {
+            double distance = node.distanceFrom(x, y);
+            if (distance <= radius && distance < bestDistance[0]) {
+                bestDistance[0] = distance;
+                best[0] = node;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Passes to action every node of the cells overlapping the bounding box
+     * [minX; maxX] x [minY; maxY].
+     *
+     * The nodes are candidates only, some of them may lay outside the bounding
+     * box, it is up to action to filter them.
+     *
+     * @param minX The smallest x coordinate of the bounding box.
+     * @param minY The smallest y coordinate of the bounding box.
+     * @param maxX The largest x coordinate of the bounding box.
+     * @param maxY The largest y coordinate of the bounding box.
+     * @param action The action to perform on each candidate.
+     */
+    void visit(long minX, long minY, long maxX, long maxY,
+            Consumer<Node> action) {
+        long minCol = cellOf(minX);
+        long maxCol = cellOf(maxX);
+        long minRow = cellOf(minY);
+        long maxRow = cellOf(maxY);
+        long area = (maxCol - minCol + 1) * (maxRow - minRow + 1);
+        if (area > this.cells.size()) {
+            // sparser to walk the occupied cells than the covered ones
+            for (Map.Entry<Long, List<Node>> entry: this.cells.entrySet()) {
+                long cellKey = entry.getKey();
+                long col = cellKey >> 32;
+                long row = (int)cellKey;
+                if (col >= minCol && col <= maxCol
+                        && row >= minRow && row <= maxRow)
+                    entry.getValue().forEach(action);
+            }
+            return;
+        }
+        for (long col = minCol; col <= maxCol; col++) {
+            for (long row = minRow; row <= maxRow; row++) {
+                List<Node> cell = this.cells.get(key(col, row));
+                if (cell != null)
+                    cell.forEach(action);
+            }
+        }
+    }
+
+    private void addAt(Node node, int x, int y) {
+        this.cells
+            .computeIfAbsent(key(cellOf(x), cellOf(y)), k -> new ArrayList<>())
+            .add(node);
+    }
+
+    private void removeAt(Node node, int x, int y) {
+        long cellKey = key(cellOf(x), cellOf(y));
+        List<Node> cell = this.cells.get(cellKey);
+        if (cell == null)
+            return;
+        cell.remove(node);
+        if (cell.isEmpty())
+            this.cells.remove(cellKey);
+    }
+
+    private static long cellOf(long coordinate) {
+        return Math.floorDiv(coordinate, CELL_SIZE);
+    }
+
+    // packs a column and a row, both fitting in an int, in a long
+    private static long key(long col, long row) {
+        return (col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
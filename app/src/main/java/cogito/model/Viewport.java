@@ -0,0 +1,206 @@
+package cogito.model;
+
+import java.util.Objects;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Collections;
+import java.awt.Rectangle;
+
+/**
+ * The subgraph of a graph within the bounds of a rectangle of the graph space,
+ * kept up to date while the rectangle moves.
+ *
+ * The subgraph follows the properties described in
+ * Graph.getSubGraphInRectangle(). When the rectangle is moved with moveTo(),
+ * only the nodes that enter or leave the rectangle, and their links, are
+ * visited, so that the cost of a move depends on what scrolls in or out of the
+ * rectangle and not on the size of the graph.
+ *
+ * A viewport does not observe its graph: after the graph is modified, reset()
+ * must be called to recompute the subgraph.
+ */
+public class Viewport {
+
+    // The graph this viewport looks at.
+    private final Graph graph;
+
+    // The current rectangle of this viewport.
+    private Rectangle rect;
+
+    // The nodes whose position is within the bounds of rect.
+    private final Set<Node> visibleNodes;
+
+    // The subgraph within the bounds of rect, as a map of adjacencies.
+    private final Map<Node, ArrayList<Node>> subgraph;
+
+    // Error messages
+    private static final String NULL_GRAPH_ERROR = "Graph can not be null";
+    private static final String NULL_RECTANGLE_ERROR =
+        "Rectangle cannot be null";
+
+    /**
+     * Creates a new viewport on graph, within the bounds of rect.
+     *
+     * @param graph The graph to look at, not null.
+     * @param rect The rectangular portion of the graph space to look at, not
+     *        null.
+     * @throws NullPointerException if graph or rect are null.
+     */
+    public Viewport(Graph graph, Rectangle rect) {
+        this.graph = Objects.requireNonNull(graph, NULL_GRAPH_ERROR);
+        this.visibleNodes = new HashSet<>();
+        this.subgraph = new HashMap<>();
+        this.reset(rect);
+    }
+
+    /**
+     * Returns a copy of the rectangle of this viewport.
+     *
+     * @return A copy of the rectangle of this viewport.
+     */
+    public Rectangle getRectangle() {
+        return new Rectangle(this.rect);
+    }
+
+    /**
+     * Returns the subgraph within the bounds of the rectangle of this
+     * viewport, as an unmodifiable map of adjacencies.
+     *
+     * The map returned reflects the later moves of this viewport.
+     *
+     * @return The subgraph within the bounds of the rectangle.
+     */
+    public Map<Node, ArrayList<Node>> getSubGraph() {
+        return Collections.unmodifiableMap(this.subgraph);
+    }
+
+    /**
+     * Recomputes the subgraph within the bounds of rect from scratch.
+     *
+     * @param rect The new rectangle of this viewport, not null.
+     * @throws NullPointerException if rect is null.
+     */
+    public void reset(Rectangle rect) {
+        Objects.requireNonNull(rect, NULL_RECTANGLE_ERROR);
+        this.rect = new Rectangle(rect);
+        this.visibleNodes.clear();
+        this.subgraph.clear();
+        for (Node node: this.graph.getNodesInRectangle(this.rect))
+            this.enter(node);
+    }
+
+    /**
+     * Moves this viewport to rect, updating the subgraph with the nodes that
+     * entered or left the rectangle only.
+     *
+     * @param rect The new rectangle of this viewport, not null.
+     * @throws NullPointerException if rect is null.
+     */
+    public void moveTo(Rectangle rect) {
+        Objects.requireNonNull(rect, NULL_RECTANGLE_ERROR);
+        Rectangle oldRect = this.rect;
+        Rectangle newRect = new Rectangle(rect);
+        Set<Node> leaving = new HashSet<>();
+        for (long[] strip: stripsOutside(oldRect, newRect)) {
+            this.graph.visitNodesInBox(strip, node -> {
+                if (this.visibleNodes.contains(node)
+                        && !Graph.rectContains(newRect, node.getX(),
+                            node.getY()))
+                    leaving.add(node);
+            });
+        }
+        Set<Node> entering = new HashSet<>();
+        for (long[] strip: stripsOutside(newRect, oldRect)) {
+            this.graph.visitNodesInBox(strip, node -> {
+                if (!this.visibleNodes.contains(node)
+                        && Graph.rectContains(newRect, node.getX(),
+                            node.getY()))
+                    entering.add(node);
+            });
+        }
+        this.rect = newRect;
+        for (Node node: leaving)
+            this.leave(node);
+        for (Node node: entering)
+            this.enter(node);
+    }
+
+    // Adds node to the visible nodes, with all its neighbors, and adds it to
+    // the neighbors of the invisible nodes linking to it.
+    private void enter(Node node) {
+        this.visibleNodes.add(node);
+        Set<Node> neighbors = this.graph.outgoingOf(node);
+        this.subgraph.put(node, new ArrayList<>(neighbors));
+        for (Node src: this.graph.incomingOf(node)) {
+            if (!this.visibleNodes.contains(src))
+                this.subgraph
+                    .computeIfAbsent(src, k -> new ArrayList<>())
+                    .add(node);
+        }
+    }
+
+    // Removes node from the visible nodes, keeps only its visible neighbors,
+    // and removes it from the neighbors of the invisible nodes linking to it.
+    private void leave(Node node) {
+        this.visibleNodes.remove(node);
+        ArrayList<Node> visibleNeighbors = new ArrayList<>();
+        for (Node dst: this.graph.outgoingOf(node)) {
+            if (this.visibleNodes.contains(dst))
+                visibleNeighbors.add(dst);
+        }
+        if (visibleNeighbors.isEmpty())
+            this.subgraph.remove(node);
+        else
+            this.subgraph.put(node, visibleNeighbors);
+        for (Node src: this.graph.incomingOf(node)) {
+            if (this.visibleNodes.contains(src))
+                continue;
+            List<Node> neighbors = this.subgraph.get(src);
+            if (neighbors == null)
+                continue;
+            neighbors.remove(node);
+            if (neighbors.isEmpty())
+                this.subgraph.remove(src);
+        }
+    }
+
+    // Returns bounding boxes {minX, minY, maxX, maxY}, edges included, that
+    // together cover the part of a that is not covered by b. The boxes may
+    // overlap b on its edges.
+    private static List<long[]> stripsOutside(Rectangle a, Rectangle b) {
+        long[] boxA = box(a);
+        long[] boxB = box(b);
+        List<long[]> strips = new ArrayList<>();
+        if (boxA[0] > boxB[2] || boxB[0] > boxA[2]
+                || boxA[1] > boxB[3] || boxB[1] > boxA[3]) {
+            strips.add(boxA);
+            return strips;
+        }
+        if (boxA[0] < boxB[0]) // left of b
+            strips.add(new long[] {boxA[0], boxA[1], boxB[0], boxA[3]});
+        if (boxA[2] > boxB[2]) // right of b
+            strips.add(new long[] {boxB[2], boxA[1], boxA[2], boxA[3]});
+        long minX = Math.max(boxA[0], boxB[0]);
+        long maxX = Math.min(boxA[2], boxB[2]);
+        if (boxA[1] < boxB[1]) // above b
+            strips.add(new long[] {minX, boxA[1], maxX, boxB[1]});
+        if (boxA[3] > boxB[3]) // below b
+            strips.add(new long[] {minX, boxB[3], maxX, boxA[3]});
+        return strips;
+    }
+
+    private static long[] box(Rectangle rect) {
+        long x2 = (long)rect.x + rect.width;
+        long y2 = (long)rect.y + rect.height;
+        return new long[] {
+          Math.min(rect.x, x2),
+          Math.min(rect.y, y2),
+          Math.max(rect.x, x2),
+          Math.max(rect.y, y2)
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package cogito.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the .gr file of a graph stored in the directory format of previous
+ * versions, as a stream of tokens.
+ *
+ * A .gr file holds the name of the graph on its first line, then a line per
+ * node: the UUID of the node followed by the UUIDs of its neighbors, all
+ * separated by commas. The UUIDs are parsed from the characters read into
+ * their most and least significant bits, so that reading the file allocates
+ * nothing but its buffer.
+ */
+final class AdjacencyReader implements Closeable {
+
+    // Number of characters read at once.
+    private static final int BUFFER_SIZE = 8192;
+
+    // Number of characters of a UUID.
+    private static final int UUID_LENGTH = 36;
+
+    // Error messages
+    private static final String INVALID_UUID_ERROR =
+        "Invalid UUID in adjacency file at line ";
+
+    // The characters of the file.
+    private final Reader in;
+
+    // The characters read and not consumed yet are buffer[position; limit[.
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    // Indicates if the end of the current line was reached.
+    private boolean lineEnded;
+
+    // The number of the current line, from 1.
+    private int lineNumber;
+
+    // The bits of the last UUID read.
+    private long msb;
+    private long lsb;
+
+    /**
+     * Creates a reader of the tokens of in.
+     *
+     * @param in The characters of a .gr file.
+     */
+    AdjacencyReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[BUFFER_SIZE];
+        this.position = 0;
+        this.limit = 0;
+        this.lineEnded = true;
+        this.lineNumber = 0;
+    }
+
+    /**
+     * Reads the first line of the file, the name of the graph.
+     *
+     * @return The name of the graph, or null if the file is empty.
+     * @throws IOException if an I/O error occurred.
+     */
+    String readName() throws IOException {
+        if (this.peek() == -1)
+            return null;
+        StringBuilder name = new StringBuilder();
+        this.lineNumber = 1;
+        int c;
+        while ((c = this.peek()) != -1 && c != '\n' && c != '\r') {
+            name.append((char)c);
+            this.position++;
+        }
+        this.lineEnded = true;
+        return name.toString();
+    }
+
+    /**
+     * Moves to the next non-empty line, skipping the rest of the current
+     * line.
+     *
+     * @return False if the end of the file was reached.
+     * @throws IOException if an I/O error occurred.
+     */
+    boolean nextLine() throws IOException {
+        int c;
+        while (!this.lineEnded) {
+            c = this.peek();
+            if (c == -1 || c == '\n' || c == '\r')
+                this.lineEnded = true;
+            else
+                this.position++;
+        }
+        while ((c = this.peek()) == '\n' || c == '\r') {
+            if (c == '\n')
+                this.lineNumber++;
+            this.position++;
+        }
+        if (c == -1)
+            return false;
+        this.lineEnded = false;
+        return true;
+    }
+
+    /**
+     * Reads the next UUID of the current line, whose bits are then returned
+     * by msb() and lsb().
+     *
+     * @return False if the end of the line was reached.
+     * @throws IOException if an I/O error occurred or if the next token of
+     *         the line is not a UUID.
+     */
+    boolean nextUuid() throws IOException {
+        while (!this.lineEnded) {
+            int c = this.peek();
+            if (c == -1 || c == '\n' || c == '\r') {
+                this.lineEnded = true;
+            } else if (c == ',') {
+                this.position++; // empty token
+            } else {
+                this.parseUuid();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the most significant bits of the last UUID read.
+     *
+     * @return The most significant bits of the last UUID read.
+     */
+    long msb() {
+        return this.msb;
+    }
+
+    /**
+     * Returns the least significant bits of the last UUID read.
+     *
+     * @return The least significant bits of the last UUID read.
+     */
+    long lsb() {
+        return this.lsb;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    // Parses the UUID starting at position, in its canonical form, and the
+    // comma that follows it if any.
+    private void parseUuid() throws IOException {
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            int c = this.peek();
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    throw this.invalidUuid();
+            } else {
+                int digit = (c == -1) ? -1 : Character.digit(c, 16);
+                if (digit < 0)
+                    throw this.invalidUuid();
+                if (digits++ < 16)
+                    high = (high << 4) | digit;
+                else
+                    low = (low << 4) | digit;
+            }
+            this.position++;
+        }
+        int c = this.peek();
+        if (c == ',')
+            this.position++;
+        else if (c != -1 && c != '\n' && c != '\r')
+            throw this.invalidUuid();
+        this.msb = high;
+        this.lsb = low;
+    }
+
+    private IOException invalidUuid() {
+        return new IOException(INVALID_UUID_ERROR + this.lineNumber);
+    }
+
+    // Returns the character at position, reading more if needed, or -1 at
+    // the end of the file.
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            int read = this.in.read(this.buffer);
+            if (read == -1)
+                return -1;
+            this.position = 0;
+            this.limit = read;
+        }
+        return this.buffer[this.position];
+    }
+}
@@ -0,0 +1,310 @@
+package cogito.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import cogito.model.Graph;
+import cogito.model.GraphListener;
+import cogito.model.Node;
+import cogito.model.Observable;
+import cogito.view.Observer;
+
+/**
+ * Saves a graph in the background shortly after it is modified.
+ *
+ * The modifications are debounced: a save happens once the graph was left
+ * unmodified for a short delay, or at the latest a few seconds after the
+ * first unsaved modification, so that a burst of modifications costs a
+ * single save. Saves run on a background thread, the graph should then be
+ * a ConcurrentGraph.
+ *
+ * The saves forced by saveNow and close also commit the state of the graph
+ * as a version, the debounced ones do not, so that an editing session adds
+ * a version per explicit save rather than per pause in the edits.
+ *
+ * The observers of the service are updated with it each time its status
+ * changes, from the thread that changed it.
+ */
+public final class AutosaveService implements GraphListener, Observable {
+
+    /**
+     * The state of the saved graph.
+     */
+    public enum Status {
+        /** The graph is saved. */
+        SAVED,
+        /** The graph was modified since it was last saved. */
+        MODIFIED,
+        /** The graph is being saved. */
+        SAVING,
+        /** The last save failed, see getLastError. */
+        FAILED
+    }
+
+    // Delay without modification after which the graph is saved
+    private static final long DEBOUNCE_DELAY_MS = 1000;
+
+    // Maximal delay between a modification and the save of the graph
+    private static final long MAX_DELAY_MS = 10000;
+
+    // Saves the graphs of all the services
+    private static final ScheduledExecutorService EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // The graph saved by this service
+    private final Graph model;
+
+    // Saves the graph
+    private final Saver saver;
+
+    // Saves the graph and commits it as a version
+    private final Saver versionSaver;
+
+    // The observers of the status of this service
+    private final List<Observer> observers;
+
+    // The state of the graph, guarded by this service
+    private Status status;
+
+    // The error of the last save that failed, guarded by this service
+    private IOException lastError;
+
+    // The next save, guarded by this service, null if none is scheduled
+    private Future<?> pending;
+
+    // The time of the first modification not saved, guarded by this
+    // service, in nanoseconds
+    private long firstModification;
+
+    // Indicates if this service was closed, guarded by this service
+    private boolean closed;
+
+    // Error messages
+    private static final String NULL_GRAPH_ERROR = "Graph can not be null";
+    private static final String NULL_OBSERVER_ERROR =
+        "Observer can not be null";
+    private static final String ALREADY_SUBSCRIBED_ERROR =
+        "Observer already subscribed";
+    private static final String ABSENT_OBSERVER_ERROR =
+        "Observer not subscribed";
+
+    /**
+     * Starts saving model in the background when it is modified, through
+     * DataManager.saveGraph(Graph), versions being committed through
+     * DataManager.commitVersion.
+     *
+     * @param model The graph to save, not null.
+     * @throws NullPointerException if model is null.
+     */
+    public AutosaveService(Graph model) {
+        this(model, DataManager::saveGraph, DataManager::commitVersion);
+    }
+
+    /**
+     * Starts saving model with saver in the background when it is modified.
+     *
+     * @param model The graph to save, not null.
+     * @param saver Saves the graph.
+     * @param versionSaver Saves the graph and commits it as a version.
+     * @throws NullPointerException if model is null.
+     */
+    AutosaveService(Graph model, Saver saver, Saver versionSaver) {
+        this.model = Objects.requireNonNull(model, NULL_GRAPH_ERROR);
+        this.saver = saver;
+        this.versionSaver = versionSaver;
+        this.observers = new CopyOnWriteArrayList<>();
+        this.status = Status.SAVED;
+        this.lastError = null;
+        this.pending = null;
+        this.closed = false;
+        model.addGraphListener(this);
+    }
+
+    /**
+     * Returns the state of the saved graph.
+     *
+     * @return The status of this service.
+     */
+    public synchronized Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns the error of the last save that failed.
+     *
+     * @return The error of the last failed save, null if none failed.
+     */
+    public synchronized IOException getLastError() {
+        return this.lastError;
+    }
+
+    /**
+     * Saves the graph in the background without waiting for the debounce
+     * delay, and commits it as a version.
+     *
+     * @return The save, done when the graph is saved.
+     */
+    public synchronized Future<?> saveNow() {
+        if (this.pending != null)
+            this.pending.cancel(false);
+        this.pending = EXECUTOR.submit(() -> this.save(this.versionSaver));
+        return this.pending;
+    }
+
+    /**
+     * Stops saving the graph when it is modified, and saves it in the
+     * background, committing it as a version, unless it is the state of the
+     * last one.
+     *
+     * @return The last save, done when the graph is saved.
+     */
+    public Future<?> close() {
+        this.model.removeGraphListener(this);
+        synchronized (this) {
+            this.closed = true;
+            return this.saveNow();
+        }
+    }
+
+    @Override
+    public void subscribe(Observer observer) {
+        Objects.requireNonNull(observer, NULL_OBSERVER_ERROR);
+        if (this.observers.contains(observer))
+            throw new IllegalArgumentException(ALREADY_SUBSCRIBED_ERROR);
+        this.observers.add(observer);
+    }
+
+    @Override
+    public void unsubscribe(Observer observer) {
+        Objects.requireNonNull(observer, NULL_OBSERVER_ERROR);
+        this.observers.remove(observer);
+    }
+
+    @Override
+    public void update(Observer observer) {
+        Objects.requireNonNull(observer, NULL_OBSERVER_ERROR);
+        if (!this.observers.contains(observer))
+            throw new IllegalArgumentException(ABSENT_OBSERVER_ERROR);
+        observer.updateWithData(this);
+    }
+
+    @Override
+    public void updateObservers() {
+        for (Observer observer: this.observers)
+            observer.updateWithData(this);
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        this.modified();
+    }
+
+    @Override
+    public void nodeRemoved(Node node) {
+        this.modified();
+    }
+
+    @Override
+    public void nodesLinked(Node src, Node dst) {
+        this.modified();
+    }
+
+    @Override
+    public void nodesUnlinked(Node src, Node dst) {
+        this.modified();
+    }
+
+    @Override
+    public void nodeMoved(Node node) {
+        this.modified();
+    }
+
+    @Override
+    public void nodeTitleChanged(Node node) {
+        this.modified();
+    }
+
+    @Override
+    public void nodeInformationChanged(Node node) {
+        this.modified();
+    }
+
+    // Postpones the save until the graph is left unmodified, or until the
+    // maximal delay since the first unsaved modification elapsed.
+    private void modified() {
+        synchronized (this) {
+            if (this.closed)
+                return;
+            long now = System.nanoTime();
+            if (this.status != Status.MODIFIED)
+                this.firstModification = now;
+            this.status = Status.MODIFIED;
+            if (this.pending != null)
+                this.pending.cancel(false);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(
+              now - this.firstModification
+            );
+            this.pending = EXECUTOR.schedule(
+              () -> this.save(this.saver),
+              Math.max(0, Math.min(DEBOUNCE_DELAY_MS, MAX_DELAY_MS - elapsed)),
+              TimeUnit.MILLISECONDS
+            );
+        }
+        this.updateObservers();
+    }
+
+    // Saves the graph with saver, on the thread of EXECUTOR.
+    private void save(Saver saver) {
+        synchronized (this) {
+            this.status = Status.SAVING;
+            this.pending = null;
+        }
+        this.updateObservers();
+        IOException error = null;
+        try {
+            saver.save(this.model);
+        } catch (IOException ioe) {
+            error = ioe;
+        } catch (UncheckedIOException uioe) {
+            // information that could not be read while being written
+            error = uioe.getCause();
+        } catch (RuntimeException re) {
+            // otherwise the status would stay SAVING
+            error = new IOException(re);
+        }
+        synchronized (this) {
+            if (error != null) {
+                this.status = Status.FAILED;
+                this.lastError = error;
+            } else if (this.status == Status.SAVING) {
+                // not modified during the save
+                this.status = Status.SAVED;
+            }
+        }
+        this.updateObservers();
+    }
+
+    /**
+     * Saves a graph.
+     */
+    interface Saver {
+
+        /**
+         * Saves model.
+         *
+         * @param model The graph to save.
+         * @throws IOException if an I/O error occurred.
+         */
+        void save(Graph model) throws IOException;
+    }
+}
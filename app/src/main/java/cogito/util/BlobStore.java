@@ -0,0 +1,297 @@
+package cogito.util;
+
+import java.lang.ref.SoftReference;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Content-addressed store of the long texts of the graphs, shared by all of
+ * them.
+ *
+ * A text is stored once, as a TextCodec record encoded in UTF-8, in a blob
+ * file named after the SHA-256 digest of its encoding: the identical
+ * information of the nodes of cloned graphs, or pasted from node to node,
+ * costs a single file, written and read once. The blobs are spread in
+ * subdirectories named after the first two digits of their digest.
+ *
+ * A graph file references a blob by a reference record, the REFERENCE
+ * method byte followed by the digest. A blob referenced by no graph file is
+ * deleted by collect, the mark being left to DataManager, which knows the
+ * graph files.
+ *
+ * Puts may run concurrently, each blob being written to a temporary file of
+ * its own, but putting and collecting must not: DataManager collects with
+ * the lock of the store held, and puts either with it held or, when
+ * migrating the store, while nothing else uses it.
+ */
+final class BlobStore {
+
+    /**
+     * The method byte of a reference record, distinct from the methods of
+     * the TextCodec records.
+     */
+    static final byte REFERENCE = 2;
+
+    /**
+     * Minimal size in bytes of the encoded texts stored as blobs, shorter
+     * ones costing less in the graph file than a file of their own.
+     */
+    static final int THRESHOLD = 1024;
+
+    // The algorithm of the digests naming the blobs.
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    // Size in bytes of a digest.
+    private static final int DIGEST_SIZE = 32;
+
+    // Size in bytes of a reference record.
+    static final int REFERENCE_SIZE = DIGEST_SIZE + 1;
+
+    // The encoding of the texts of the blobs, whatever the encoding of the
+    // graph files referencing them.
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    // Maximal number of texts kept in the cache.
+    private static final int CACHE_SIZE = 4096;
+
+    // Error messages
+    private static final String CORRUPTED_REFERENCE_ERROR =
+        "Corrupted blob reference";
+    private static final String CORRUPTED_BLOB_ERROR = "Corrupted blob: ";
+    private static final String MISSING_BLOB_ERROR = "Missing blob: ";
+
+    // The directory of the blobs.
+    private final Path dir;
+
+    // The texts read or written last by digest, softly referenced, guarded
+    // by itself.
+    private final Map<String, SoftReference<String>> cache;
+
+    /**
+     * Creates a store of the blobs of dir, created when the first blob is
+     * written.
+     *
+     * @param dir The directory of the blobs.
+     */
+    BlobStore(Path dir) {
+        this.dir = dir;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+              Map.Entry<String, SoftReference<String>> eldest
+            ) {
+                return this.size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Indicates if text is long enough to be stored as a blob.
+     *
+     * @param text A text.
+     * @return True if and only if text is at least THRESHOLD bytes once
+     *         encoded.
+     */
+    static boolean accepts(String text) {
+        // a char is at most 3 bytes in UTF-8, and at least 1
+        if (text.length() >= THRESHOLD)
+            return true;
+        return 3 * text.length() >= THRESHOLD
+            && text.getBytes(CHARSET).length >= THRESHOLD;
+    }
+
+    /**
+     * Stores text, unless it already is, and returns its reference record.
+     *
+     * The blob is forced to the storage device before this method returns,
+     * so that a graph file referencing it can be made current.
+     *
+     * @param text The text to store.
+     * @return The reference record of the blob of text.
+     * @throws IOException if an I/O error occurred.
+     */
+    byte[] put(String text) throws IOException {
+        byte[] digest = digest(text.getBytes(CHARSET));
+        String key = HexFormat.of().formatHex(digest);
+        Path blobFile = this.fileOf(key);
+        if (Files.notExists(blobFile)) {
+            Files.createDirectories(blobFile.getParent());
+            byte[] record;
+            try (TextCodec codec = new TextCodec(CHARSET)) {
+                record = codec.encode(text);
+            }
+            // named uniquely, as several graphs may be migrated at once
+            Path tmpFile = Files.createTempFile(
+              blobFile.getParent(),
+              key,
+              ".tmp"
+            );
+            Files.write(tmpFile, record);
+            try (
+              FileChannel channel = FileChannel.open(
+                tmpFile,
+                StandardOpenOption.WRITE
+              )
+            ) {
+                channel.force(true);
+            }
+            Files.move(
+              tmpFile,
+              blobFile,
+              StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING
+            );
+        }
+        synchronized (this.cache) {
+            this.cache.put(key, new SoftReference<>(text));
+        }
+        byte[] reference = new byte[REFERENCE_SIZE];
+        reference[0] = REFERENCE;
+        System.arraycopy(digest, 0, reference, 1, DIGEST_SIZE);
+        return reference;
+    }
+
+    /**
+     * Returns the text of the blob of a reference record.
+     *
+     * @param reference The bytes holding the reference record.
+     * @param offset The position of the record in reference.
+     * @param length The size of the record in bytes.
+     * @return The text of the blob.
+     * @throws IOException if an I/O error occurred, if the record is not a
+     *         valid reference record or if the blob is missing or corrupted.
+     */
+    String get(byte[] reference, int offset, int length) throws IOException {
+        String key = keyOf(reference, offset, length);
+        synchronized (this.cache) {
+            SoftReference<String> cached = this.cache.get(key);
+            String text = (cached != null) ? cached.get() : null;
+            if (text != null)
+                return text;
+        }
+        Path blobFile = this.fileOf(key);
+        byte[] record;
+        try {
+            record = Files.readAllBytes(blobFile);
+        } catch (NoSuchFileException nsfe) {
+            throw new IOException(MISSING_BLOB_ERROR + key, nsfe);
+        }
+        String text;
+        try {
+            text = TextCodec.decode(record, 0, record.length, CHARSET);
+        } catch (IOException ioe) {
+            throw new IOException(CORRUPTED_BLOB_ERROR + key, ioe);
+        }
+        synchronized (this.cache) {
+            this.cache.put(key, new SoftReference<>(text));
+        }
+        return text;
+    }
+
+    /**
+     * Returns the name of the blob of a reference record, the hexadecimal
+     * digits of its digest.
+     *
+     * @param reference The bytes holding the reference record.
+     * @param offset The position of the record in reference.
+     * @param length The size of the record in bytes.
+     * @return The name of the blob referenced.
+     * @throws IOException if the record is not a valid reference record.
+     */
+    static String keyOf(
+      byte[] reference,
+      int offset,
+      int length
+    ) throws IOException {
+        if (length != REFERENCE_SIZE || reference[offset] != REFERENCE)
+            throw new IOException(CORRUPTED_REFERENCE_ERROR);
+        return HexFormat.of().formatHex(
+          reference,
+          offset + 1,
+          offset + REFERENCE_SIZE
+        );
+    }
+
+    /**
+     * Deletes the blobs whose name is not in referenced, and the temporary
+     * files left by interrupted writes.
+     *
+     * @param referenced The names of the blobs to keep, see keyOf.
+     * @return The number of blobs deleted.
+     * @throws IOException if an I/O error occurred.
+     */
+    int collect(Set<String> referenced) throws IOException {
+        if (Files.notExists(this.dir))
+            return 0;
+        int deleted = 0;
+        try (
+          DirectoryStream<Path> subdirs = Files.newDirectoryStream(this.dir)
+        ) {
+            for (Path subdir: subdirs) {
+                if (!Files.isDirectory(subdir))
+                    continue;
+                deleted += this.collect(subdir, referenced);
+            }
+        } catch (DirectoryIteratorException die) {
+            throw die.getCause();
+        }
+        return deleted;
+    }
+
+    // deletes the unreferenced blobs of subdir, and subdir if it is left
+    // empty
+    private int collect(
+      Path subdir,
+      Set<String> referenced
+    ) throws IOException {
+        int deleted = 0;
+        boolean empty = true;
+        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(subdir)) {
+            for (Path blobFile: blobs) {
+                String key = blobFile.getFileName().toString();
+                if (referenced.contains(key)) {
+                    empty = false;
+                    continue;
+                }
+                Files.delete(blobFile);
+                if (!key.endsWith(".tmp"))
+                    deleted++;
+                synchronized (this.cache) {
+                    this.cache.remove(key);
+                }
+            }
+        }
+        if (empty)
+            Files.delete(subdir);
+        return deleted;
+    }
+
+    // the path of the blob of given name
+    private Path fileOf(String key) {
+        return this.dir.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes);
+        } catch (NoSuchAlgorithmException nsae) {
+            // every Java platform implements SHA-256
+            throw new IllegalStateException(nsae);
+        }
+    }
+}
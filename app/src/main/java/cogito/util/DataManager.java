@@ -3,26 +3,48 @@ package cogito.util;
 import java.nio.file.Paths;
 import java.nio.file.Path;
 import java.nio.file.Files;
-import java.nio.file.CopyOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.FileVisitResult;
 import java.nio.file.DirectoryStream;
 import java.nio.file.DirectoryIteratorException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.Charset;
-import java.io.BufferedWriter;
+import java.nio.channels.FileChannel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.File;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
-import java.util.Set;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
 import cogito.model.Graph;
+import cogito.model.ConcurrentGraph;
 import cogito.model.GraphInfo;
+import cogito.model.GraphSnapshot;
+import cogito.model.GraphVersion;
 import cogito.model.Node;
 
 /**
@@ -33,10 +55,92 @@ public class DataManager {
     private static final String HOME_DIR = System.getProperty("user.home");
     private static final String INSTAL_DIR_NAME = ".cogito";
     private static final String GRAPHS_DIR_NAME = "graphs";
+    private static final String BLOBS_DIR_NAME = "blobs";
     private static final Path INSTAL_DIR = Paths.get(HOME_DIR, INSTAL_DIR_NAME);
     private static final Path GRAPHS_DIR = INSTAL_DIR.resolve(GRAPHS_DIR_NAME);
+    private static final Path CATALOG_FILE =
+        GRAPHS_DIR.resolve(GraphCatalog.FILE_NAME);
     private static final Charset CHARSET = StandardCharsets.UTF_16;
 
+    // The long information of the nodes of all the graphs. Puts may run
+    // concurrently, as migrateGraph does without STORE_LOCK, but not along
+    // with a collection, which holds STORE_LOCK: migrations must not run
+    // while the store is used.
+    private static final BlobStore BLOBS =
+        new BlobStore(INSTAL_DIR.resolve(BLOBS_DIR_NAME));
+
+    // The journals of the graphs loaded or saved, by identifier
+    private static final Map<UUID, GraphJournal> JOURNALS =
+        new ConcurrentHashMap<>();
+
+    // The histories of the graphs saved, by identifier, guarded by
+    // STORE_LOCK
+    private static final Map<UUID, GraphHistory> HISTORIES = new HashMap<>();
+
+    // The search indexes of the graphs opened, by identifier
+    private static final Map<UUID, SearchIndex> INDEXES =
+        new ConcurrentHashMap<>();
+
+    // Guards the files of the graphs directory
+    private static final Object STORE_LOCK = new Object();
+
+    // The information of the saved graphs by identifier, as stored by the
+    // catalog file, guarded by STORE_LOCK, null until read
+    private static Map<UUID, GraphInfo> catalog = null;
+
+    // Rescans the graphs directory to fix the drifts of the catalog
+    private static final ExecutorService CATALOG_EXECUTOR =
+        Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "graph-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // The name of the file holding the current generation of a graph
+    private static final String CURRENT_FILE_NAME = "CURRENT";
+
+    // The number of threads reading the node directories of a graph stored
+    // in the previous storage format, which are I/O bound
+    private static final int LOADER_THREADS = Math.min(
+      32,
+      4 * Runtime.getRuntime().availableProcessors()
+    );
+
+    /**
+     * The file name extension of GraphML files, see exportGraph.
+     */
+    public static final String GRAPHML_EXTENSION = ".graphml";
+
+    /**
+     * The file name extension of CSV edge lists, see exportGraph.
+     */
+    public static final String CSV_EXTENSION = ".csv";
+
+    // Error messages
+    private static final String UNKNOWN_FORMAT_ERROR =
+        "Unknown graph exchange format: ";
+    private static final String INVALID_GENERATION_ERROR =
+        "Invalid generation file: ";
+    private static final String LOAD_INTERRUPTED_ERROR =
+        "Graph loading interrupted";
+
+    static {
+        // writes the records of the last modifications when the program ends
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (GraphJournal journal: JOURNALS.values()) {
+                try {
+                    journal.flush();
+                } catch (IOException ioe) {
+                    ioe.printStackTrace();
+                }
+            }
+            synchronized (STORE_LOCK) {
+                for (SearchIndex index: INDEXES.values())
+                    writeSearchIndex(index);
+            }
+        }));
+    }
+
     /**
      * Returns the path of the installation directory.
      *
@@ -58,129 +162,239 @@ public class DataManager {
     /**
      * Saves model locally, in the graph directory.
      *
+     * The graph is stored as a single binary file, in a directory named
+     * after its identifier. A graph stored in the directory format of
+     * previous versions is converted to this format.
+     *
+     * Once saved or loaded, each modification of model is recorded by a
+     * journal and appended to the log of the graph shortly after, in the
+     * background. Saving it again only forces the last records to the
+     * storage device.
+     *
+     * The journal takes snapshots of model from a background thread, so model
+     * should be a ConcurrentGraph if it is modified after being saved.
+     *
      * @param model The graph model to save.
      * @throws IOException if an I/O error occurred.
      */
     public static void saveGraph(Graph model) throws IOException {
-        String graphUuid = model.getUuid().toString();
-        Path graphModelDir = GRAPHS_DIR.resolve(graphUuid);
-        if (Files.exists(graphModelDir)) {
-            String tmpDirName = System.getProperty("java.io.tmpdir");
-            Path graphSaveDir = Paths.get(tmpDirName, graphUuid);
-            copyFolder(graphModelDir, graphSaveDir);
-            deleteFolder(graphModelDir);
-            Files.createDirectory(graphModelDir);
-            boolean succ = writeGraphData(
-              graphModelDir,
-              CHARSET,
-              model
-            );
-            if (!succ) {
-                deleteFolder(graphModelDir);
-                copyFolder(graphSaveDir, graphModelDir);
-            }
-            deleteFolder(graphSaveDir);
-        } else {
-            Files.createDirectory(graphModelDir);
-            writeGraphData(
-              graphModelDir,
-              CHARSET,
-              model
-            );
+        synchronized (STORE_LOCK) {
+            save(model);
         }
     }
 
-    // Writes .gr file and node directories
-    private static boolean writeGraphData(
-      Path dir,
-      Charset charset,
-      Graph model
-    ) throws IOException {
-        // create gr file
-        Path grFile = dir.resolve(model.getUuid().toString() + ".gr");
-        if (!writeToFile(grFile, charset, model.toString()))
-            return false;
-
-        // create node dir for each node
-        Set<Node> nodes = model.getNodes();
-        for (Node node: nodes) {
-            String nodeUuid = node.getUuid().toString();
-            Path nodeDir = dir.resolve(nodeUuid);
-            Files.createDirectory(nodeDir);
-            String data = node.getTitle();
-            if (!createAndWriteToFile(nodeDir, charset, "title", data))
-                return false;
-            data = node.getInformation();
-            if (!createAndWriteToFile(nodeDir, charset, "info", data))
-                return false;
-            data = node.getPositionAsString() + "\n";
-            if (!createAndWriteToFile(nodeDir, charset, "position", data))
-                return false;
+    /**
+     * Saves model as saveGraph(Graph) does, and records the state saved as
+     * a new version of the graph, unless it is the state of the last one.
+     *
+     * Unlike saves, which happen in the background as the graph is edited,
+     * versions are meant to be committed at the points chosen by the user,
+     * such as an explicit save or the end of an editing session, so that the
+     * history of a graph stays short and small.
+     *
+     * @param model The graph model to save.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static void commitVersion(Graph model) throws IOException {
+        synchronized (STORE_LOCK) {
+            recordVersion(save(model));
         }
-        return true;
     }
 
-    private static boolean createAndWriteToFile(
-      Path dir,
-      Charset charset,
-      String filename,
-      String data
+    // Saves model, as described by saveGraph(Graph), and returns the state
+    // saved, with STORE_LOCK held
+    private static GraphSnapshot save(Graph model) throws IOException {
+        UUID identifier = model.getUuid();
+        GraphJournal journal = JOURNALS.get(identifier);
+        if (journal != null && journal.getModel() == model) {
+            journal.flush();
+            GraphSnapshot snapshot = model.snapshot();
+            updateCatalog(snapshot);
+            return snapshot;
+        }
+        closeJournal(identifier);
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        long generation = readGeneration(dir) + 1;
+        // opened first, so that no modification is missed by both the
+        // snapshot and the journal
+        openJournal(model, generation);
+        GraphSnapshot snapshot = model.snapshot();
+        try {
+            writeGeneration(snapshot, generation);
+        } catch (IOException ioe) {
+            JOURNALS.remove(identifier).discard();
+            throw ioe;
+        }
+        updateCatalog(snapshot);
+        return snapshot;
+    }
+
+    // Writes the graph file of model as the given generation of its graph,
+    // then makes it the current generation, with STORE_LOCK held.
+    //
+    // The current generation is named by the pointer file of the directory
+    // of the graph, which is replaced atomically: until then, the previous
+    // generation, with its logs, stays the current one.
+    private static void writeGeneration(
+      GraphSnapshot model,
+      long generation
     ) throws IOException {
-        Path path = dir.resolve(filename);
-        Files.createFile(path);
-        if (!writeToFile(path, charset, data))
-            return false;
-        return true;
+        UUID identifier = model.getUuid();
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        Files.createDirectories(dir);
+        deleteOldGenerations(dir, identifier, readGeneration(dir));
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        GraphFile.write(graphFile, model, BLOBS);
+        force(graphFile);
+        Path tmpFile = dir.resolve(CURRENT_FILE_NAME + ".tmp");
+        Files.writeString(
+          tmpFile,
+          Long.toString(generation),
+          StandardCharsets.US_ASCII
+        );
+        force(tmpFile);
+        Files.move(
+          tmpFile,
+          dir.resolve(CURRENT_FILE_NAME),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING
+        );
     }
 
-    private static boolean writeToFile(
-      Path file,
-      Charset charset,
-      String data
-    ) {
-        boolean res = true;
+    // Returns the current generation of the graph stored in dir, 0 for the
+    // graphs saved before generations were introduced.
+    private static long readGeneration(Path dir) throws IOException {
+        Path currentFile = dir.resolve(CURRENT_FILE_NAME);
+        if (Files.notExists(currentFile))
+            return 0;
+        String content = Files.readString(
+          currentFile,
+          StandardCharsets.US_ASCII
+        );
         try {
-            BufferedWriter writer = Files.newBufferedWriter(file, charset);
-            writer.write(data, 0, data.length());
-            writer.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-            res = false;
-        } finally {
-            return res;
-        }        
+            return Long.parseLong(content.trim());
+        } catch (NumberFormatException nfe) {
+            throw new IOException(INVALID_GENERATION_ERROR + currentFile);
+        }
     }
 
-    // courtesy of https://stackoverflow.com/a/60621544
-    private static void copyFolder(
-      Path source,
-      Path target,
-      CopyOption... options
+    // Deletes the files of the graph stored in dir that are not part of the
+    // given generation, with STORE_LOCK held: older generations, the
+    // generation of a save that failed, and the node directories of the
+    // previous storage format.
+    private static void deleteOldGenerations(
+      Path dir,
+      UUID identifier,
+      long generation
     ) throws IOException {
-        Files.walkFileTree(
-          source,
-          new SimpleFileVisitor<Path>() {
-              @Override
-              public FileVisitResult preVisitDirectory(Path dir,
-                      BasicFileAttributes attrs) throws IOException {
-                  Files.createDirectories(
-                    target.resolve(source.relativize(dir).toString())
-                  );
-                  return FileVisitResult.CONTINUE;
-              }
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        if (generation == 0 && Files.notExists(graphFile))
+            return; // the previous storage format is the current one
+        Path logFile = logFileOf(dir, identifier, generation);
+        List<Path> kept = List.of(
+          dir.resolve(CURRENT_FILE_NAME),
+          indexFileOf(dir, identifier),
+          dir.resolve(GraphHistory.DIR_NAME),
+          graphFile,
+          logFile,
+          oldLogFileOf(logFile)
+        );
+        List<Path> old = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path: stream) {
+                if (!kept.contains(path))
+                    old.add(path);
+            }
+        }
+        if (old.isEmpty())
+            return;
+        // the nodes loaded from the deleted files still read from them
+        StoredText.pin(dir);
+        for (Path path: old) {
+            StoredText.pin(path);
+            deleteFolder(path);
+        }
+    }
 
-              @Override
-              public FileVisitResult visitFile(Path file,
-                      BasicFileAttributes attrs) throws IOException {
-                  Files.copy(
-                    file,
-                    target.resolve(source.relativize(file).toString()),
-                    options
-                  );
-                  return FileVisitResult.CONTINUE;
-              }
-          }
+    // Forces the content of file to the storage device
+    private static void force(Path file) throws IOException {
+        try (
+          FileChannel channel = FileChannel.open(
+            file,
+            StandardOpenOption.WRITE
+          )
+        ) {
+            channel.force(true);
+        }
+    }
+
+    // Starts journaling the modifications of model, stored as the given
+    // generation of its graph, with STORE_LOCK held
+    private static void openJournal(Graph model, long generation) {
+        UUID identifier = model.getUuid();
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        Path logFile = logFileOf(dir, identifier, generation);
+        GraphJournal journal = GraphJournal.open(
+          model,
+          graphFileOf(dir, identifier, generation),
+          logFile,
+          oldLogFileOf(logFile),
+          BLOBS,
+          STORE_LOCK
         );
+        JOURNALS.put(identifier, journal);
+    }
+
+    // Stops journaling the graph of given identifier, if it is, with
+    // STORE_LOCK held
+    private static void closeJournal(UUID identifier) throws IOException {
+        // the index can only be stamped while the graph is journaled
+        SearchIndex index = INDEXES.get(identifier);
+        if (index != null)
+            writeSearchIndex(index);
+        GraphJournal journal = JOURNALS.remove(identifier);
+        if (journal != null)
+            journal.close();
+    }
+
+    // the path of the graph file of the given generation of the graph of
+    // given identifier in dir
+    private static Path graphFileOf(
+      Path dir,
+      UUID identifier,
+      long generation
+    ) {
+        return dir.resolve(fileNameOf(identifier, generation)
+            + GraphFile.EXTENSION);
+    }
+
+    // the path of the log file of the given generation of the graph of
+    // given identifier in dir
+    private static Path logFileOf(
+      Path dir,
+      UUID identifier,
+      long generation
+    ) {
+        return dir.resolve(fileNameOf(identifier, generation)
+            + GraphLog.EXTENSION);
+    }
+
+    // the name of the files of a generation, without extension
+    private static String fileNameOf(UUID identifier, long generation) {
+        if (generation == 0)
+            return identifier.toString();
+        return identifier.toString() + "." + generation;
+    }
+
+    // the path of the log being compacted that goes with logFile
+    private static Path oldLogFileOf(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".old");
+    }
+
+    // Returns the path of the search index of the graph of given identifier
+    // stored in dir
+    private static Path indexFileOf(Path dir, UUID identifier) {
+        return dir.resolve(identifier + SearchIndex.EXTENSION);
     }
 
     // deletes a file, in case of a directory, recursively deletes its content
@@ -208,104 +422,866 @@ public class DataManager {
     /**
      * Returns the list of saved graph informations.
      *
-     * Searches for graphs saved locally and returns their names and
-     * identifiers.
+     * The informations are read from the catalog of the graphs directory,
+     * which is updated on each save. If there is no valid catalog, the
+     * graphs directory is scanned to build one. The catalog can drift from
+     * the graphs directory, for instance with the changes journaled in the
+     * background, see rescanSavedGraphInfos.
      *
      * @return A list of graph information objects.
-     * @throws Exception if an I/O error occurred, in which case it is an
-     *         IOException, or if an error occurred while iterating over a
-     *         directory, in which case it is a DirectoryIteratorException.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static List<GraphInfo> getSavedGraphInfos() throws IOException {
+        synchronized (STORE_LOCK) {
+            return new ArrayList<>(catalog().values());
+        }
+    }
+
+    /**
+     * Scans the graphs directory in the background, and updates the catalog
+     * with the informations of the graphs that changed since they were
+     * cataloged.
+     *
+     * A graph whose storage did not change, by size and modification time,
+     * is not read again. A graph that can not be read is left out, rather
+     * than failing the scan.
+     *
+     * The blobs referenced by no graph anymore are then deleted, see
+     * collectBlobs.
+     *
+     * @return The future list of saved graph informations, completed
+     *         exceptionally with an UncheckedIOException if an I/O error
+     *         occurred.
+     */
+    public static CompletableFuture<List<GraphInfo>> rescanSavedGraphInfos() {
+        return CompletableFuture.supplyAsync(
+          () -> {
+              List<GraphInfo> infos;
+              try {
+                  infos = rescanGraphInfos();
+              } catch (IOException ioe) {
+                  throw new UncheckedIOException(ioe);
+              }
+              try {
+                  collectBlobs();
+              } catch (IOException ioe) {
+                  ioe.printStackTrace(); // collected by the next rescan
+              }
+              return infos;
+          },
+          CATALOG_EXECUTOR
+        );
+    }
+
+    // Scans the graphs directory and updates the catalog.
+    private static List<GraphInfo> rescanGraphInfos() throws IOException {
+        Map<UUID, GraphInfo> known;
+        synchronized (STORE_LOCK) {
+            known = new HashMap<>(catalog());
+        }
+        Map<UUID, GraphInfo> scanned = scanGraphInfos(known);
+        synchronized (STORE_LOCK) {
+            // keep the informations of the graphs saved during the scan
+            for (GraphInfo info: catalog.values()) {
+                UUID identifier = info.identifier();
+                if (!info.equals(known.get(identifier)))
+                    scanned.put(identifier, info);
+            }
+            if (!scanned.equals(catalog)) {
+                catalog = scanned;
+                GraphCatalog.write(CATALOG_FILE, catalog.values());
+            }
+            return new ArrayList<>(catalog.values());
+        }
+    }
+
+    /**
+     * Deletes the blobs of the long information of the nodes that no graph
+     * file of the graphs directory references anymore, left by the edits
+     * of the information and the deletion of graphs.
+     *
+     * The blobs are marked from the graph files of every generation present,
+     * as the nodes loaded from a graph file may still read their information
+     * from its blobs, then the others are swept. Nothing is deleted if a
+     * graph file can not be read.
+     *
+     * @return The number of blobs deleted.
+     * @throws IOException if an I/O error occurred or if a graph file is not
+     *         valid.
+     */
+    static int collectBlobs() throws IOException {
+        synchronized (STORE_LOCK) {
+            if (Files.notExists(GRAPHS_DIR))
+                return 0;
+            Set<String> referenced = new HashSet<>();
+            try (
+              DirectoryStream<Path> dirs = Files.newDirectoryStream(GRAPHS_DIR)
+            ) {
+                for (Path dir: dirs) {
+                    if (Files.isDirectory(dir))
+                        markBlobs(dir, referenced);
+                }
+            } catch (DirectoryIteratorException die) {
+                throw die.getCause();
+            }
+            return BLOBS.collect(referenced);
+        }
+    }
+
+    // Adds the names of the blobs referenced by the graph files of dir and
+    // of its history to referenced, with STORE_LOCK held
+    private static void markBlobs(
+      Path dir,
+      Set<String> referenced
+    ) throws IOException {
+        try (
+          DirectoryStream<Path> files = Files.newDirectoryStream(
+            dir,
+            "*" + GraphFile.EXTENSION
+          )
+        ) {
+            for (Path file: files)
+                GraphFile.forEachBlob(file, referenced::add);
+        } catch (DirectoryIteratorException die) {
+            throw die.getCause();
+        }
+        Path historyDir = dir.resolve(GraphHistory.DIR_NAME);
+        if (Files.isDirectory(historyDir))
+            markBlobs(historyDir, referenced);
+    }
+
+    // Returns the catalog, read or built if it was not yet, with STORE_LOCK
+    // held.
+    private static Map<UUID, GraphInfo> catalog() throws IOException {
+        if (catalog != null)
+            return catalog;
+        if (Files.exists(CATALOG_FILE)) {
+            try {
+                catalog = GraphCatalog.read(CATALOG_FILE);
+                return catalog;
+            } catch (IOException ioe) {
+                ioe.printStackTrace(); // rebuilt below
+            }
+        }
+        Map<UUID, GraphInfo> scanned = scanGraphInfos(Map.of());
+        GraphCatalog.write(CATALOG_FILE, scanned.values());
+        catalog = scanned;
+        return catalog;
+    }
+
+    // Records the information of model, just saved, in the catalog, with
+    // STORE_LOCK held, unless it is already recorded. The save succeeded even
+    // if the catalog could not be written, which the next rescan fixes.
+    private static void updateCatalog(GraphSnapshot model) {
+        UUID identifier = model.getUuid();
+        try {
+            Map<UUID, GraphInfo> infos = catalog();
+            Path dir = GRAPHS_DIR.resolve(identifier.toString());
+            long[] storage = storageOf(dir, identifier);
+            GraphInfo info = new GraphInfo(
+              model.getName(),
+              identifier,
+              model.size(),
+              model.edgeCount(),
+              storage[0],
+              storage[1]
+            );
+            if (info.equals(infos.put(identifier, info)))
+                return;
+            GraphCatalog.write(CATALOG_FILE, infos.values());
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Records model, just saved, as a version of its graph, with STORE_LOCK
+    // held. As for the catalog, the save succeeded even if the version could
+    // not be written, including when the information of a node, read while
+    // being written, could not be.
+    private static void recordVersion(GraphSnapshot model) {
+        try {
+            historyOf(model.getUuid()).record(model);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Returns the history of the graph of given identifier, with STORE_LOCK
+    // held
+    private static GraphHistory historyOf(
+      UUID identifier
+    ) throws IOException {
+        GraphHistory history = HISTORIES.get(identifier);
+        if (history == null) {
+            Path dir = GRAPHS_DIR.resolve(identifier.toString());
+            history = GraphHistory.open(
+              dir.resolve(GraphHistory.DIR_NAME),
+              identifier,
+              BLOBS
+            );
+            HISTORIES.put(identifier, history);
+        }
+        return history;
+    }
+
+    /**
+     * Returns the versions of the graph of given identifier, one per
+     * version committed that changed it, the oldest first, see
+     * commitVersion.
+     *
+     * @param identifier The identifier of the graph.
+     * @return The versions of the graph, empty if it was never saved.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static List<GraphVersion> getGraphVersions(
+      UUID identifier
+    ) throws IOException {
+        synchronized (STORE_LOCK) {
+            return historyOf(identifier).versions();
+        }
+    }
+
+    /**
+     * Returns the graph of given identifier as it was at the given version.
+     *
+     * The version is built from the last full checkpoint before it and the
+     * deltas saved since, so that the time taken depends on the number of
+     * deltas rather than on the number of versions. The graph returned is
+     * not journaled, see restoreGraphVersion.
+     *
+     * @param version The version of the graph to return.
+     * @return A new graph, with the identifier of the graph, in the state of
+     *         the version.
+     * @throws IOException if an I/O error occurred or if the version can not
+     *         be built.
+     */
+    public static Graph loadGraphVersion(
+      GraphVersion version
+    ) throws IOException {
+        synchronized (STORE_LOCK) {
+            return historyOf(version.identifier()).read(version.number());
+        }
+    }
+
+    /**
+     * Makes the given version of a graph its current state, and returns it.
+     *
+     * The graph returned is saved, committed as a new version, and
+     * journaled as described by saveGraph(Graph): the graph loaded before
+     * is not journaled anymore.
+     *
+     * @param version The version of the graph to restore.
+     * @return The graph in the state of the version.
+     * @throws IOException if an I/O error occurred or if the version can not
+     *         be built.
      */
-    public static List<GraphInfo> getSavedGraphInfos() throws Exception {
-        Exception thrown = null;
-        List<GraphInfo> graphInfos = new ArrayList<>();
+    public static Graph restoreGraphVersion(
+      GraphVersion version
+    ) throws IOException {
+        synchronized (STORE_LOCK) {
+            Graph model = loadGraphVersion(version);
+            commitVersion(model);
+            return model;
+        }
+    }
+
+    // Reads the informations of the graphs of the graphs directory, reusing
+    // the known ones of the graphs whose storage did not change. The store
+    // is locked for each graph rather than for the whole scan.
+    private static Map<UUID, GraphInfo> scanGraphInfos(
+      Map<UUID, GraphInfo> known
+    ) throws IOException {
+        List<Path> dirs = new ArrayList<>();
         try (
           DirectoryStream<Path> stream = Files.newDirectoryStream(GRAPHS_DIR)
         ) {
             for (Path path: stream) {
-                File file = path.toFile();
-                if (file.isDirectory()) { // ignore other files
-                    Path grFile = path.resolve(file.getName() + ".gr");
-                    try (
-                      BufferedReader reader = Files.newBufferedReader(
-                        grFile,
-                        CHARSET
-                      )
-                    ) {
-                        String name = reader.readLine();
-                        GraphInfo gi = new GraphInfo(
-                          name,
-                          UUID.fromString(file.getName())
-                        );
-                        graphInfos.add(gi);
-                    } catch (IOException ioe) {
-                        thrown = ioe;
-                        break;
-                    }
+                if (Files.isDirectory(path)) // ignore other files
+                    dirs.add(path);
+            }
+        } catch (DirectoryIteratorException die) {
+            throw die.getCause();
+        }
+        Map<UUID, GraphInfo> infos = new LinkedHashMap<>();
+        for (Path dir: dirs) {
+            UUID identifier;
+            try {
+                identifier = UUID.fromString(dir.getFileName().toString());
+            } catch (IllegalArgumentException iae) {
+                continue; // not a graph directory
+            }
+            try {
+                GraphInfo info;
+                synchronized (STORE_LOCK) {
+                    info = readGraphInfo(
+                      dir,
+                      identifier,
+                      known.get(identifier)
+                    );
                 }
+                if (info != null)
+                    infos.put(identifier, info);
+            } catch (IOException ioe) {
+                ioe.printStackTrace(); // not a readable graph, left out
+            }
+        }
+        return infos;
+    }
+
+    // Reads the information of the graph of given identifier stored in dir,
+    // or returns known if its storage did not change since, or returns null
+    // if dir holds no saved graph, with STORE_LOCK held
+    private static GraphInfo readGraphInfo(
+      Path dir,
+      UUID identifier,
+      GraphInfo known
+    ) throws IOException {
+        long[] storage = storageOf(dir, identifier);
+        if (
+          known != null
+          && known.lastModified() == storage[0]
+          && known.byteSize() == storage[1]
+        ) {
+            return known;
+        }
+        long generation = readGeneration(dir);
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        GraphInfo content;
+        if (Files.exists(graphFile)) {
+            Path logFile = logFileOf(dir, identifier, generation);
+            if (
+              Files.notExists(logFile)
+              && Files.notExists(oldLogFileOf(logFile))
+            ) {
+                content = GraphFile.readInfo(graphFile);
+            } else { // the counts depend on the logs
+                GraphSnapshot model = readGraph(dir, identifier, generation)
+                    .snapshot();
+                content = new GraphInfo(
+                  model.getName(),
+                  identifier,
+                  model.size(),
+                  model.edgeCount(),
+                  0,
+                  0
+                );
+            }
+        } else {
+            content = readLegacyGraphInfo(dir, identifier, generation);
+            if (content == null)
+                return null;
+        }
+        return new GraphInfo(
+          content.name(),
+          identifier,
+          content.nodeCount(),
+          content.edgeCount(),
+          storage[0],
+          storage[1]
+        );
+    }
+
+    // Returns the time of the last modification and the size in bytes of
+    // the files holding the content of the graph of given identifier stored
+    // in dir, with STORE_LOCK held: the pointer, graph file and logs of its
+    // current generation, whatever the number of versions of its history,
+    // or all the files of dir in the directory format of previous versions
+    private static long[] storageOf(
+      Path dir,
+      UUID identifier
+    ) throws IOException {
+        long[] storage = new long[2];
+        long generation = readGeneration(dir);
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        if (Files.notExists(graphFile)) {
+            Files.walkFileTree(
+              dir,
+              new SimpleFileVisitor<Path>() {
+                  @Override
+                  public FileVisitResult visitFile(Path file,
+                          BasicFileAttributes attrs) {
+                      addStorage(storage, attrs);
+                      return FileVisitResult.CONTINUE;
+                  }
+              }
+            );
+            return storage;
+        }
+        Path logFile = logFileOf(dir, identifier, generation);
+        List<Path> files = List.of(
+          dir.resolve(CURRENT_FILE_NAME),
+          graphFile,
+          logFile,
+          oldLogFileOf(logFile)
+        );
+        for (Path file: files) {
+            try {
+                addStorage(storage, Files.readAttributes(
+                  file,
+                  BasicFileAttributes.class
+                ));
+            } catch (NoSuchFileException nsfe) {
+                // no pointer before the first generation, no log yet
             }
-        } catch (IOException | DirectoryIteratorException x) {
-            thrown = x;
         }
-        if (thrown != null)
-            throw thrown;
-        return graphInfos;
+        return storage;
+    }
+
+    // Adds the time of the last modification and the size of a file to
+    // storage
+    private static void addStorage(long[] storage, BasicFileAttributes attrs) {
+        FileTime time = attrs.lastModifiedTime();
+        storage[0] = Math.max(storage[0], time.toMillis());
+        storage[1] += attrs.size();
     }
 
     /**
      * Returns the graph of given identifier from local storage.
      *
+     * The modifications of the graph returned are journaled, as described by
+     * saveGraph(Graph). If the graph was loaded before, the graph loaded
+     * before is not journaled anymore.
+     *
      * @param identifier The identifier of the graph to return.
      * @return The graph of given identifier.
      * @throws IOException if an I/O error occurred.
      */
     public static Graph loadGraph(UUID identifier) throws IOException {
-        String id = identifier.toString();
-        String modelName = null;
-        Path modelDir = GRAPHS_DIR.resolve(id);
-        Path modelGrFile = modelDir.resolve(id + ".gr");
-        Map<String, List<String>> tmpAdj = new HashMap<>();
+        synchronized (STORE_LOCK) {
+            closeJournal(identifier);
+            Path dir = GRAPHS_DIR.resolve(identifier.toString());
+            long generation = readGeneration(dir);
+            Path graphFile = graphFileOf(dir, identifier, generation);
+            if (Files.notExists(graphFile)) {
+                // journaled once saved in the single file format
+                return loadLegacyGraph(dir, identifier);
+            }
+            deleteOldGenerations(dir, identifier, generation);
+            Graph model = readGraph(dir, identifier, generation);
+            openJournal(model, generation);
+            return model;
+        }
+    }
 
-        // read .gr file
-        BufferedReader reader = Files.newBufferedReader(
-          modelGrFile,
-          CHARSET
+    /**
+     * Returns the search index of model, kept up to date with model until it
+     * is closed.
+     *
+     * The index stored in the directory of the graph is read if it was
+     * written with the state of the store model was loaded from and model was
+     * not modified since. Otherwise the index is built from model, which
+     * reads the information of all its nodes: this method should not be
+     * called from the event dispatch thread.
+     *
+     * @param model The graph to index.
+     * @return The search index of model.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static SearchIndex openSearchIndex(Graph model) throws IOException {
+        UUID identifier = model.getUuid();
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        SearchIndex index = null;
+        synchronized (STORE_LOCK) {
+            SearchIndex open = INDEXES.get(identifier);
+            if (open != null && open.getModel() == model)
+                return open;
+            GraphJournal journal = JOURNALS.get(identifier);
+            if (journal != null && journal.getModel() == model) {
+                // the modifications not written yet change the stamp
+                journal.flush();
+                long[] stamp = storeStampOf(dir, identifier);
+                Path indexFile = indexFileOf(dir, identifier);
+                if (stamp != null && Files.exists(indexFile)) {
+                    try {
+                        index = SearchIndex.read(indexFile, model, stamp);
+                    } catch (IOException ioe) {
+                        index = null; // rebuilt
+                    }
+                }
+            }
+        }
+        if (index == null)
+            index = SearchIndex.build(model);
+        SearchIndex previous = INDEXES.put(identifier, index);
+        if (previous != null && previous != index)
+            previous.close();
+        return index;
+    }
+
+    /**
+     * Writes index to the directory of its graph, and stops updating it.
+     *
+     * The index is only written if its graph is the one stored, saved or
+     * loaded last.
+     *
+     * @param index The search index to close.
+     */
+    public static void closeSearchIndex(SearchIndex index) {
+        synchronized (STORE_LOCK) {
+            Graph model = index.getModel();
+            if (model != null) {
+                writeSearchIndex(index);
+                INDEXES.remove(model.getUuid(), index);
+            }
+        }
+        index.close();
+    }
+
+    // Writes index stamped with the current state of the store, if its graph
+    // is journaled, with STORE_LOCK held. A failure only costs a rebuild of
+    // the index, it is reported but not thrown.
+    private static void writeSearchIndex(SearchIndex index) {
+        Graph model = index.getModel();
+        if (model == null)
+            return;
+        UUID identifier = model.getUuid();
+        GraphJournal journal = JOURNALS.get(identifier);
+        if (journal == null || journal.getModel() != model)
+            return;
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        try {
+            journal.flush();
+            long[] stamp = storeStampOf(dir, identifier);
+            if (stamp != null)
+                index.write(indexFileOf(dir, identifier), stamp);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    // Returns the generation and the checksums of the graph file and logs of
+    // the graph of given identifier stored in dir, which change with each
+    // write of the graph, even one leaving the sizes of the files unchanged,
+    // or null if it is not stored as a graph file, with STORE_LOCK held
+    private static long[] storeStampOf(
+      Path dir,
+      UUID identifier
+    ) throws IOException {
+        long generation = readGeneration(dir);
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        if (Files.notExists(graphFile))
+            return null;
+        Path logFile = logFileOf(dir, identifier, generation);
+        Path oldLogFile = oldLogFileOf(logFile);
+        return new long[] {
+            generation,
+            checksumOf(graphFile),
+            Files.exists(logFile) ? checksumOf(logFile) : -1,
+            Files.exists(oldLogFile) ? checksumOf(oldLogFile) : -1
+        };
+    }
+
+    // Returns the CRC32 checksum of the content of file
+    private static long checksumOf(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                crc.update(buffer, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the graph model to file, in the exchange format given by the
+     * extension of file: GRAPHML_EXTENSION or CSV_EXTENSION, see GraphML
+     * and EdgeListCsv.
+     *
+     * The graph is written from a snapshot, as a stream, so that it may be
+     * modified meanwhile and its text is never held in memory.
+     *
+     * @param model The graph to export.
+     * @param file The path of the file to write, replaced if it exists.
+     * @throws IOException if an I/O error occurred.
+     * @throws IllegalArgumentException if the extension of file is not the
+     *         one of an exchange format.
+     */
+    public static void exportGraph(Graph model, Path file) throws IOException {
+        GraphSnapshot snapshot = model.snapshot();
+        if (hasExtension(file, GRAPHML_EXTENSION)) {
+            try (
+              OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(file)
+              )
+            ) {
+                GraphML.write(snapshot, out);
+            }
+        } else if (hasExtension(file, CSV_EXTENSION)) {
+            try (
+              Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)
+            ) {
+                EdgeListCsv.write(snapshot, out);
+            }
+        } else {
+            throw new IllegalArgumentException(UNKNOWN_FORMAT_ERROR + file);
+        }
+    }
+
+    /**
+     * Reads a graph from file, in the exchange format given by the extension
+     * of file: GRAPHML_EXTENSION or CSV_EXTENSION, see GraphML and
+     * EdgeListCsv.
+     *
+     * The graph is read as a stream and built by batches. It has a new
+     * identifier and is not saved. It is named by the file if the file does
+     * not name it.
+     *
+     * @param file The path of the file to read.
+     * @return The graph read.
+     * @throws IOException if an I/O error occurred, or if file is not a
+     *         valid file of its format.
+     * @throws IllegalArgumentException if the extension of file is not the
+     *         one of an exchange format.
+     */
+    public static Graph importGraph(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        if (extension > 0)
+            name = name.substring(0, extension);
+        if (hasExtension(file, GRAPHML_EXTENSION)) {
+            try (
+              InputStream in = new BufferedInputStream(
+                Files.newInputStream(file)
+              )
+            ) {
+                return GraphML.read(in, name);
+            }
+        } else if (hasExtension(file, CSV_EXTENSION)) {
+            try (
+              Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)
+            ) {
+                return EdgeListCsv.read(in, name);
+            }
+        } else {
+            throw new IllegalArgumentException(UNKNOWN_FORMAT_ERROR + file);
+        }
+    }
+
+    // indicates if the name of file ends with extension, ignoring case
+    private static boolean hasExtension(Path file, String extension) {
+        String name = file.getFileName().toString();
+        return name.regionMatches(
+          true,
+          name.length() - extension.length(),
+          extension,
+          0,
+          extension.length()
         );
-        modelName = reader.readLine();
-        // throw x if name is null
-        String line = null;
-        while ((line = reader.readLine()) != null) {
-            String[] content = line.split(",");
-            // check that content has at least size one
-            List<String> neighbors = new ArrayList<>();
-            if (content.length > 1) {
-                for (int i = 1; i < content.length; i++)
-                    neighbors.add(content[i]);
+    }
+
+    /**
+     * Rewrites the graph of given identifier in the current storage format
+     * and encoding, with its logs merged, unless it already is, and deletes
+     * the files of its previous generations.
+     *
+     * Unlike the other operations of the store, this method does not lock
+     * the store, so that several graphs can be migrated in parallel: it must
+     * only be called while no graph is loaded or saved, see StoreMigration.
+     *
+     * @param identifier The identifier of the graph to migrate.
+     * @return True if and only if the graph was rewritten.
+     * @throws IOException if an I/O error occurred.
+     * @throws IllegalArgumentException if the storage encoding is not
+     *         supported.
+     */
+    static boolean migrateGraph(UUID identifier) throws IOException {
+        Path dir = GRAPHS_DIR.resolve(identifier.toString());
+        long generation = readGeneration(dir);
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        Graph model;
+        if (Files.exists(graphFile)) {
+            Path logFile = logFileOf(dir, identifier, generation);
+            if (
+              GraphFile.isUpToDate(graphFile)
+              && Files.notExists(logFile)
+              && Files.notExists(oldLogFileOf(logFile))
+            ) {
+                deleteOldGenerations(dir, identifier, generation);
+                return false;
+            }
+            model = readGraph(dir, identifier, generation);
+        } else {
+            Path grFile = dir.resolve(identifier.toString() + ".gr");
+            if (generation != 0 || Files.notExists(grFile))
+                return false; // first save not completed
+            model = loadLegacyGraph(dir, identifier);
+        }
+        writeGeneration(model.snapshot(), generation + 1);
+        deleteOldGenerations(dir, identifier, generation + 1);
+        return true;
+    }
+
+    // Reads the given generation of the graph of given identifier stored in
+    // dir, with its logs, whose torn tail is truncated, with STORE_LOCK held
+    private static Graph readGraph(
+      Path dir,
+      UUID identifier,
+      long generation
+    ) throws IOException {
+        Path graphFile = graphFileOf(dir, identifier, generation);
+        Graph model = GraphFile.read(graphFile, BLOBS);
+        Path logFile = logFileOf(dir, identifier, generation);
+        GraphJournal.replay(model, logFile, oldLogFileOf(logFile));
+        return model;
+    }
+
+    // Reads the name and counts of the graph of given identifier stored in
+    // dir in the directory format of previous versions, from its .gr file
+    // only, or returns null if dir holds no saved graph
+    private static GraphInfo readLegacyGraphInfo(
+      Path dir,
+      UUID identifier,
+      long generation
+    ) throws IOException {
+        Path grFile = dir.resolve(identifier.toString() + ".gr");
+        if (generation != 0 || Files.notExists(grFile))
+            return null; // first save not completed
+        try (AdjacencyReader reader = openAdjacencyReader(grFile)) {
+            String name = reader.readName();
+            if (name == null)
+                return null;
+            UuidTable nodes = new UuidTable();
+            UuidTable neighbors = new UuidTable();
+            int edgeCount = 0;
+            while (reader.nextLine()) {
+                neighbors.clear();
+                if (!reader.nextUuid())
+                    continue;
+                long srcMsb = reader.msb();
+                long srcLsb = reader.lsb();
+                nodes.add(srcMsb, srcLsb);
+                neighbors.add(srcMsb, srcLsb); // not a link to itself
+                while (reader.nextUuid()) {
+                    nodes.add(reader.msb(), reader.lsb());
+                    // older saves may repeat a neighbor
+                    if (neighbors.indexOf(reader.msb(), reader.lsb()) < 0) {
+                        neighbors.add(reader.msb(), reader.lsb());
+                        edgeCount++;
+                    }
+                }
             }
-            tmpAdj.put(content[0], neighbors);
+            return new GraphInfo(
+              name,
+              identifier,
+              nodes.size(),
+              edgeCount,
+              0,
+              0
+            );
         }
-        reader.close();
+    }
+
+    // Loads a graph stored in the directory format of previous versions,
+    // made of a .gr file and of a directory per node. Such graphs are
+    // stored in the single file format when saved.
+    //
+    // The .gr file is streamed twice, first to collect the nodes, then to
+    // link them, so that the adjacency lists are never held in memory.
+    private static Graph loadLegacyGraph(
+      Path modelDir,
+      UUID identifier
+    ) throws IOException {
+        Path modelGrFile = modelDir.resolve(identifier.toString() + ".gr");
 
-        // load nodes
-        Graph model = new Graph(modelName, identifier);
-        for (String nodeUuid: tmpAdj.keySet()) {
-            Node curr = model.getNode(nodeUuid);
-            if (curr == null) {
-                curr = loadNode(modelDir, nodeUuid);
-                model.add(curr);
+        // collect the nodes, whether they head a line or not
+        String modelName;
+        UuidTable nodeUuids = new UuidTable();
+        try (AdjacencyReader reader = openAdjacencyReader(modelGrFile)) {
+            modelName = reader.readName();
+            while (reader.nextLine()) {
+                while (reader.nextUuid())
+                    nodeUuids.add(reader.msb(), reader.lsb());
             }
-            for (String neighborUuid: tmpAdj.get(nodeUuid)) {
-                Node neighbor = model.getNode(neighborUuid);
-                if (neighbor == null) {
-                    neighbor = loadNode(modelDir, neighborUuid);
-                    model.add(neighbor);
+        }
+
+        // read the node directories in parallel, as each one takes three
+        // blocking file reads
+        Node[] nodes = loadNodes(modelDir, nodeUuids);
+
+        // assemble the graph on this thread, linking as the file is read
+        Graph model = new ConcurrentGraph(modelName, identifier);
+        model.batch(edits -> {
+            for (Node node: nodes)
+                edits.add(node);
+        });
+        try (AdjacencyReader reader = openAdjacencyReader(modelGrFile)) {
+            reader.readName();
+            while (reader.nextLine()) {
+                if (!reader.nextUuid())
+                    continue;
+                Node src = nodes[
+                  nodeUuids.indexOf(reader.msb(), reader.lsb())
+                ];
+                while (reader.nextUuid()) {
+                    Node dst = nodes[
+                      nodeUuids.indexOf(reader.msb(), reader.lsb())
+                    ];
+                    // older saves may repeat a neighbor
+                    if (src != dst && !model.hasEdge(src, dst))
+                        model.link(src, dst);
                 }
-                model.link(curr, neighbor);
             }
         }
         return model;
     }
 
+    // Returns a reader of the tokens of the .gr file grFile
+    private static AdjacencyReader openAdjacencyReader(
+      Path grFile
+    ) throws IOException {
+        return new AdjacencyReader(Files.newBufferedReader(grFile, CHARSET));
+    }
+
+    // Loads the nodes of given identifiers stored in graphPath, by index in
+    // identifiers, with at most LOADER_THREADS nodes read at the same time
+    private static Node[] loadNodes(
+      Path graphPath,
+      UuidTable identifiers
+    ) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(
+          LOADER_THREADS,
+          runnable -> {
+              Thread thread = new Thread(runnable, "graph-loader");
+              thread.setDaemon(true);
+              return thread;
+          }
+        );
+        try {
+            List<Future<Node>> futures = new ArrayList<>(identifiers.size());
+            for (int i = 0; i < identifiers.size(); i++) {
+                String identifier = identifiers.get(i).toString();
+                futures.add(executor.submit(
+                  () -> loadNode(graphPath, identifier)
+                ));
+            }
+            Node[] nodes = new Node[futures.size()];
+            for (int i = 0; i < nodes.length; i++)
+                nodes[i] = getLoadedNode(futures.get(i));
+            return nodes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Waits for the node loaded by future, and rethrows the exception thrown
+    // while loading it
+    private static Node getLoadedNode(Future<Node> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(LOAD_INTERRUPTED_ERROR);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            throw new IOException(cause);
+        }
+    }
+
     private static Node loadNode(
       Path graphPath,
       String identifier
@@ -316,10 +1292,13 @@ public class DataManager {
         Path nodeTitleFile = nodeDir.resolve("title");
         String title = readUTF16FileContent(nodeTitleFile, 100);
 
-        // read information
+        // information is read when first requested
         Path nodeInfoFile = nodeDir.resolve("info");
-        String information = readUTF16FileContent(nodeInfoFile, 5000);
-            
+        StoredText information = StoredText.of(
+          graphPath,
+          () -> readUTF16FileContent(nodeInfoFile, 5000)
+        );
+
         // read position
         Path nodePosFile = nodeDir.resolve("position");
         int[] pos = readPositionFile(nodePosFile);
@@ -337,15 +1316,24 @@ public class DataManager {
       Path path,
       int len
     ) throws IOException {
-        BufferedReader reader = Files.newBufferedReader(
-          path,
-          CHARSET
-        );
-        char[] buf = new char[len];
-        reader.read(buf, 0, len);
-        reader.close();
-        String data = new String(buf).trim();
-        return data;
+        StringBuilder data = new StringBuilder();
+        try (
+          BufferedReader reader = Files.newBufferedReader(path, CHARSET)
+        ) {
+            char[] buf = new char[Math.min(len, 512)];
+            int read;
+            while (
+              data.length() < len
+              && (read = reader.read(
+                buf,
+                0,
+                Math.min(buf.length, len - data.length())
+              )) != -1
+            ) {
+                data.append(buf, 0, read);
+            }
+        }
+        return data.toString().trim();
     }
 
     private static int[] readPositionFile(Path path) throws IOException {
@@ -0,0 +1,244 @@
+package cogito.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+
+/**
+ * Reads and writes graphs as CSV edge lists, record by record.
+ *
+ * An edge list starts with the header "source,target", followed by a record
+ * per link holding the identifiers of its source and destination. A record
+ * whose target is empty declares a node without linking it, so that nodes
+ * without outgoing links are kept. Fields are quoted as in RFC 4180 when
+ * they hold commas, quotes or line breaks.
+ *
+ * Only the structure of a graph is part of the format: the nodes are
+ * written by their UUID, and a node read is titled by its identifier in
+ * the file. The header is optional when reading, and the fields after the
+ * target are ignored.
+ */
+public final class EdgeListCsv {
+
+    // The first record of an edge list.
+    private static final String HEADER = "source,target";
+
+    // The first field of the header, to recognize it.
+    private static final String SOURCE_FIELD = "source";
+
+    // Error messages
+    private static final String UNTERMINATED_QUOTE_ERROR =
+        "Unterminated quoted field at record ";
+
+    private EdgeListCsv() {}
+
+    /**
+     * Writes the edge list of model to out.
+     *
+     * @param model The snapshot of the graph to write.
+     * @param out The characters written, flushed but not closed.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static void write(
+      GraphSnapshot model,
+      Writer out
+    ) throws IOException {
+        BufferedWriter writer = (out instanceof BufferedWriter)
+            ? (BufferedWriter)out
+            : new BufferedWriter(out);
+        writer.write(HEADER);
+        writer.write("\r\n");
+        try {
+            model.forEachNode(node -> {
+                String src = node.identifier().toString();
+                if (model.neighborCount(node.identifier()) == 0)
+                    writeRecord(() -> writeLink(writer, src, ""));
+                model.forEachNeighbor(
+                  node.identifier(),
+                  dst -> writeRecord(
+                    () -> writeLink(writer, src, dst.toString())
+                  )
+                );
+            });
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+        writer.flush();
+    }
+
+    // writes the record of a link, or of the declaration of src if dst is
+    // empty, quoting the identifiers when needed
+    private static void writeLink(
+      Writer out,
+      String src,
+      String dst
+    ) throws IOException {
+        out.write(quote(src));
+        out.write(',');
+        out.write(quote(dst));
+        out.write("\r\n");
+    }
+
+    /**
+     * Reads a graph from the edge list of in.
+     *
+     * @param in The characters read, not closed.
+     * @param name The name of the graph.
+     * @return The graph read, with a new identifier.
+     * @throws IOException if an I/O error occurred, if in is not a valid
+     *         edge list, or if name or an identifier is not a valid graph
+     *         name or node title.
+     */
+    public static Graph read(Reader in, String name) throws IOException {
+        GraphImporter importer;
+        try {
+            importer = new GraphImporter(name);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(iae.getMessage(), iae);
+        }
+        RecordReader records = new RecordReader(in);
+        List<String> fields = new ArrayList<>();
+        boolean first = true;
+        while (records.next(fields)) {
+            if (first && SOURCE_FIELD.equalsIgnoreCase(fields.get(0))) {
+                first = false;
+                continue; // header
+            }
+            first = false;
+            String src = fields.get(0);
+            String dst = (fields.size() > 1) ? fields.get(1) : "";
+            if (src.isEmpty())
+                continue;
+            if (dst.isEmpty())
+                importer.node(src);
+            else
+                importer.link(src, dst);
+        }
+        return importer.finish();
+    }
+
+    // field quoted as in RFC 4180 if it holds special characters
+    private static String quote(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n')
+                return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+
+    // runs write, rethrowing its IOException unchecked, as the actions of
+    // the iteration methods can not throw it
+    private static void writeRecord(RecordWriter write) {
+        try {
+            write.run();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    // Writes a record.
+    private interface RecordWriter {
+        void run() throws IOException;
+    }
+
+    // Splits characters into records of fields, reading them through a
+    // buffer of its own.
+    private static final class RecordReader {
+
+        // Number of characters read at once.
+        private static final int BUFFER_SIZE = 8192;
+
+        // The characters of the edge list.
+        private final Reader in;
+
+        // The characters read and not consumed yet are buffer[position;
+        // limit[.
+        private final char[] buffer;
+        private int position;
+        private int limit;
+
+        // The number of the current record, from 1.
+        private int recordNumber;
+
+        RecordReader(Reader in) {
+            this.in = in;
+            this.buffer = new char[BUFFER_SIZE];
+            this.position = 0;
+            this.limit = 0;
+            this.recordNumber = 0;
+        }
+
+        // replaces the content of fields by those of the next non-empty
+        // record, returns false at the end of the characters
+        boolean next(List<String> fields) throws IOException {
+            fields.clear();
+            int c;
+            while ((c = this.peek()) == '\r' || c == '\n')
+                this.position++; // empty lines
+            if (c == -1)
+                return false;
+            this.recordNumber++;
+            StringBuilder field = new StringBuilder();
+            while (true) {
+                c = this.read();
+                if (c == '"') {
+                    this.readQuoted(field);
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == -1 || c == '\r' || c == '\n') {
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char)c);
+                }
+            }
+        }
+
+        // appends the rest of a quoted field to field, up to its closing
+        // quote
+        private void readQuoted(StringBuilder field) throws IOException {
+            while (true) {
+                int c = this.read();
+                if (c == -1)
+                    throw new IOException(
+                      UNTERMINATED_QUOTE_ERROR + this.recordNumber
+                    );
+                if (c != '"') {
+                    field.append((char)c);
+                } else if (this.peek() == '"') {
+                    field.append('"');
+                    this.position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            int c = this.peek();
+            if (c != -1)
+                this.position++;
+            return c;
+        }
+
+        // the next character, reading more if needed, or -1 at the end
+        private int peek() throws IOException {
+            if (this.position == this.limit) {
+                int read = this.in.read(this.buffer);
+                if (read == -1)
+                    return -1;
+                this.position = 0;
+                this.limit = read;
+            }
+            return this.buffer[this.position];
+        }
+    }
+}
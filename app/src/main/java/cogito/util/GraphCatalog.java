@@ -0,0 +1,136 @@
+package cogito.util;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import cogito.model.GraphInfo;
+
+/**
+ * Reads and writes the catalog of the graphs directory, the single file
+ * holding the information of every saved graph, so that listing them does
+ * not open each graph.
+ *
+ * A catalog starts with a magic number, the format version and the number
+ * of entries, followed by the entries: the identifier of a graph, its name,
+ * its node and edge counts, the time of its last modification and its size
+ * in bytes.
+ *
+ * A catalog is replaced atomically, so that it is either the previous or the
+ * new one after a crash.
+ */
+final class GraphCatalog {
+
+    // The name of the catalog file in the graphs directory.
+    static final String FILE_NAME = "catalog.cgc";
+
+    // The first bytes of a catalog, "CGCT".
+    private static final int MAGIC = 0x43474354;
+
+    // The version of the format written by this class.
+    private static final short VERSION = 1;
+
+    // Error messages
+    private static final String NOT_A_CATALOG_ERROR = "Not a catalog: ";
+    private static final String CORRUPTED_CATALOG_ERROR =
+        "Corrupted catalog: ";
+
+    private GraphCatalog() {}
+
+    /**
+     * Returns the information stored in file, by graph identifier, in the
+     * order they were written.
+     *
+     * @param file The path of the catalog.
+     * @return The information of the graphs of the catalog.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         catalog.
+     */
+    static Map<UUID, GraphInfo> read(Path file) throws IOException {
+        try (
+          DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(file))
+          )
+        ) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                throw new IOException(NOT_A_CATALOG_ERROR + file);
+            int count = in.readInt();
+            if (count < 0)
+                throw new IOException(CORRUPTED_CATALOG_ERROR + file);
+            Map<UUID, GraphInfo> infos = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                UUID identifier = new UUID(in.readLong(), in.readLong());
+                GraphInfo info = new GraphInfo(
+                  in.readUTF(),
+                  identifier,
+                  in.readInt(),
+                  in.readInt(),
+                  in.readLong(),
+                  in.readLong()
+                );
+                infos.put(identifier, info);
+            }
+            return infos;
+        } catch (EOFException eofe) {
+            throw new IOException(CORRUPTED_CATALOG_ERROR + file, eofe);
+        }
+    }
+
+    /**
+     * Replaces the content of file by infos, and forces it to the storage
+     * device.
+     *
+     * @param file The path of the catalog.
+     * @param infos The information of the graphs of the catalog.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void write(
+      Path file,
+      Collection<GraphInfo> infos
+    ) throws IOException {
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (
+          DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tmpFile))
+          )
+        ) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(infos.size());
+            for (GraphInfo info: infos) {
+                out.writeLong(info.identifier().getMostSignificantBits());
+                out.writeLong(info.identifier().getLeastSignificantBits());
+                out.writeUTF(info.name());
+                out.writeInt(info.nodeCount());
+                out.writeInt(info.edgeCount());
+                out.writeLong(info.lastModified());
+                out.writeLong(info.byteSize());
+            }
+        }
+        try (
+          FileChannel channel = FileChannel.open(
+            tmpFile,
+            StandardOpenOption.WRITE
+          )
+        ) {
+            channel.force(true);
+        }
+        Files.move(
+          tmpFile,
+          file,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+}
@@ -0,0 +1,601 @@
+package cogito.util;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import cogito.model.Graph;
+import cogito.model.ConcurrentGraph;
+import cogito.model.GraphInfo;
+import cogito.model.GraphSnapshot;
+import cogito.model.NodeRecord;
+import cogito.model.Node;
+
+/**
+ * Reads and writes a graph as a single binary file.
+ *
+ * A graph file is made of four consecutive sections, all integers being
+ * big-endian:
+ *
+ * - a header: the magic number, the format version, the encoding of the
+ *   strings, the identifier of the graph, its number of nodes, its number
+ *   of edges, the size of the string heap and the offset and length of the
+ *   name of the graph in the heap;
+ * - a node table, with for each node its identifier, the offsets and
+ *   lengths of its title and information in the heap and its position;
+ * - an edge array in compressed sparse row form: nodeCount + 1 offsets
+ *   followed by, for each node, the node table indexes of its neighbors;
+ * - a string heap, holding the encoded strings of the graph.
+ *
+ * The information of a node is stored in the heap as a TextCodec record, so
+ * that long notes are compressed and short ones are left as they are. When
+ * the graph is written with a BlobStore, the information long enough to be
+ * stored as a blob is stored as a reference record to its blob instead, so
+ * that it is shared with the other graphs holding it.
+ *
+ * Files are read through a memory mapping, so that only the name and the
+ * titles are copied before building the graph. The information of the nodes
+ * is read from the file when first requested, see StoredText.
+ */
+final class GraphFile {
+
+    // The file name extension of graph files.
+    static final String EXTENSION = ".cgb";
+
+    // The first bytes of a graph file, "CGBF".
+    private static final int MAGIC = 0x43474246;
+
+    // The version of the format written by this class. Version 1 files have
+    // no encoding in their header, their strings are UTF-16BE. Version 1 and
+    // 2 files hold the information of the nodes as plain strings, version 3
+    // files hold no blob references.
+    private static final short VERSION = 4;
+
+    // The encodings of the strings of the heap, by identifier in the header.
+    private static final List<Charset> ENCODINGS = List.of(
+      StandardCharsets.UTF_16BE,
+      StandardCharsets.UTF_8
+    );
+
+    // The system property naming the encoding of the graph files written.
+    static final String ENCODING_PROPERTY = "cogito.storage.encoding";
+
+    // The encoding of the graph files written by default.
+    private static final Charset DEFAULT_ENCODING = StandardCharsets.UTF_8;
+
+    // Size in bytes of the header.
+    private static final int HEADER_SIZE = 44;
+
+    // Size in bytes of a node table entry.
+    private static final int NODE_ENTRY_SIZE = 40;
+
+    // Error messages
+    private static final String NOT_A_GRAPH_FILE_ERROR =
+        "Not a graph file: ";
+    private static final String UNSUPPORTED_VERSION_ERROR =
+        "Unsupported graph file version: ";
+    private static final String CORRUPTED_FILE_ERROR =
+        "Corrupted graph file: ";
+    private static final String UNSUPPORTED_ENCODING_ERROR =
+        "Unsupported storage encoding: ";
+    private static final String NO_BLOB_STORE_ERROR =
+        "Graph file referencing blobs read without blob store: ";
+
+    private GraphFile() {}
+
+    /**
+     * Returns the encoding of the strings of the graph files written, named
+     * by the system property ENCODING_PROPERTY, UTF-8 if it is not set.
+     *
+     * @return The encoding of the graph files written.
+     * @throws IllegalArgumentException if the property names an encoding
+     *         that is not supported, UTF-8 and UTF-16BE being.
+     */
+    static Charset storageEncoding() {
+        String name = System.getProperty(ENCODING_PROPERTY);
+        if (name == null)
+            return DEFAULT_ENCODING;
+        Charset charset;
+        try {
+            charset = Charset.forName(name);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException(
+              UNSUPPORTED_ENCODING_ERROR + name,
+              iae
+            );
+        }
+        if (!ENCODINGS.contains(charset))
+            throw new IllegalArgumentException(
+              UNSUPPORTED_ENCODING_ERROR + name
+            );
+        return charset;
+    }
+
+    /**
+     * Writes a snapshot of a graph to file, replacing its content, with the
+     * information of all the nodes in file.
+     *
+     * @param file The path of the file to write.
+     * @param model The snapshot of the graph to write.
+     * @throws IOException if an I/O error occurred.
+     * @throws IllegalArgumentException if the storage encoding is not
+     *         supported.
+     */
+    static void write(Path file, GraphSnapshot model) throws IOException {
+        write(file, model, null);
+    }
+
+    /**
+     * Writes a snapshot of a graph to file, replacing its content.
+     *
+     * The strings are encoded in the storage encoding, see storageEncoding.
+     * The information long enough to be a blob is put in blobs, and file
+     * references it.
+     *
+     * @param file The path of the file to write.
+     * @param model The snapshot of the graph to write.
+     * @param blobs The store of the long information, or null to hold the
+     *        information of all the nodes in file.
+     * @throws IOException if an I/O error occurred.
+     * @throws IllegalArgumentException if the storage encoding is not
+     *         supported.
+     */
+    static void write(
+      Path file,
+      GraphSnapshot model,
+      BlobStore blobs
+    ) throws IOException {
+        Charset charset = storageEncoding();
+        int nodeCount = model.size();
+        List<NodeRecord> nodes = new ArrayList<>(nodeCount);
+        model.forEachNode(nodes::add);
+        Map<UUID, Integer> indexes = new HashMap<>(2 * nodeCount);
+        for (int i = 0; i < nodeCount; i++)
+            indexes.put(nodes.get(i).identifier(), i);
+
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        int[] name = appendString(heap, model.getName(), charset);
+        int[][] titles = new int[nodeCount][];
+        int[][] infos = new int[nodeCount][];
+        try (TextCodec codec = new TextCodec(charset)) {
+            for (int i = 0; i < nodeCount; i++) {
+                titles[i] = appendString(
+                  heap,
+                  nodes.get(i).title(),
+                  charset
+                );
+                String information = nodes.get(i).information();
+                byte[] record;
+                if (blobs != null && BlobStore.accepts(information))
+                    record = blobs.put(information);
+                else
+                    record = codec.encode(information);
+                infos[i] = new int[] {heap.size(), record.length};
+                heap.writeBytes(record);
+            }
+        }
+
+        try (
+          DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file))
+          )
+        ) {
+            // header
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(ENCODINGS.indexOf(charset));
+            out.writeLong(model.getUuid().getMostSignificantBits());
+            out.writeLong(model.getUuid().getLeastSignificantBits());
+            out.writeInt(nodeCount);
+            out.writeInt(model.edgeCount());
+            out.writeInt(heap.size());
+            out.writeInt(name[0]);
+            out.writeInt(name[1]);
+
+            // node table
+            for (int i = 0; i < nodeCount; i++) {
+                NodeRecord node = nodes.get(i);
+                out.writeLong(node.identifier().getMostSignificantBits());
+                out.writeLong(node.identifier().getLeastSignificantBits());
+                out.writeInt(titles[i][0]);
+                out.writeInt(titles[i][1]);
+                out.writeInt(infos[i][0]);
+                out.writeInt(infos[i][1]);
+                out.writeInt(node.x());
+                out.writeInt(node.y());
+            }
+
+            // edge array
+            int offset = 0;
+            out.writeInt(offset);
+            for (NodeRecord node: nodes) {
+                offset += model.neighborCount(node.identifier());
+                out.writeInt(offset);
+            }
+            for (NodeRecord node: nodes) {
+                for (UUID neighbor: neighborsOf(model, node))
+                    out.writeInt(indexes.get(neighbor));
+            }
+
+            // string heap
+            heap.writeTo(out);
+        }
+    }
+
+    /**
+     * Returns the name of the graph stored in file, without reading the
+     * rest of the graph.
+     *
+     * @param file The path of the graph file.
+     * @return The name of the graph stored in file.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static String readName(Path file) throws IOException {
+        return readInfo(file).name();
+    }
+
+    /**
+     * Returns the name, identifier and counts of the graph stored in file,
+     * read from its header without reading the rest of the graph.
+     *
+     * @param file The path of the graph file.
+     * @return The information of the graph stored in file, with an empty
+     *         storage summary.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static GraphInfo readInfo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = map(channel, file);
+            try {
+                Charset charset = checkHeader(buffer, file);
+                UUID identifier = new UUID(
+                  buffer.getLong(8),
+                  buffer.getLong(16)
+                );
+                int nodeCount = buffer.getInt(24);
+                int edgeCount = buffer.getInt(28);
+                int heapStart = heapStart(nodeCount, edgeCount);
+                byte[] bytes = new byte[buffer.getInt(40)];
+                buffer.position(heapStart + buffer.getInt(36));
+                buffer.get(bytes);
+                return new GraphInfo(
+                  new String(bytes, charset),
+                  identifier,
+                  nodeCount,
+                  edgeCount,
+                  0,
+                  0
+                );
+            } catch (
+              BufferUnderflowException
+              | IndexOutOfBoundsException
+              | IllegalArgumentException e
+            ) {
+                throw new IOException(CORRUPTED_FILE_ERROR + file, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the graph stored in file, which must not reference blobs.
+     *
+     * @param file The path of the graph file.
+     * @return The graph stored in file.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static Graph read(Path file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Returns the graph stored in file.
+     *
+     * The information of the nodes is read when first requested, from file
+     * or from blobs.
+     *
+     * @param file The path of the graph file.
+     * @param blobs The store of the blobs file references, or null if it
+     *        references none.
+     * @return The graph stored in file.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static Graph read(Path file, BlobStore blobs) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = map(channel, file);
+            try {
+                return read(buffer, file, blobs);
+            } catch (
+              BufferUnderflowException
+              | IndexOutOfBoundsException
+              | IllegalArgumentException e
+            ) {
+                throw new IOException(CORRUPTED_FILE_ERROR + file, e);
+            }
+        }
+    }
+
+    private static Graph read(
+      MappedByteBuffer buffer,
+      Path file,
+      BlobStore blobs
+    ) throws IOException {
+        Charset charset = checkHeader(buffer, file);
+        boolean records = buffer.getShort(4) >= 3;
+        buffer.position(8);
+        UUID identifier = new UUID(buffer.getLong(), buffer.getLong());
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        int heapSize = buffer.getInt();
+        int nameOffset = buffer.getInt();
+        int nameLength = buffer.getInt();
+        if (nodeCount < 0 || edgeCount < 0 || heapSize < 0)
+            throw new IOException(CORRUPTED_FILE_ERROR + file);
+
+        // the tables are read in place, the heap is not copied
+        int heapStart = heapStart(nodeCount, edgeCount);
+        if ((long)heapStart + heapSize > buffer.capacity())
+            throw new IOException(CORRUPTED_FILE_ERROR + file);
+
+        Graph model = new ConcurrentGraph(
+          readString(
+            buffer,
+            heapStart,
+            heapSize,
+            nameOffset,
+            nameLength,
+            charset
+          ),
+          identifier
+        );
+        Node[] nodes = new Node[nodeCount];
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < nodeCount; i++) {
+            UUID nodeUuid = new UUID(buffer.getLong(), buffer.getLong());
+            int titleOffset = buffer.getInt();
+            int titleLength = buffer.getInt();
+            String title = readString(
+              buffer,
+              heapStart,
+              heapSize,
+              titleOffset,
+              titleLength,
+              charset
+            );
+            int infoOffset = buffer.getInt();
+            int infoLength = buffer.getInt();
+            checkLocation(heapSize, infoOffset, infoLength);
+            long infoPosition = (long)heapStart + infoOffset;
+            StoredText information = StoredText.of(
+              file,
+              () -> readText(
+                file,
+                infoPosition,
+                infoLength,
+                charset,
+                records,
+                blobs
+              )
+            );
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            nodes[i] = new Node(title, information, x, y, nodeUuid);
+        }
+
+        int offsetsStart = HEADER_SIZE + nodeCount * NODE_ENTRY_SIZE;
+        int targetsStart = offsetsStart + 4 * (nodeCount + 1);
+        model.batch(edits -> {
+            for (Node node: nodes)
+                edits.add(node);
+            for (int i = 0; i < nodeCount; i++) {
+                int from = buffer.getInt(offsetsStart + 4 * i);
+                int to = buffer.getInt(offsetsStart + 4 * (i + 1));
+                for (int e = from; e < to; e++) {
+                    int target = buffer.getInt(targetsStart + 4 * e);
+                    edits.link(nodes[i], nodes[target]);
+                }
+            }
+        });
+        return model;
+    }
+
+    // decodes the string of given location in the heap starting at
+    // heapStart in buffer
+    private static String readString(
+      ByteBuffer buffer,
+      int heapStart,
+      int heapSize,
+      int offset,
+      int length,
+      Charset charset
+    ) {
+        checkLocation(heapSize, offset, length);
+        byte[] bytes = new byte[length];
+        buffer.get(heapStart + offset, bytes);
+        return new String(bytes, charset);
+    }
+
+    // reads and decodes the text of given position and length in file, a
+    // TextCodec or reference record if record is true and a plain string
+    // otherwise
+    private static String readText(
+      Path file,
+      long position,
+      int length,
+      Charset charset,
+      boolean record,
+      BlobStore blobs
+    ) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, position + bytes.position()) < 0)
+                    throw new IOException(CORRUPTED_FILE_ERROR + file);
+            }
+        }
+        if (!record)
+            return new String(bytes.array(), charset);
+        if (length > 0 && bytes.get(0) == BlobStore.REFERENCE) {
+            if (blobs == null)
+                throw new IOException(NO_BLOB_STORE_ERROR + file);
+            return blobs.get(bytes.array(), 0, length);
+        }
+        try {
+            return TextCodec.decode(bytes.array(), 0, length, charset);
+        } catch (IOException ioe) {
+            throw new IOException(CORRUPTED_FILE_ERROR + file, ioe);
+        }
+    }
+
+    /**
+     * Passes the name of each blob referenced by file to action, see
+     * BlobStore.keyOf, without reading the rest of the graph.
+     *
+     * @param file The path of the graph file.
+     * @param action The action to perform on the name of each blob.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static void forEachBlob(
+      Path file,
+      Consumer<String> action
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = map(channel, file);
+            try {
+                checkHeader(buffer, file);
+                if (buffer.getShort(4) < 4)
+                    return;
+                int nodeCount = buffer.getInt(24);
+                int heapStart = heapStart(nodeCount, buffer.getInt(28));
+                int heapSize = buffer.getInt(32);
+                byte[] reference = new byte[BlobStore.REFERENCE_SIZE];
+                for (int i = 0; i < nodeCount; i++) {
+                    int entry = HEADER_SIZE + i * NODE_ENTRY_SIZE;
+                    int infoOffset = buffer.getInt(entry + 24);
+                    int infoLength = buffer.getInt(entry + 28);
+                    checkLocation(heapSize, infoOffset, infoLength);
+                    if (
+                      infoLength != BlobStore.REFERENCE_SIZE
+                      || buffer.get(heapStart + infoOffset)
+                          != BlobStore.REFERENCE
+                    ) {
+                        continue;
+                    }
+                    buffer.get(heapStart + infoOffset, reference);
+                    action.accept(
+                      BlobStore.keyOf(reference, 0, reference.length)
+                    );
+                }
+            } catch (
+              BufferUnderflowException
+              | IndexOutOfBoundsException
+              | IllegalArgumentException e
+            ) {
+                throw new IOException(CORRUPTED_FILE_ERROR + file, e);
+            }
+        }
+    }
+
+    // checks that a string of given location lies in a heap of heapSize bytes
+    private static void checkLocation(int heapSize, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > heapSize - length)
+            throw new IndexOutOfBoundsException(offset);
+    }
+
+    // maps the whole file in read-only mode
+    private static MappedByteBuffer map(
+      FileChannel channel,
+      Path file
+    ) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+            throw new IOException(NOT_A_GRAPH_FILE_ERROR + file);
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Indicates if file is a graph file of the current version whose strings
+     * are in the storage encoding, so that it would be written the same.
+     *
+     * @param file The path of the graph file.
+     * @return True if and only if file is in the format of the files written.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         graph file.
+     */
+    static boolean isUpToDate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = map(channel, file);
+            Charset charset = checkHeader(buffer, file);
+            return buffer.getShort(4) == VERSION
+                && charset.equals(storageEncoding());
+        }
+    }
+
+    // checks the magic number and version of the file in buffer, and
+    // returns the encoding of its strings
+    private static Charset checkHeader(
+      ByteBuffer buffer,
+      Path file
+    ) throws IOException {
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException(NOT_A_GRAPH_FILE_ERROR + file);
+        short version = buffer.getShort(4);
+        if (version == 1)
+            return StandardCharsets.UTF_16BE;
+        if (version < 2 || version > VERSION)
+            throw new IOException(UNSUPPORTED_VERSION_ERROR + version);
+        short encoding = buffer.getShort(6);
+        if (encoding < 0 || encoding >= ENCODINGS.size())
+            throw new IOException(CORRUPTED_FILE_ERROR + file);
+        return ENCODINGS.get(encoding);
+    }
+
+    // the position of the string heap in a file of given counts
+    private static int heapStart(int nodeCount, int edgeCount) {
+        long start = HEADER_SIZE
+            + (long)nodeCount * NODE_ENTRY_SIZE
+            + 4L * (nodeCount + 1)
+            + 4L * edgeCount;
+        return (int)Math.min(start, Integer.MAX_VALUE);
+    }
+
+    // appends the encoding of s to heap and returns its offset and length
+    private static int[] appendString(
+      ByteArrayOutputStream heap,
+      String s,
+      Charset charset
+    ) {
+        byte[] bytes = s.getBytes(charset);
+        int[] location = new int[] {heap.size(), bytes.length};
+        heap.writeBytes(bytes);
+        return location;
+    }
+
+    // the neighbors of node, in the order of the edge array
+    private static List<UUID> neighborsOf(
+      GraphSnapshot model,
+      NodeRecord node
+    ) {
+        List<UUID> neighbors = new ArrayList<>();
+        model.forEachNeighbor(node.identifier(), neighbors::add);
+        return neighbors;
+    }
+}
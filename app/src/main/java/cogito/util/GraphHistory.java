@@ -0,0 +1,305 @@
+package cogito.util;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import cogito.model.ChangeVisitor;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+import cogito.model.GraphVersion;
+import cogito.model.NodeRecord;
+
+/**
+ * The versions of a graph, one per version committed that changed it, see
+ * DataManager.commitVersion.
+ *
+ * The versions are stored in a directory of their own, numbered from 1. A
+ * version is either a checkpoint, a graph file holding the whole graph, or a
+ * delta, a log file holding a single segment with the nodes and edges
+ * added, removed and changed since the previous version. A version is built
+ * by reading the last checkpoint up to it and replaying the deltas after the
+ * checkpoint, so that its cost depends on the number of deltas rather than
+ * on the number of versions.
+ *
+ * A checkpoint is written every CHECKPOINT_INTERVAL versions, and when the
+ * deltas written since the last checkpoint grow larger than it, so that
+ * building a version never costs more than reading two checkpoints.
+ *
+ * The files of a version are written to a temporary file which is then
+ * atomically renamed, and are never modified afterwards. A history is not
+ * thread safe: DataManager calls it with the lock of the store held.
+ */
+final class GraphHistory {
+
+    /**
+     * The name of the directory of the history in the directory of its
+     * graph.
+     */
+    static final String DIR_NAME = "history";
+
+    /**
+     * Maximal number of versions between two checkpoints.
+     */
+    static final int CHECKPOINT_INTERVAL = 32;
+
+    // Error messages
+    private static final String MISSING_VERSION_ERROR = "No version ";
+    private static final String MISSING_CHECKPOINT_ERROR =
+        "No checkpoint before version ";
+
+    // The directory of the files of the versions.
+    private final Path dir;
+
+    // The identifier of the graph.
+    private final UUID identifier;
+
+    // The store of the long information of the checkpoints, or null.
+    private final BlobStore blobs;
+
+    // The numbers of the checkpoints.
+    private final TreeSet<Integer> checkpoints;
+
+    // The number of the last version, 0 if there is none.
+    private int latest;
+
+    // The size in bytes of the last checkpoint and of the deltas after it.
+    private long checkpointSize;
+    private long deltasSize;
+
+    // The state of the last version, null until built or recorded.
+    private GraphSnapshot last;
+
+    private GraphHistory(Path dir, UUID identifier, BlobStore blobs) {
+        this.dir = dir;
+        this.identifier = identifier;
+        this.blobs = blobs;
+        this.checkpoints = new TreeSet<>();
+        this.latest = 0;
+        this.checkpointSize = 0;
+        this.deltasSize = 0;
+        this.last = null;
+    }
+
+    /**
+     * Returns the history of the graph of given identifier stored in dir,
+     * empty if dir does not exist.
+     *
+     * @param dir The directory of the history.
+     * @param identifier The identifier of the graph.
+     * @param blobs The store of the long information of the checkpoints, or
+     *        null to hold it in the checkpoints.
+     * @return The history of the graph.
+     * @throws IOException if an I/O error occurred.
+     */
+    static GraphHistory open(
+      Path dir,
+      UUID identifier,
+      BlobStore blobs
+    ) throws IOException {
+        GraphHistory history = new GraphHistory(dir, identifier, blobs);
+        if (Files.notExists(dir))
+            return history;
+        TreeSet<Integer> deltas = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path: stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(GraphFile.EXTENSION))
+                    addNumber(history.checkpoints, name, GraphFile.EXTENSION);
+                else if (name.endsWith(GraphLog.EXTENSION))
+                    addNumber(deltas, name, GraphLog.EXTENSION);
+            }
+        } catch (DirectoryIteratorException die) {
+            throw die.getCause();
+        }
+        // the versions up to the first gap, the next ones can not be built
+        int number = 0;
+        while (
+          history.checkpoints.contains(number + 1)
+          || (deltas.contains(number + 1) && number > 0)
+        ) {
+            number++;
+        }
+        history.latest = number;
+        history.checkpoints.tailSet(number, false).clear();
+        if (number > 0) {
+            int checkpoint = history.checkpoints.floor(number);
+            history.checkpointSize = Files.size(
+              history.checkpointOf(checkpoint)
+            );
+            for (int i = checkpoint + 1; i <= number; i++)
+                history.deltasSize += Files.size(history.deltaOf(i));
+        }
+        return history;
+    }
+
+    // adds the number of the version file of given name to numbers, unless
+    // it is not a version file
+    private static void addNumber(
+      TreeSet<Integer> numbers,
+      String name,
+      String extension
+    ) {
+        try {
+            numbers.add(Integer.parseInt(
+              name.substring(0, name.length() - extension.length())
+            ));
+        } catch (NumberFormatException nfe) {
+            // not a version file
+        }
+    }
+
+    /**
+     * Returns the versions of the graph, the oldest first.
+     *
+     * @return The versions of the graph.
+     * @throws IOException if an I/O error occurred.
+     */
+    List<GraphVersion> versions() throws IOException {
+        List<GraphVersion> versions = new ArrayList<>(this.latest);
+        for (int number = 1; number <= this.latest; number++) {
+            Path file = this.checkpoints.contains(number)
+                ? this.checkpointOf(number)
+                : this.deltaOf(number);
+            versions.add(new GraphVersion(
+              this.identifier,
+              number,
+              Files.getLastModifiedTime(file).toMillis()
+            ));
+        }
+        return versions;
+    }
+
+    /**
+     * Records model as a new version, unless it is the state of the last
+     * version.
+     *
+     * @param model The state of the graph just saved.
+     * @return True if and only if a version was recorded.
+     * @throws IOException if an I/O error occurred.
+     */
+    boolean record(GraphSnapshot model) throws IOException {
+        if (this.last == null && this.latest > 0)
+            this.last = this.read(this.latest).snapshot();
+        Files.createDirectories(this.dir);
+        int number = this.latest + 1;
+        boolean checkpoint = this.last == null
+            || number - this.checkpoints.floor(this.latest)
+                >= CHECKPOINT_INTERVAL
+            || this.deltasSize > this.checkpointSize;
+        if (checkpoint) {
+            if (this.last != null && !hasChanged(model, this.last))
+                return false;
+            Path file = this.checkpointOf(number);
+            Path tmpFile = tmpFileOf(file);
+            GraphFile.write(tmpFile, model, this.blobs);
+            commit(tmpFile, file);
+            this.checkpoints.add(number);
+            this.checkpointSize = Files.size(file);
+            this.deltasSize = 0;
+        } else {
+            Path file = this.deltaOf(number);
+            Path tmpFile = tmpFileOf(file);
+            Files.deleteIfExists(tmpFile);
+            if (!GraphLog.append(tmpFile, model, this.last))
+                return false;
+            commit(tmpFile, file);
+            this.deltasSize += Files.size(file);
+        }
+        this.latest = number;
+        this.last = model;
+        return true;
+    }
+
+    /**
+     * Builds the graph as it was at the given version.
+     *
+     * @param number The number of the version.
+     * @return A new graph, with the identifier of the graph, in the state of
+     *         the version.
+     * @throws IOException if an I/O error occurred, if there is no version of
+     *         this number or if a file of the history is not valid.
+     */
+    Graph read(int number) throws IOException {
+        if (number < 1 || number > this.latest)
+            throw new IOException(MISSING_VERSION_ERROR + number);
+        Integer checkpoint = this.checkpoints.floor(number);
+        if (checkpoint == null)
+            throw new IOException(MISSING_CHECKPOINT_ERROR + number);
+        Graph model = GraphFile.read(
+          this.checkpointOf(checkpoint),
+          this.blobs
+        );
+        for (int i = checkpoint + 1; i <= number; i++)
+            GraphLog.replay(this.deltaOf(i), model);
+        return model;
+    }
+
+    // indicates if current differs from previous
+    private static boolean hasChanged(
+      GraphSnapshot current,
+      GraphSnapshot previous
+    ) {
+        boolean[] changed = new boolean[1];
+        current.diff(previous, new ChangeVisitor() {
+            @Override
+            public void nodePut(NodeRecord node) {
+                changed[0] = true;
+            }
+
+            @Override
+            public void nodeRemoved(UUID identifier) {
+                changed[0] = true;
+            }
+
+            @Override
+            public void linked(UUID src, UUID dst) {
+                changed[0] = true;
+            }
+
+            @Override
+            public void unlinked(UUID src, UUID dst) {
+                changed[0] = true;
+            }
+        });
+        return changed[0];
+    }
+
+    // forces tmpFile to the storage device and renames it to file
+    private static void commit(Path tmpFile, Path file) throws IOException {
+        try (
+          FileChannel channel = FileChannel.open(
+            tmpFile,
+            StandardOpenOption.WRITE
+          )
+        ) {
+            channel.force(true);
+        }
+        Files.move(
+          tmpFile,
+          file,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    private Path checkpointOf(int number) {
+        return this.dir.resolve(number + GraphFile.EXTENSION);
+    }
+
+    private Path deltaOf(int number) {
+        return this.dir.resolve(number + GraphLog.EXTENSION);
+    }
+
+    private static Path tmpFileOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+}
@@ -0,0 +1,185 @@
+package cogito.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import cogito.model.ConcurrentGraph;
+import cogito.model.Graph;
+import cogito.model.Node;
+
+/**
+ * Builds a graph from the nodes and links of an imported file, as they are
+ * read.
+ *
+ * The nodes of the file are named by identifiers of its own, mapped to the
+ * nodes of the graph. A node named by a UUID keeps it as identifier, other
+ * nodes get a random one. A node is created when first named, by its
+ * declaration or by a link, so that links may precede the declarations of
+ * their nodes.
+ *
+ * The nodes and links are added to the graph by batches of CHUNK_SIZE
+ * modifications, so that the pending modifications do not grow with the
+ * size of the file. Self links and links already added are skipped.
+ */
+final class GraphImporter {
+
+    /**
+     * Maximal number of modifications added to the graph at once.
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    // A directed link between two nodes.
+    private record Edge(Node src, Node dst) {}
+
+    // The graph built.
+    private final Graph model;
+
+    // The nodes of the graph, by identifier in the file.
+    private final Map<String, Node> nodes;
+
+    // The identifiers of the nodes of the graph.
+    private final Set<UUID> identifiers;
+
+    // The nodes and links not added to the graph yet.
+    private final List<Node> pendingNodes;
+    private final Set<Edge> pendingEdges;
+
+    // Error messages
+    private static final String INVALID_NODE_ERROR = "Invalid node ";
+
+    /**
+     * Creates an importer of a graph of given name.
+     *
+     * @param name The name of the graph.
+     * @throws NullPointerException if name is null.
+     * @throws IllegalArgumentException if name is not a valid graph name.
+     */
+    GraphImporter(String name) {
+        this.model = new ConcurrentGraph(name);
+        this.nodes = new HashMap<>();
+        this.identifiers = new HashSet<>();
+        this.pendingNodes = new ArrayList<>();
+        this.pendingEdges = new HashSet<>();
+    }
+
+    /**
+     * Returns the node of given identifier in the file, created with the
+     * identifier as title if it was not named yet.
+     *
+     * @param id The identifier of the node in the file.
+     * @return The node of id.
+     * @throws IOException if id is not a valid title for a new node.
+     */
+    Node node(String id) throws IOException {
+        Node node = this.nodes.get(id);
+        if (node != null)
+            return node;
+        node = new Node(id, "", 0, 0, this.identifierOf(id));
+        try {
+            node.setTitle(id); // the constructor does not check the title
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(INVALID_NODE_ERROR + id, iae);
+        }
+        this.nodes.put(id, node);
+        this.pendingNodes.add(node);
+        this.flushIfFull();
+        return node;
+    }
+
+    /**
+     * Sets the state of the node of given identifier in the file, created
+     * if it was not named yet.
+     *
+     * @param id The identifier of the node in the file.
+     * @param title The title of the node, or null to keep it.
+     * @param information The information of the node, or null to keep it.
+     * @param x The x coordinate of the node.
+     * @param y The y coordinate of the node.
+     * @throws IOException if the title or information is not valid.
+     */
+    void declare(
+      String id,
+      String title,
+      String information,
+      int x,
+      int y
+    ) throws IOException {
+        Node node = this.node(id);
+        try {
+            if (title != null)
+                node.setTitle(title);
+            if (information != null)
+                node.setInformation(information);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(INVALID_NODE_ERROR + id, iae);
+        }
+        node.setX(x);
+        node.setY(y);
+    }
+
+    /**
+     * Links the nodes of given identifiers in the file, created if they were
+     * not named yet.
+     *
+     * @param src The identifier of the source of the link.
+     * @param dst The identifier of the destination of the link.
+     * @throws IOException if one of the identifiers is not a valid title
+     *         for a new node.
+     */
+    void link(String src, String dst) throws IOException {
+        Node srcNode = this.node(src);
+        Node dstNode = this.node(dst);
+        if (srcNode == dstNode || this.model.hasEdge(srcNode, dstNode))
+            return;
+        this.pendingEdges.add(new Edge(srcNode, dstNode));
+        this.flushIfFull();
+    }
+
+    /**
+     * Adds the pending modifications to the graph and returns it.
+     *
+     * @return The imported graph.
+     */
+    Graph finish() {
+        this.flush();
+        return this.model;
+    }
+
+    // a UUID for the node of given identifier in the file, id itself if it
+    // is a UUID not taken yet
+    private UUID identifierOf(String id) {
+        UUID identifier;
+        try {
+            identifier = UUID.fromString(id);
+        } catch (IllegalArgumentException iae) {
+            identifier = UUID.randomUUID();
+        }
+        while (!this.identifiers.add(identifier))
+            identifier = UUID.randomUUID();
+        return identifier;
+    }
+
+    private void flushIfFull() {
+        if (this.pendingNodes.size() + this.pendingEdges.size() >= CHUNK_SIZE)
+            this.flush();
+    }
+
+    // adds the pending nodes, then the pending links, in a single batch
+    private void flush() {
+        if (this.pendingNodes.isEmpty() && this.pendingEdges.isEmpty())
+            return;
+        this.model.batch(edits -> {
+            for (Node node: this.pendingNodes)
+                edits.add(node);
+            for (Edge edge: this.pendingEdges)
+                edits.link(edge.src(), edge.dst());
+        });
+        this.pendingNodes.clear();
+        this.pendingEdges.clear();
+    }
+}
@@ -0,0 +1,389 @@
+package cogito.util;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import cogito.model.Graph;
+import cogito.model.GraphListener;
+import cogito.model.GraphSnapshot;
+import cogito.model.Node;
+
+/**
+ * Write-ahead log of the modifications of a graph.
+ *
+ * A journal listens to a graph and records each of its modifications in
+ * memory. The records are appended to the log of the graph as one segment,
+ * and forced to the storage device, shortly after the first of them or when
+ * they grow large, so that a burst of modifications costs a single fsync.
+ *
+ * When the log grows larger than the graph file, it is compacted in the
+ * background: the log is renamed to an old log, so that new records go to a
+ * new one, a snapshot of the graph is written to a temporary file which then
+ * atomically replaces the graph file, and the old log is deleted. As the
+ * records of a log set a state rather than change it, replaying the old log
+ * then the new one on whichever graph file is present after a crash gives
+ * back the latest state.
+ *
+ * All the operations on the files of the graph hold the lock of the store,
+ * so that they do not interleave with the other writes of DataManager.
+ */
+final class GraphJournal implements GraphListener {
+
+    // Delay between the first pending record and the write of the segment.
+    private static final long FLUSH_DELAY_MS = 100;
+
+    // Size of the pending records above which the segment is written at once.
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    // Writes the segments and compacts the logs of all journals.
+    private static final ScheduledExecutorService EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "graph-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // The graph this journal records the modifications of.
+    private final Graph model;
+
+    // The files of the graph.
+    private final Path graphFile;
+    private final Path logFile;
+    private final Path oldLogFile;
+
+    // The store of the long information of the graph files, or null.
+    private final BlobStore blobs;
+
+    // Guards the files of the store.
+    private final Object storeLock;
+
+    // The records not written yet, guarded by this journal.
+    private ByteArrayOutputStream pending;
+    private DataOutputStream out;
+
+    // Indicates if a write of the pending records is scheduled, guarded by
+    // this journal.
+    private boolean flushScheduled;
+
+    // Indicates if a compaction is scheduled, guarded by storeLock.
+    private boolean compactionScheduled;
+
+    // Indicates if this journal was closed, guarded by storeLock.
+    private boolean closed;
+
+    private GraphJournal(
+      Graph model,
+      Path graphFile,
+      Path logFile,
+      Path oldLogFile,
+      BlobStore blobs,
+      Object storeLock
+    ) {
+        this.model = model;
+        this.graphFile = graphFile;
+        this.logFile = logFile;
+        this.oldLogFile = oldLogFile;
+        this.blobs = blobs;
+        this.storeLock = storeLock;
+        this.pending = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.pending);
+        this.flushScheduled = false;
+        this.compactionScheduled = false;
+        this.closed = false;
+    }
+
+    /**
+     * Starts recording the modifications of model.
+     *
+     * The state of model must be the state stored by its graph file and its
+     * logs.
+     *
+     * @param model The graph to record the modifications of.
+     * @param graphFile The path of the graph file of model.
+     * @param logFile The path of the log of model.
+     * @param oldLogFile The path of the log of model being compacted.
+     * @param blobs The store of the long information of the graph files
+     *        written by compactions, or null to hold it in the graph file.
+     * @param storeLock The lock guarding the files of the store.
+     * @return The journal of model.
+     */
+    static GraphJournal open(
+      Graph model,
+      Path graphFile,
+      Path logFile,
+      Path oldLogFile,
+      BlobStore blobs,
+      Object storeLock
+    ) {
+        GraphJournal journal = new GraphJournal(
+          model,
+          graphFile,
+          logFile,
+          oldLogFile,
+          blobs,
+          storeLock
+        );
+        model.addGraphListener(journal);
+        if (Files.exists(oldLogFile)) // compaction interrupted
+            journal.scheduleCompaction();
+        return journal;
+    }
+
+    /**
+     * Applies the logs of a graph to model, read from its graph file.
+     *
+     * A segment torn at the end of the log, for instance because the
+     * application stopped during a write, is truncated, so that the segments
+     * later appended by a journal are replayed after it.
+     *
+     * @param model The graph read from the graph file.
+     * @param logFile The path of the log of model.
+     * @param oldLogFile The path of the log of model being compacted.
+     * @throws IOException if an I/O error occurred or if a complete segment
+     *         holds an invalid record.
+     */
+    static void replay(
+      Graph model,
+      Path logFile,
+      Path oldLogFile
+    ) throws IOException {
+        // no more appended to, the old log is deleted by the next compaction
+        if (Files.exists(oldLogFile))
+            GraphLog.replay(oldLogFile, model);
+        if (Files.notExists(logFile))
+            return;
+        long size = GraphLog.replay(logFile, model);
+        if (size < Files.size(logFile))
+            GraphLog.truncate(logFile, size);
+    }
+
+    /**
+     * Returns the graph this journal records the modifications of.
+     *
+     * @return The graph of this journal.
+     */
+    Graph getModel() {
+        return this.model;
+    }
+
+    /**
+     * Writes the pending records to the log, and forces them to the storage
+     * device.
+     *
+     * @throws IOException if an I/O error occurred, in which case the records
+     *         are kept pending.
+     */
+    void flush() throws IOException {
+        synchronized (this.storeLock) {
+            byte[] body;
+            synchronized (this) {
+                body = this.pending.toByteArray();
+                this.pending.reset();
+                this.flushScheduled = false;
+            }
+            if (body.length == 0)
+                return;
+            try {
+                GraphLog.appendSegment(this.logFile, body);
+            } catch (IOException ioe) {
+                synchronized (this) {
+                    byte[] later = this.pending.toByteArray();
+                    this.pending.reset();
+                    this.pending.writeBytes(body);
+                    this.pending.writeBytes(later);
+                }
+                throw ioe;
+            }
+            if (
+              !this.closed
+              && Files.size(this.logFile) > Files.size(this.graphFile)
+            ) {
+                this.scheduleCompaction();
+            }
+        }
+    }
+
+    /**
+     * Stops recording the modifications of the graph, and writes the pending
+     * records.
+     *
+     * @throws IOException if an I/O error occurred.
+     */
+    void close() throws IOException {
+        this.model.removeGraphListener(this);
+        synchronized (this.storeLock) {
+            this.flush();
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Stops recording the modifications of the graph, and drops the pending
+     * records.
+     */
+    void discard() {
+        this.model.removeGraphListener(this);
+        synchronized (this.storeLock) {
+            synchronized (this) {
+                this.pending.reset();
+            }
+            this.closed = true;
+        }
+    }
+
+    // Replaces the graph file by a snapshot of the graph and deletes the
+    // records it holds.
+    private void compact() throws IOException {
+        synchronized (this.storeLock) {
+            this.compactionScheduled = false;
+            if (this.closed)
+                return;
+            // a remaining old log was not merged yet, keep writing to the log
+            if (Files.notExists(this.oldLogFile) && Files.exists(this.logFile))
+                Files.move(
+                  this.logFile,
+                  this.oldLogFile,
+                  StandardCopyOption.ATOMIC_MOVE
+                );
+            // taken after the rotation, the snapshot holds all the records of
+            // the old log, and maybe some of the new one
+            GraphSnapshot snapshot = this.model.snapshot();
+            Path tmpFile = this.graphFile.resolveSibling(
+              this.graphFile.getFileName() + ".tmp"
+            );
+            GraphFile.write(tmpFile, snapshot, this.blobs);
+            try (
+              FileChannel channel = FileChannel.open(
+                tmpFile,
+                StandardOpenOption.WRITE
+              )
+            ) {
+                channel.force(true);
+            }
+            // the nodes loaded from the graph file still read from it
+            StoredText.pin(this.graphFile);
+            Files.move(
+              tmpFile,
+              this.graphFile,
+              StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING
+            );
+            Files.deleteIfExists(this.oldLogFile);
+        }
+    }
+
+    // Schedules a compaction unless one is, with storeLock held or from open.
+    private void scheduleCompaction() {
+        if (this.compactionScheduled)
+            return;
+        this.compactionScheduled = true;
+        EXECUTOR.execute(() -> {
+            try {
+                this.compact();
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        });
+    }
+
+    // Schedules the write of the pending records, with this journal locked.
+    private void scheduleFlush() {
+        boolean now = this.pending.size() >= FLUSH_THRESHOLD;
+        if (this.flushScheduled && !now)
+            return;
+        this.flushScheduled = true;
+        Runnable flush = () -> {
+            try {
+                this.flush();
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        };
+        if (now)
+            EXECUTOR.execute(flush);
+        else
+            EXECUTOR.schedule(flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Records a modification, written by record to the pending records.
+    private synchronized void record(RecordWriter record) {
+        try {
+            record.write(this.out);
+        } catch (IOException ioe) {
+            // writes to memory only
+            throw new UncheckedIOException(ioe);
+        }
+        this.scheduleFlush();
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        this.record(out -> GraphLog.writeNodePut(
+          out,
+          node.getUuid(),
+          node.getTitle(),
+          node.getInformation(),
+          node.getX(),
+          node.getY()
+        ));
+    }
+
+    @Override
+    public void nodeRemoved(Node node) {
+        this.record(out -> GraphLog.writeNodeRemoved(out, node.getUuid()));
+    }
+
+    @Override
+    public void nodesLinked(Node src, Node dst) {
+        this.record(
+          out -> GraphLog.writeLinked(out, src.getUuid(), dst.getUuid())
+        );
+    }
+
+    @Override
+    public void nodesUnlinked(Node src, Node dst) {
+        this.record(
+          out -> GraphLog.writeUnlinked(out, src.getUuid(), dst.getUuid())
+        );
+    }
+
+    @Override
+    public void nodeMoved(Node node) {
+        this.record(out -> GraphLog.writeMoved(
+          out,
+          node.getUuid(),
+          node.getX(),
+          node.getY()
+        ));
+    }
+
+    @Override
+    public void nodeTitleChanged(Node node) {
+        this.record(
+          out -> GraphLog.writeTitle(out, node.getUuid(), node.getTitle())
+        );
+    }
+
+    @Override
+    public void nodeInformationChanged(Node node) {
+        this.record(out -> GraphLog.writeInformation(
+          out,
+          node.getUuid(),
+          node.getInformation()
+        ));
+    }
+
+    // Writes a record.
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,538 @@
+package cogito.util;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import cogito.model.ChangeVisitor;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+import cogito.model.NodeRecord;
+import cogito.model.Node;
+
+/**
+ * Reads and writes the log of the changes of a graph saved since its graph
+ * file was written.
+ *
+ * A log is a sequence of segments, one per write. A segment starts with a
+ * magic number and the size of its body, followed by its body and by the
+ * CRC32 checksum of its body. The body is a sequence of records, each one
+ * made of a kind byte and of the data of the change. Long information is
+ * written as a compressed TextCodec record, under a kind of its own, so that
+ * each record tells whether it is compressed.
+ *
+ * A segment that was not completely written, for instance because the
+ * application stopped during a save, is ignored along with the rest of the
+ * log. It must be truncated before appending to the log, or the segments
+ * appended would be ignored too.
+ */
+final class GraphLog {
+
+    // The file name extension of log files.
+    static final String EXTENSION = ".cgl";
+
+    // The first bytes of a segment, "CGLS".
+    private static final int SEGMENT_MAGIC = 0x43474C53;
+
+    // Size in bytes of the data of a segment that is not its body.
+    private static final int SEGMENT_OVERHEAD = 16;
+
+    // The kinds of records.
+    private static final byte NODE_PUT = 1;
+    private static final byte NODE_REMOVED = 2;
+    private static final byte LINKED = 3;
+    private static final byte UNLINKED = 4;
+    private static final byte MOVED = 5;
+    private static final byte TITLE = 6;
+    private static final byte INFORMATION = 7;
+    private static final byte NODE_PUT_PACKED = 8;
+    private static final byte INFORMATION_PACKED = 9;
+
+    // Error messages
+    private static final String UNKNOWN_RECORD_ERROR =
+        "Unknown log record kind: ";
+    private static final String CORRUPTED_RECORD_ERROR =
+        "Corrupted log record";
+
+    private GraphLog() {}
+
+    /**
+     * Appends to file a segment holding the changes that turn previous into
+     * current, and forces it to the storage device.
+     *
+     * Does nothing if there is no change.
+     *
+     * @param file The path of the log file, created if it does not exist.
+     * @param current The state to save.
+     * @param previous The state saved by the graph file and the log.
+     * @return True if and only if a segment was appended.
+     * @throws IOException if an I/O error occurred.
+     */
+    static boolean append(
+      Path file,
+      GraphSnapshot current,
+      GraphSnapshot previous
+    ) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        try {
+            current.diff(previous, new ChangeVisitor() {
+                @Override
+                public void nodePut(NodeRecord node) {
+                    writeRecord(() -> writeNodePut(
+                      out,
+                      node.identifier(),
+                      node.title(),
+                      node.information(),
+                      node.x(),
+                      node.y()
+                    ));
+                }
+
+                @Override
+                public void nodeRemoved(UUID identifier) {
+                    writeRecord(() -> writeNodeRemoved(out, identifier));
+                }
+
+                @Override
+                public void linked(UUID src, UUID dst) {
+                    writeRecord(() -> writeLinked(out, src, dst));
+                }
+
+                @Override
+                public void unlinked(UUID src, UUID dst) {
+                    writeRecord(() -> writeUnlinked(out, src, dst));
+                }
+            });
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+        if (body.size() == 0)
+            return false;
+        appendSegment(file, body.toByteArray());
+        return true;
+    }
+
+    /**
+     * Appends to file a segment of given body, and forces it to the storage
+     * device.
+     *
+     * If the segment can not be written completely, the file is truncated to
+     * its previous size, so that the segments appended later are not hidden
+     * behind a torn one.
+     *
+     * @param file The path of the log file, created if it does not exist.
+     * @param body The records of the segment.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void appendSegment(Path file, byte[] body) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer segment = ByteBuffer.allocate(
+          body.length + SEGMENT_OVERHEAD
+        );
+        segment.putInt(SEGMENT_MAGIC);
+        segment.putInt(body.length);
+        segment.put(body);
+        segment.putLong(crc.getValue());
+        segment.flip();
+        try (
+          FileChannel channel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE
+          )
+        ) {
+            long size = channel.size();
+            try {
+                channel.position(size);
+                while (segment.hasRemaining())
+                    channel.write(segment);
+                channel.force(false);
+            } catch (IOException ioe) {
+                channel.truncate(size);
+                throw ioe;
+            }
+        }
+    }
+
+    /**
+     * Writes the record of a node added, or whose state changed, to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param identifier The identifier of the node.
+     * @param title The title of the node.
+     * @param information The information of the node.
+     * @param x The x coordinate of the node.
+     * @param y The y coordinate of the node.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeNodePut(
+      DataOutputStream out,
+      UUID identifier,
+      String title,
+      String information,
+      int x,
+      int y
+    ) throws IOException {
+        byte[] packed = pack(information);
+        out.writeByte((packed == null) ? NODE_PUT : NODE_PUT_PACKED);
+        writeUuid(out, identifier);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeUTF(title);
+        writeInformation(out, information, packed);
+    }
+
+    /**
+     * Writes the record of a node removed, along with its links, to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param identifier The identifier of the node.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeNodeRemoved(
+      DataOutputStream out,
+      UUID identifier
+    ) throws IOException {
+        out.writeByte(NODE_REMOVED);
+        writeUuid(out, identifier);
+    }
+
+    /**
+     * Writes the record of a link added to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param src The identifier of the source of the link.
+     * @param dst The identifier of the destination of the link.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeLinked(
+      DataOutputStream out,
+      UUID src,
+      UUID dst
+    ) throws IOException {
+        out.writeByte(LINKED);
+        writeUuid(out, src);
+        writeUuid(out, dst);
+    }
+
+    /**
+     * Writes the record of a link removed to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param src The identifier of the source of the link.
+     * @param dst The identifier of the destination of the link.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeUnlinked(
+      DataOutputStream out,
+      UUID src,
+      UUID dst
+    ) throws IOException {
+        out.writeByte(UNLINKED);
+        writeUuid(out, src);
+        writeUuid(out, dst);
+    }
+
+    /**
+     * Writes the record of a node moved to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param identifier The identifier of the node.
+     * @param x The new x coordinate of the node.
+     * @param y The new y coordinate of the node.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeMoved(
+      DataOutputStream out,
+      UUID identifier,
+      int x,
+      int y
+    ) throws IOException {
+        out.writeByte(MOVED);
+        writeUuid(out, identifier);
+        out.writeInt(x);
+        out.writeInt(y);
+    }
+
+    /**
+     * Writes the record of a node retitled to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param identifier The identifier of the node.
+     * @param title The new title of the node.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeTitle(
+      DataOutputStream out,
+      UUID identifier,
+      String title
+    ) throws IOException {
+        out.writeByte(TITLE);
+        writeUuid(out, identifier);
+        out.writeUTF(title);
+    }
+
+    /**
+     * Writes the record of a node whose information changed to out.
+     *
+     * @param out The stream of the body of a segment.
+     * @param identifier The identifier of the node.
+     * @param information The new information of the node.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void writeInformation(
+      DataOutputStream out,
+      UUID identifier,
+      String information
+    ) throws IOException {
+        byte[] packed = pack(information);
+        out.writeByte((packed == null) ? INFORMATION : INFORMATION_PACKED);
+        writeUuid(out, identifier);
+        writeInformation(out, information, packed);
+    }
+
+    /**
+     * Applies the changes recorded in file to model, in order.
+     *
+     * Changes that do not apply to model, such as the removal of an absent
+     * node, are ignored, so that replaying a log twice has the same effect as
+     * replaying it once.
+     *
+     * @param file The path of the log file.
+     * @param model The graph read from the graph file the log goes with.
+     * @return The size of the complete and valid segments at the start of
+     *         file, which is smaller than the size of file if it ends with a
+     *         torn segment.
+     * @throws IOException if an I/O error occurred or if a complete segment
+     *         holds an invalid record.
+     */
+    static long replay(Path file, Graph model) throws IOException {
+        try (
+          DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(file))
+          )
+        ) {
+            long size = 0;
+            byte[] body;
+            while ((body = readSegment(in)) != null) {
+                replaySegment(body, model);
+                size += body.length + SEGMENT_OVERHEAD;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Truncates file to given size, and forces it to the storage device.
+     *
+     * @param file The path of the log file.
+     * @param size The size of the complete and valid segments of file, as
+     *        returned by replay.
+     * @throws IOException if an I/O error occurred.
+     */
+    static void truncate(Path file, long size) throws IOException {
+        try (
+          FileChannel channel = FileChannel.open(
+            file,
+            StandardOpenOption.WRITE
+          )
+        ) {
+            channel.truncate(size);
+            channel.force(false);
+        }
+    }
+
+    // returns the body of the next complete and valid segment of in, or
+    // null if there is none
+    private static byte[] readSegment(DataInputStream in) throws IOException {
+        try {
+            if (in.readInt() != SEGMENT_MAGIC)
+                return null;
+            int size = in.readInt();
+            if (size <= 0)
+                return null;
+            byte[] body = new byte[size];
+            in.readFully(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            return (in.readLong() == crc.getValue()) ? body : null;
+        } catch (EOFException eofe) {
+            return null; // torn segment
+        }
+    }
+
+    private static void replaySegment(
+      byte[] body,
+      Graph model
+    ) throws IOException {
+        DataInputStream in = new DataInputStream(
+          new ByteArrayInputStream(body)
+        );
+        while (in.available() > 0) {
+            byte kind = in.readByte();
+            switch (kind) {
+                case NODE_PUT:
+                case NODE_PUT_PACKED:
+                    UUID identifier = readUuid(in);
+                    int x = in.readInt();
+                    int y = in.readInt();
+                    String title = in.readUTF();
+                    String information = readInformation(
+                      in,
+                      kind == NODE_PUT_PACKED
+                    );
+                    putNode(model, identifier, title, information, x, y);
+                    break;
+                case NODE_REMOVED:
+                    Node node = model.getNode(readUuid(in));
+                    if (node != null)
+                        model.remove(node);
+                    break;
+                case LINKED:
+                case UNLINKED:
+                    Node src = model.getNode(readUuid(in));
+                    Node dst = model.getNode(readUuid(in));
+                    if (src == null || dst == null)
+                        break;
+                    boolean linked = model.hasEdge(src, dst);
+                    if (kind == LINKED && !linked)
+                        model.link(src, dst);
+                    else if (kind == UNLINKED && linked)
+                        model.unlink(src, dst);
+                    break;
+                case MOVED:
+                    Node moved = model.getNode(readUuid(in));
+                    int newX = in.readInt();
+                    int newY = in.readInt();
+                    if (moved != null) {
+                        moved.setX(newX);
+                        moved.setY(newY);
+                    }
+                    break;
+                case TITLE:
+                    Node retitled = model.getNode(readUuid(in));
+                    String newTitle = in.readUTF();
+                    if (retitled != null)
+                        retitled.setTitle(newTitle);
+                    break;
+                case INFORMATION:
+                case INFORMATION_PACKED:
+                    Node changed = model.getNode(readUuid(in));
+                    String newInformation = readInformation(
+                      in,
+                      kind == INFORMATION_PACKED
+                    );
+                    if (changed != null)
+                        changed.setInformation(newInformation);
+                    break;
+                default:
+                    throw new IOException(UNKNOWN_RECORD_ERROR + kind);
+            }
+        }
+    }
+
+    // adds the node of given state to model, or updates it if present
+    private static void putNode(
+      Graph model,
+      UUID identifier,
+      String title,
+      String information,
+      int x,
+      int y
+    ) {
+        Node node = model.getNode(identifier);
+        if (node == null) {
+            model.add(new Node(title, information, x, y, identifier));
+            return;
+        }
+        if (!node.getTitle().equals(title))
+            node.setTitle(title);
+        // set without comparing, which would load the information
+        node.setInformation(information);
+        node.setX(x);
+        node.setY(y);
+    }
+
+    // returns the DEFLATED TextCodec record of information, or null if it
+    // is not worth compressing
+    private static byte[] pack(String information) {
+        // a char takes at most 3 bytes in UTF-8, shorter strings are below
+        // the threshold
+        if (information.length() < TextCodec.THRESHOLD / 3)
+            return null;
+        try (TextCodec codec = new TextCodec(StandardCharsets.UTF_8)) {
+            byte[] record = codec.encode(information);
+            return (record[0] == TextCodec.DEFLATED) ? record : null;
+        }
+    }
+
+    // writes information, as the record packed if it is not null
+    private static void writeInformation(
+      DataOutputStream out,
+      String information,
+      byte[] packed
+    ) throws IOException {
+        if (packed == null) {
+            out.writeUTF(information);
+            return;
+        }
+        out.writeInt(packed.length);
+        out.write(packed);
+    }
+
+    // reads information written by writeInformation
+    private static String readInformation(
+      DataInputStream in,
+      boolean packed
+    ) throws IOException {
+        if (!packed)
+            return in.readUTF();
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException(CORRUPTED_RECORD_ERROR);
+        byte[] record = new byte[length];
+        in.readFully(record);
+        return TextCodec.decode(record, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(
+      DataOutputStream out,
+      UUID identifier
+    ) throws IOException {
+        out.writeLong(identifier.getMostSignificantBits());
+        out.writeLong(identifier.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    // runs write, rethrowing its IOException unchecked, as the visitor
+    // methods can not throw it
+    private static void writeRecord(RecordWriter write) {
+        try {
+            write.run();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    // Writes a record.
+    private interface RecordWriter {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,369 @@
+package cogito.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+import cogito.model.NodeRecord;
+
+/**
+ * Reads and writes graphs in the GraphML format, as streams of elements.
+ *
+ * A graph is written as a directed GraphML graph whose nodes are named by
+ * their UUID and carry their title, information and position as data of the
+ * keys "title", "information", "x" and "y". The name of the graph is the
+ * data of the graph key "name".
+ *
+ * When reading, the keys are matched by their attr.name, so that files
+ * written by other tools can be imported: "label" is accepted for the title
+ * and "description" for the information. Nodes without title are titled by
+ * their GraphML identifier. Only the first graph of a file is read, and
+ * hyperedges, ports and nested graphs are ignored.
+ *
+ * Neither reading nor writing holds the text of the graph in memory.
+ */
+public final class GraphML {
+
+    // The namespace of GraphML elements.
+    private static final String NAMESPACE =
+        "http://graphml.graphdrawing.org/xmlns";
+
+    // The identifiers and attr.name of the keys written.
+    private static final String NAME_KEY = "name";
+    private static final String TITLE_KEY = "title";
+    private static final String INFORMATION_KEY = "information";
+    private static final String X_KEY = "x";
+    private static final String Y_KEY = "y";
+
+    // The attr.name of the keys of other tools read as title and
+    // information.
+    private static final String LABEL_KEY = "label";
+    private static final String DESCRIPTION_KEY = "description";
+
+    // Error messages
+    private static final String NOT_GRAPHML_ERROR = "Not a GraphML file";
+    private static final String MISSING_ATTRIBUTE_ERROR =
+        "Missing GraphML attribute: ";
+    private static final String INVALID_COORDINATE_ERROR =
+        "Invalid coordinate of node ";
+
+    private GraphML() {}
+
+    /**
+     * Writes model to out in the GraphML format, encoded in UTF-8.
+     *
+     * @param model The snapshot of the graph to write.
+     * @param out The stream written, not closed.
+     * @throws IOException if an I/O error occurred.
+     */
+    public static void write(
+      GraphSnapshot model,
+      OutputStream out
+    ) throws IOException {
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance()
+                .createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("graphml");
+            xml.writeDefaultNamespace(NAMESPACE);
+            writeKey(xml, NAME_KEY, "graph", "string");
+            writeKey(xml, TITLE_KEY, "node", "string");
+            writeKey(xml, INFORMATION_KEY, "node", "string");
+            writeKey(xml, X_KEY, "node", "int");
+            writeKey(xml, Y_KEY, "node", "int");
+            xml.writeCharacters("\n  ");
+            xml.writeStartElement("graph");
+            xml.writeAttribute("id", model.getUuid().toString());
+            xml.writeAttribute("edgedefault", "directed");
+            xml.writeCharacters("\n    ");
+            writeData(xml, NAME_KEY, model.getName());
+            XMLException.run(() -> model.forEachNode(node -> {
+                XMLException.wrap(() -> writeNode(xml, node));
+            }));
+            XMLException.run(() -> model.forEachNode(node -> {
+                UUID src = node.identifier();
+                model.forEachNeighbor(src, dst -> XMLException.wrap(() -> {
+                    xml.writeCharacters("\n    ");
+                    xml.writeEmptyElement("edge");
+                    xml.writeAttribute("source", src.toString());
+                    xml.writeAttribute("target", dst.toString());
+                }));
+            }));
+            xml.writeCharacters("\n  ");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException xse) {
+            throw new IOException(xse.getMessage(), xse);
+        }
+    }
+
+    /**
+     * Reads the graph of a GraphML file from in.
+     *
+     * @param in The stream read, not closed.
+     * @param defaultName The name of the graph if the file does not name it.
+     * @return The graph read, with a new identifier.
+     * @throws IOException if an I/O error occurred or if in is not a valid
+     *         GraphML file of a valid graph.
+     */
+    public static Graph read(
+      InputStream in,
+      String defaultName
+    ) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(
+          XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+          false
+        );
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                return read(xml, defaultName);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException xse) {
+            throw new IOException(xse.getMessage(), xse);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(iae.getMessage(), iae);
+        }
+    }
+
+    private static Graph read(
+      XMLStreamReader xml,
+      String defaultName
+    ) throws IOException, XMLStreamException {
+        // the attr.name of the keys, by identifier
+        Map<String, String> keys = new HashMap<>();
+        xml.nextTag();
+        if (!xml.getLocalName().equals("graphml"))
+            throw new IOException(NOT_GRAPHML_ERROR);
+        String name = defaultName;
+        GraphImporter importer = null;
+        boolean inGraph = false;
+        // every element but the graph is read up to its end, the loop ends
+        // with the first graph
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && inGraph)
+                break;
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            String element = xml.getLocalName();
+            if (element.equals("graph")) {
+                inGraph = true;
+                continue;
+            }
+            if (element.equals("key")) {
+                keys.put(
+                  attribute(xml, "id"),
+                  xml.getAttributeValue(null, "attr.name")
+                );
+            } else if (inGraph && element.equals("data")) {
+                // the name of the graph, unless a node came before it
+                String key = keys.get(attribute(xml, "key"));
+                String value = elementText(xml);
+                if (importer == null && NAME_KEY.equals(key))
+                    name = value;
+                continue;
+            } else if (inGraph && element.equals("node")) {
+                if (importer == null)
+                    importer = new GraphImporter(name);
+                readNode(xml, importer, keys);
+                continue;
+            } else if (inGraph && element.equals("edge")) {
+                if (importer == null)
+                    importer = new GraphImporter(name);
+                importer.link(
+                  attribute(xml, "source"),
+                  attribute(xml, "target")
+                );
+            }
+            skipElement(xml);
+        }
+        if (importer == null)
+            importer = new GraphImporter(name);
+        return importer.finish();
+    }
+
+    // reads the node element xml is at, up to its end
+    private static void readNode(
+      XMLStreamReader xml,
+      GraphImporter importer,
+      Map<String, String> keys
+    ) throws IOException, XMLStreamException {
+        String id = attribute(xml, "id");
+        String title = null;
+        String information = null;
+        int x = 0;
+        int y = 0;
+        // the children are read up to their end, the next end is the node's
+        int event;
+        while ((event = xml.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT)
+                continue;
+            if (!xml.getLocalName().equals("data")) {
+                skipElement(xml); // nested graph or port
+                continue;
+            }
+            String key = keys.get(attribute(xml, "key"));
+            String value = elementText(xml);
+            if (TITLE_KEY.equals(key) || LABEL_KEY.equals(key)) {
+                title = value;
+            } else if (
+              INFORMATION_KEY.equals(key) || DESCRIPTION_KEY.equals(key)
+            ) {
+                information = value;
+            } else if (X_KEY.equals(key)) {
+                x = parseCoordinate(value, id);
+            } else if (Y_KEY.equals(key)) {
+                y = parseCoordinate(value, id);
+            }
+        }
+        importer.declare(id, title, information, x, y);
+    }
+
+    private static int parseCoordinate(
+      String value,
+      String id
+    ) throws IOException {
+        try {
+            return (int)Math.round(Double.parseDouble(value.trim()));
+        } catch (NumberFormatException nfe) {
+            throw new IOException(INVALID_COORDINATE_ERROR + id, nfe);
+        }
+    }
+
+    // reads the text of the element xml is at, up to its end, ignoring the
+    // nested elements such as the graphics data of other tools
+    private static String elementText(
+      XMLStreamReader xml
+    ) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+            else if (depth == 1 && xml.hasText())
+                text.append(xml.getText());
+        }
+        return text.toString();
+    }
+
+    // skips the element xml is at, up to its end
+    private static void skipElement(
+      XMLStreamReader xml
+    ) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    // the value of the attribute of given name of the element xml is at
+    private static String attribute(
+      XMLStreamReader xml,
+      String name
+    ) throws IOException {
+        String value = xml.getAttributeValue(null, name);
+        if (value == null)
+            throw new IOException(MISSING_ATTRIBUTE_ERROR + name);
+        return value;
+    }
+
+    private static void writeKey(
+      XMLStreamWriter xml,
+      String id,
+      String domain,
+      String type
+    ) throws XMLStreamException {
+        xml.writeCharacters("\n  ");
+        xml.writeEmptyElement("key");
+        xml.writeAttribute("id", id);
+        xml.writeAttribute("for", domain);
+        xml.writeAttribute("attr.name", id);
+        xml.writeAttribute("attr.type", type);
+    }
+
+    private static void writeNode(
+      XMLStreamWriter xml,
+      NodeRecord node
+    ) throws XMLStreamException {
+        xml.writeCharacters("\n    ");
+        xml.writeStartElement("node");
+        xml.writeAttribute("id", node.identifier().toString());
+        writeData(xml, TITLE_KEY, node.title());
+        writeData(xml, INFORMATION_KEY, node.information());
+        writeData(xml, X_KEY, Integer.toString(node.x()));
+        writeData(xml, Y_KEY, Integer.toString(node.y()));
+        xml.writeEndElement();
+    }
+
+    private static void writeData(
+      XMLStreamWriter xml,
+      String key,
+      String value
+    ) throws XMLStreamException {
+        xml.writeStartElement("data");
+        xml.writeAttribute("key", key);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    // Carries an XMLStreamException out of the actions passed to the
+    // iteration methods of GraphSnapshot, which can not throw it.
+    private static final class XMLException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private XMLException(XMLStreamException cause) {
+            super(cause);
+        }
+
+        // runs write, wrapping its XMLStreamException
+        static void wrap(XMLWriter write) {
+            try {
+                write.run();
+            } catch (XMLStreamException xse) {
+                throw new XMLException(xse);
+            }
+        }
+
+        // runs iteration, unwrapping the XMLStreamException of its actions
+        static void run(Runnable iteration) throws XMLStreamException {
+            try {
+                iteration.run();
+            } catch (XMLException xe) {
+                throw (XMLStreamException)xe.getCause();
+            }
+        }
+    }
+
+    // Writes XML.
+    private interface XMLWriter {
+        void run() throws XMLStreamException;
+    }
+}
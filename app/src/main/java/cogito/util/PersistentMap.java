@@ -0,0 +1,499 @@
+package cogito.util;
+
+import java.util.Objects;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map that shares its structure with the maps derived from it.
+ *
+ * The map is a hash array mapped trie: put and remove return a new map that
+ * only copies the path from the root of the trie to the modified entry, in
+ * O(log32(n)) time and space, and leaves this map unchanged. Taking a
+ * reference to a map is therefore enough to keep a stable copy of it.
+ *
+ * Keys and values must not be null.
+ */
+public final class PersistentMap<K, V> {
+
+    // The empty map, shared by all key and value types.
+    private static final PersistentMap<?, ?> EMPTY =
+        new PersistentMap<>(null, 0);
+
+    // Marks an absent key in the results of the trie lookups.
+    private static final Object NOT_FOUND = new Object();
+
+    // Number of hash bits consumed by each level of the trie.
+    private static final int BITS = 5;
+
+    // Mask of the hash bits consumed by each level of the trie.
+    private static final int MASK = (1 << BITS) - 1;
+
+    // The root of the trie, null if this map is empty.
+    private final TrieNode root;
+
+    // The number of entries of this map.
+    private final int size;
+
+    // Error messages
+    private static final String NULL_KEY_ERROR = "Key can not be null";
+    private static final String NULL_VALUE_ERROR = "Value can not be null";
+    private static final String NULL_MAP_ERROR = "Map can not be null";
+    private static final String NULL_ACTION_ERROR = "Action can not be null";
+
+    private PersistentMap(TrieNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @return A map with no entry.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>)EMPTY;
+    }
+
+    /**
+     * Returns the number of entries of this map.
+     *
+     * @return The number of entries of this map.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Indicates if this map has no entry.
+     *
+     * @return True if and only if this map has no entry.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the value associated to key, or null if there is none.
+     *
+     * @param key A key, not null.
+     * @return The value associated to key, or null.
+     * @throws NullPointerException if key is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Objects.requireNonNull(key, NULL_KEY_ERROR);
+        if (this.root == null)
+            return null;
+        Object value = this.root.get(key, hash(key), 0);
+        return (value == NOT_FOUND) ? null : (V)value;
+    }
+
+    /**
+     * Indicates if a value is associated to key in this map.
+     *
+     * @param key A key, not null.
+     * @return True if and only if a value is associated to key.
+     * @throws NullPointerException if key is null.
+     */
+    public boolean containsKey(K key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Returns a map with the entries of this map and value associated to key.
+     *
+     * @param key A key, not null.
+     * @param value The value to associate to key, not null.
+     * @return The new map, or this map if value was already associated to key.
+     * @throws NullPointerException if key or value are null.
+     */
+    public PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, NULL_KEY_ERROR);
+        Objects.requireNonNull(value, NULL_VALUE_ERROR);
+        boolean[] added = new boolean[1];
+        TrieNode start = (this.root == null) ? BitmapNode.EMPTY : this.root;
+        TrieNode newRoot = start.put(key, value, hash(key), 0, added);
+        if (newRoot == this.root)
+            return this;
+        return new PersistentMap<>(newRoot, this.size + (added[0] ? 1 : 0));
+    }
+
+    /**
+     * Returns a map with the entries of this map except the one of key.
+     *
+     * @param key A key, not null.
+     * @return The new map, or this map if key has no value.
+     * @throws NullPointerException if key is null.
+     */
+    public PersistentMap<K, V> remove(K key) {
+        Objects.requireNonNull(key, NULL_KEY_ERROR);
+        if (this.root == null)
+            return this;
+        TrieNode newRoot = this.root.remove(key, hash(key), 0);
+        if (newRoot == this.root)
+            return this;
+        return new PersistentMap<>(newRoot, this.size - 1);
+    }
+
+    /**
+     * Performs the given action on each entry of this map, in no particular
+     * order.
+     *
+     * @param action The action to perform, not null.
+     * @throws NullPointerException if action is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action, NULL_ACTION_ERROR);
+        if (this.root != null)
+            this.root.forEach((BiConsumer<Object, Object>)action);
+    }
+
+    /**
+     * Reports the differences between previous and this map.
+     *
+     * The entries of this map whose key has no value in previous, or a value
+     * that is not equal to the value of this map, are given to put. The
+     * entries of previous whose key has no value in this map are given to
+     * removed.
+     *
+     * The parts of the tries that this map shares with previous are skipped,
+     * so that comparing a map to the map it was derived from by a few put
+     * and remove takes time proportional to the number of modifications
+     * rather than to the size of the maps.
+     *
+     * @param previous The map to compare this map to, not null.
+     * @param put The action performed on the added or changed entries, not
+     *            null.
+     * @param removed The action performed on the removed entries, not null.
+     * @throws NullPointerException if an argument is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(
+      PersistentMap<K, V> previous,
+      BiConsumer<? super K, ? super V> put,
+      BiConsumer<? super K, ? super V> removed
+    ) {
+        Objects.requireNonNull(previous, NULL_MAP_ERROR);
+        Objects.requireNonNull(put, NULL_ACTION_ERROR);
+        Objects.requireNonNull(removed, NULL_ACTION_ERROR);
+        diff(
+          this.root,
+          previous.root,
+          0,
+          (BiConsumer<Object, Object>)put,
+          (BiConsumer<Object, Object>)removed
+        );
+    }
+
+    // spreads the high bits of the hash code of key over the low bits
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // reports the differences between the tries of given roots, both at
+    // the level of given shift
+    private static void diff(
+      TrieNode current,
+      TrieNode previous,
+      int shift,
+      BiConsumer<Object, Object> put,
+      BiConsumer<Object, Object> removed
+    ) {
+        if (current == previous)
+            return; // shared
+        if (current == null) {
+            previous.forEach(removed);
+        } else if (previous == null) {
+            current.forEach(put);
+        } else if (
+          current instanceof BitmapNode
+          && previous instanceof BitmapNode
+        ) {
+            ((BitmapNode)current).diff(
+              (BitmapNode)previous,
+              shift,
+              put,
+              removed
+            );
+        } else {
+            diffByLookup(current, previous, shift, put, removed);
+        }
+    }
+
+    // reports the differences between two tries by looking up the keys of
+    // each one in the other
+    private static void diffByLookup(
+      TrieNode current,
+      TrieNode previous,
+      int shift,
+      BiConsumer<Object, Object> put,
+      BiConsumer<Object, Object> removed
+    ) {
+        current.forEach((k, v) -> {
+            if (!v.equals(previous.get(k, hash(k), shift)))
+                put.accept(k, v);
+        });
+        previous.forEach((k, v) -> {
+            if (current.get(k, hash(k), shift) == NOT_FOUND)
+                removed.accept(k, v);
+        });
+    }
+
+    // the bit of the slot of hash at the level of the trie of given shift
+    private static int bitOf(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    // A node of the trie, never modified once built.
+    private abstract static class TrieNode {
+
+        // Returns the value of key, or NOT_FOUND.
+        abstract Object get(Object key, int hash, int shift);
+
+        // Returns the node with value associated to key, or this node if it
+        // was already. Sets added[0] if key had no value.
+        abstract TrieNode put(Object key, Object value, int hash, int shift,
+                boolean[] added);
+
+        // Returns the node without the entry of key, this node if key had no
+        // value, or null if the node would be empty.
+        abstract TrieNode remove(Object key, int hash, int shift);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    // A node with up to 32 slots, one per value of the hash bits of its level.
+    // Each present slot holds a key and its value, or null and a sub node.
+    private static final class BitmapNode extends TrieNode {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        // The present slots.
+        private final int bitmap;
+
+        // Two cells per present slot, in slot order.
+        private final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int indexOf(int bit) {
+            return 2 * Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = bitOf(hash, shift);
+            if ((this.bitmap & bit) == 0)
+                return NOT_FOUND;
+            int i = this.indexOf(bit);
+            Object k = this.array[i];
+            Object v = this.array[i + 1];
+            if (k == null)
+                return ((TrieNode)v).get(key, hash, shift + BITS);
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        TrieNode put(Object key, Object value, int hash, int shift,
+                boolean[] added) {
+            int bit = bitOf(hash, shift);
+            int i = this.indexOf(bit);
+            if ((this.bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] newArray = new Object[this.array.length + 2];
+                System.arraycopy(this.array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(this.array, i, newArray, i + 2,
+                        this.array.length - i);
+                return new BitmapNode(this.bitmap | bit, newArray);
+            }
+            Object k = this.array[i];
+            Object v = this.array[i + 1];
+            if (k == null) {
+                TrieNode sub = (TrieNode)v;
+                TrieNode newSub = sub.put(key, value, hash, shift + BITS,
+                        added);
+                return (newSub == sub) ? this : this.with(i, null, newSub);
+            }
+            if (key.equals(k))
+                return (v == value) ? this : this.with(i, k, value);
+            added[0] = true;
+            TrieNode sub = pair(shift + BITS, k, v, PersistentMap.hash(k),
+                    key, value, hash);
+            return this.with(i, null, sub);
+        }
+
+        @Override
+        TrieNode remove(Object key, int hash, int shift) {
+            int bit = bitOf(hash, shift);
+            if ((this.bitmap & bit) == 0)
+                return this;
+            int i = this.indexOf(bit);
+            Object k = this.array[i];
+            Object v = this.array[i + 1];
+            if (k == null) {
+                TrieNode sub = (TrieNode)v;
+                TrieNode newSub = sub.remove(key, hash, shift + BITS);
+                if (newSub == sub)
+                    return this;
+                if (newSub != null)
+                    return this.with(i, null, newSub);
+            } else if (!key.equals(k))
+                return this;
+            if (this.bitmap == bit)
+                return null;
+            Object[] newArray = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, newArray, 0, i);
+            System.arraycopy(this.array, i + 2, newArray, i,
+                    this.array.length - i - 2);
+            return new BitmapNode(this.bitmap ^ bit, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (this.array[i] == null)
+                    ((TrieNode)this.array[i + 1]).forEach(action);
+                else
+                    action.accept(this.array[i], this.array[i + 1]);
+            }
+        }
+
+        // reports the differences with previous, slot by slot
+        void diff(
+          BitmapNode previous,
+          int shift,
+          BiConsumer<Object, Object> put,
+          BiConsumer<Object, Object> removed
+        ) {
+            int slots = this.bitmap | previous.bitmap;
+            while (slots != 0) {
+                int bit = Integer.lowestOneBit(slots);
+                slots ^= bit;
+                TrieNode current = this.slotAt(bit);
+                TrieNode old = previous.slotAt(bit);
+                PersistentMap.diff(current, old, shift + BITS, put, removed);
+            }
+        }
+
+        // the content of the slot of given bit as a node, null if absent
+        private TrieNode slotAt(int bit) {
+            if ((this.bitmap & bit) == 0)
+                return null;
+            int i = this.indexOf(bit);
+            if (this.array[i] == null)
+                return (TrieNode)this.array[i + 1];
+            Object key = this.array[i];
+            return new CollisionNode(
+              PersistentMap.hash(key),
+              new Object[] {key, this.array[i + 1]}
+            );
+        }
+
+        // copy of this node with the cells of index i and i + 1 replaced
+        private BitmapNode with(int i, Object key, Object value) {
+            Object[] newArray = this.array.clone();
+            newArray[i] = key;
+            newArray[i + 1] = value;
+            return new BitmapNode(this.bitmap, newArray);
+        }
+
+        // the node holding two distinct keys at the level of given shift
+        private static TrieNode pair(int shift, Object k1, Object v1, int h1,
+                Object k2, Object v2, int h2) {
+            if (h1 == h2)
+                return new CollisionNode(h1, new Object[] {k1, v1, k2, v2});
+            boolean[] added = new boolean[1];
+            return EMPTY.put(k1, v1, h1, shift, added)
+                .put(k2, v2, h2, shift, added);
+        }
+    }
+
+    // A node holding the entries of distinct keys of identical hash.
+    private static final class CollisionNode extends TrieNode {
+
+        // The hash of every key of this node.
+        private final int hash;
+
+        // Keys and values, alternately.
+        private final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (key.equals(this.array[i]))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return NOT_FOUND;
+            int i = this.indexOf(key);
+            return (i == -1) ? NOT_FOUND : this.array[i + 1];
+        }
+
+        @Override
+        TrieNode put(Object key, Object value, int hash, int shift,
+                boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node in a bitmap node and insert next to it
+                BitmapNode parent = new BitmapNode(
+                  bitOf(this.hash, shift),
+                  new Object[] {null, this}
+                );
+                return parent.put(key, value, hash, shift, added);
+            }
+            int i = this.indexOf(key);
+            if (i != -1) {
+                if (this.array[i + 1] == value)
+                    return this;
+                Object[] newArray = this.array.clone();
+                newArray[i + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            added[0] = true;
+            Object[] newArray = Arrays.copyOf(this.array,
+                    this.array.length + 2);
+            newArray[this.array.length] = key;
+            newArray[this.array.length + 1] = value;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        TrieNode remove(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return this;
+            int i = this.indexOf(key);
+            if (i == -1)
+                return this;
+            if (this.array.length == 2)
+                return null;
+            Object[] newArray = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, newArray, 0, i);
+            System.arraycopy(this.array, i + 2, newArray, i,
+                    this.array.length - i - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < this.array.length; i += 2)
+                action.accept(this.array[i], this.array[i + 1]);
+        }
+    }
+}
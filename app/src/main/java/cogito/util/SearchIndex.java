@@ -0,0 +1,702 @@
+package cogito.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import cogito.model.Graph;
+import cogito.model.GraphListener;
+import cogito.model.Node;
+
+/**
+ * Full-text index of the titles and information of the nodes of a graph.
+ *
+ * The texts are split into terms, sequences of letters and digits, lowered
+ * and stripped of their diacritics. The index maps each term to the nodes
+ * holding it along with its positions in their texts, the terms of the
+ * information starting at INFORMATION_START, after those of the title and a
+ * gap, so that a phrase does not span both. The terms are sorted, so that
+ * the terms of a prefix are found without scanning the others.
+ *
+ * An index listens to its graph. As the listeners of a graph are called
+ * while it is locked, usually on the event dispatch thread, only the title
+ * of a node, short and in memory, is reindexed when it changes: the nodes
+ * whose information changed, which may have to be read from the storage,
+ * are queued and reindexed in the background, or by the next search. An
+ * index is stored in the directory of the graph by DataManager, see
+ * DataManager.openSearchIndex.
+ */
+public final class SearchIndex implements GraphListener {
+
+    // The file name extension of index files.
+    static final String EXTENSION = ".cgx";
+
+    // The first bytes of an index file, "CGSX".
+    private static final int MAGIC = 0x43475358;
+
+    // The version of the format written by this class. Version 1 files
+    // have the information terms right after the title terms.
+    private static final short VERSION = 2;
+
+    // The position of the first term of the information of a node, greater
+    // than the number of terms of the longest title.
+    private static final int INFORMATION_START = 128;
+
+    // Reindexes the information of the nodes queued by all the indexes
+    private static final ExecutorService EXECUTOR =
+        Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // The suffix of the prefix terms of a query.
+    private static final char PREFIX_MARK = '*';
+
+    // The delimiter of the phrases of a query.
+    private static final char PHRASE_MARK = '"';
+
+    // Error messages
+    private static final String NOT_AN_INDEX_ERROR = "Not a search index: ";
+    private static final String CORRUPTED_INDEX_ERROR =
+        "Corrupted search index: ";
+
+    // A term of a query, matching the terms starting with it if it is a
+    // prefix.
+    private record QueryTerm(String term, boolean prefix) {}
+
+    // The graph indexed, null if this index does not listen to a graph.
+    private Graph model;
+
+    // The positions of each term in the texts of each node, guarded by this
+    // index.
+    private final TreeMap<String, Map<UUID, int[]>> postings;
+
+    // The terms of each node, guarded by this index.
+    private final Map<UUID, String[]> terms;
+
+    // The nodes whose information must be reindexed, or whose terms must be
+    // removed if they are not in the graph anymore, guarded by this index.
+    private final Set<UUID> pending;
+
+    // Indicates if the background indexing of the pending nodes is
+    // scheduled, guarded by this index.
+    private boolean indexingScheduled;
+
+    // The nodes indexed or removed by the listener methods while this index
+    // is being filled, which the filling must skip, guarded by this index,
+    // null when not filling. The filling never calls the graph with the lock
+    // of this index held, as the listener methods are called with the lock
+    // of the graph held.
+    private Set<UUID> touched;
+
+    // Creates an empty index listening to no graph.
+    private SearchIndex() {
+        this.model = null;
+        this.postings = new TreeMap<>();
+        this.terms = new HashMap<>();
+        this.pending = new HashSet<>();
+        this.indexingScheduled = false;
+        this.touched = null;
+    }
+
+    /**
+     * Creates the index of the nodes of model, reading the information of
+     * each of them, and listens to model to keep it up to date.
+     *
+     * @param model The graph to index.
+     * @return The index of model.
+     */
+    static SearchIndex build(Graph model) {
+        SearchIndex index = new SearchIndex();
+        synchronized (index) {
+            index.touched = new HashSet<>();
+        }
+        index.listen(model);
+        for (Node node: model.getNodes()) {
+            synchronized (index) {
+                if (!index.touched.contains(node.getUuid()))
+                    index.index(node);
+            }
+        }
+        synchronized (index) {
+            index.touched = null;
+        }
+        return index;
+    }
+
+    /**
+     * Creates the index of model stored in file, and listens to model to
+     * keep it up to date.
+     *
+     * The nodes modified while the file is read are indexed from model. The
+     * nodes of the file that are not in model are ignored.
+     *
+     * @param file The path of the index file.
+     * @param model The graph indexed.
+     * @param stamp The stamp of the state of the store the index must have
+     *        been written with.
+     * @return The index of model, or null if file was written with another
+     *         stamp.
+     * @throws IOException if an I/O error occurred or if file is not a valid
+     *         index file.
+     */
+    static SearchIndex read(
+      Path file,
+      Graph model,
+      long[] stamp
+    ) throws IOException {
+        SearchIndex index = new SearchIndex();
+        synchronized (index) {
+            index.touched = new HashSet<>();
+        }
+        index.listen(model);
+        Set<UUID> present = new HashSet<>();
+        for (Node node: model.getNodes())
+            present.add(node.getUuid());
+        try (
+          DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(file))
+          )
+        ) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                throw new IOException(NOT_AN_INDEX_ERROR + file);
+            boolean current = in.readInt() == stamp.length;
+            for (int i = 0; current && i < stamp.length; i++)
+                current = in.readLong() == stamp[i];
+            if (!current) {
+                index.close();
+                return null;
+            }
+            index.readEntries(in, file, present);
+        } catch (EOFException eofe) {
+            index.close();
+            throw new IOException(CORRUPTED_INDEX_ERROR + file, eofe);
+        } catch (IOException ioe) {
+            index.close();
+            throw ioe;
+        }
+        synchronized (index) {
+            index.touched = null;
+        }
+        return index;
+    }
+
+    // reads the term table then the entries of each node, skipping those
+    // of the nodes touched meanwhile or not present in the graph
+    private void readEntries(
+      DataInputStream in,
+      Path file,
+      Set<UUID> present
+    ) throws IOException {
+        int termCount = in.readInt();
+        if (termCount < 0)
+            throw new IOException(CORRUPTED_INDEX_ERROR + file);
+        String[] table = new String[termCount];
+        for (int i = 0; i < termCount; i++)
+            table[i] = in.readUTF();
+        int nodeCount = in.readInt();
+        for (int n = 0; n < nodeCount; n++) {
+            UUID identifier = new UUID(in.readLong(), in.readLong());
+            int entryCount = in.readInt();
+            if (entryCount < 0)
+                throw new IOException(CORRUPTED_INDEX_ERROR + file);
+            Map<String, int[]> positions = new HashMap<>(2 * entryCount);
+            for (int e = 0; e < entryCount; e++) {
+                int term = in.readInt();
+                int count = in.readInt();
+                if (term < 0 || term >= termCount || count < 0)
+                    throw new IOException(CORRUPTED_INDEX_ERROR + file);
+                int[] termPositions = new int[count];
+                for (int i = 0; i < count; i++)
+                    termPositions[i] = in.readInt();
+                positions.put(table[term], termPositions);
+            }
+            synchronized (this) {
+                if (
+                  !this.touched.contains(identifier)
+                  && present.contains(identifier)
+                ) {
+                    this.put(identifier, positions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes this index to file, replacing it atomically.
+     *
+     * @param file The path of the index file.
+     * @param stamp The stamp of the state of the store this index is the
+     *        index of.
+     * @throws IOException if an I/O error occurred.
+     */
+    void write(Path file, long[] stamp) throws IOException {
+        this.indexPending();
+        synchronized (this) {
+            this.writeEntries(file, stamp);
+        }
+    }
+
+    // writes this index to file, with the lock of this index held
+    private void writeEntries(Path file, long[] stamp) throws IOException {
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (
+          DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tmpFile))
+          )
+        ) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(stamp.length);
+            for (long value: stamp)
+                out.writeLong(value);
+            Map<String, Integer> table = new HashMap<>(
+              2 * this.postings.size()
+            );
+            out.writeInt(this.postings.size());
+            for (String term: this.postings.keySet()) {
+                table.put(term, table.size());
+                out.writeUTF(term);
+            }
+            out.writeInt(this.terms.size());
+            for (Map.Entry<UUID, String[]> node: this.terms.entrySet()) {
+                UUID identifier = node.getKey();
+                out.writeLong(identifier.getMostSignificantBits());
+                out.writeLong(identifier.getLeastSignificantBits());
+                out.writeInt(node.getValue().length);
+                for (String term: node.getValue()) {
+                    int[] positions = this.postings.get(term).get(identifier);
+                    out.writeInt(table.get(term));
+                    out.writeInt(positions.length);
+                    for (int position: positions)
+                        out.writeInt(position);
+                }
+            }
+        }
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns the graph this index is the index of.
+     *
+     * @return The graph indexed, or null if this index was closed.
+     */
+    public synchronized Graph getModel() {
+        return this.model;
+    }
+
+    /**
+     * Returns the identifiers of the nodes matching query, the nodes where
+     * the query terms occur the most first.
+     *
+     * The information of the nodes queued for reindexing is indexed first,
+     * so that the result reflects the last modifications of the graph.
+     *
+     * A query is a sequence of words and of phrases between double quotes,
+     * all of which must occur in the title or information of a node for it
+     * to match. A word ending with an asterisk matches the terms starting
+     * with it. A word made of several terms, such as "e-mail", is a phrase.
+     *
+     * @param query The query.
+     * @return The identifiers of the nodes matching query, empty if query
+     *         holds no term.
+     */
+    public List<UUID> search(String query) {
+        this.indexPending();
+        synchronized (this) {
+            return this.searchIndexed(query);
+        }
+    }
+
+    // the result of search, with the lock of this index held
+    private List<UUID> searchIndexed(String query) {
+        Map<UUID, Integer> scores = null;
+        for (List<QueryTerm> clause: parse(query)) {
+            Map<UUID, Integer> matches = this.match(clause);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                Map<UUID, Integer> both = new HashMap<>();
+                for (Map.Entry<UUID, Integer> match: matches.entrySet()) {
+                    Integer score = scores.get(match.getKey());
+                    if (score != null)
+                        both.put(match.getKey(), score + match.getValue());
+                }
+                scores = both;
+            }
+            if (scores.isEmpty())
+                break;
+        }
+        if (scores == null)
+            return List.of();
+        List<UUID> result = new ArrayList<>(scores.keySet());
+        Map<UUID, Integer> finalScores = scores;
+        result.sort((a, b) -> finalScores.get(b) - finalScores.get(a));
+        return result;
+    }
+
+    /**
+     * Stops listening to the graph.
+     */
+    public void close() {
+        Graph graph;
+        synchronized (this) {
+            graph = this.model;
+            this.model = null;
+        }
+        if (graph != null)
+            graph.removeGraphListener(this);
+    }
+
+    @Override
+    public void nodeAdded(Node node) {
+        synchronized (this) {
+            if (this.model == null)
+                return;
+            this.indexTitle(node);
+            this.queue(node.getUuid());
+        }
+    }
+
+    @Override
+    public void nodeRemoved(Node node) {
+        synchronized (this) {
+            this.remove(node.getUuid());
+            if (this.touched != null)
+                this.touched.add(node.getUuid());
+            // an indexing of its information may be running
+            this.queue(node.getUuid());
+        }
+    }
+
+    @Override
+    public void nodeTitleChanged(Node node) {
+        synchronized (this) {
+            if (this.model == null)
+                return;
+            this.indexTitle(node);
+            // skipped by the filling, its information is indexed later
+            if (this.touched != null)
+                this.queue(node.getUuid());
+        }
+    }
+
+    @Override
+    public void nodeInformationChanged(Node node) {
+        synchronized (this) {
+            if (this.model != null)
+                this.queue(node.getUuid());
+        }
+    }
+
+    /**
+     * Splits text into its terms, in order.
+     *
+     * @param text The text to split.
+     * @return The terms of text, lowered and stripped of their diacritics.
+     */
+    static List<String> tokenize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK)
+                continue;
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0)
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        return tokens;
+    }
+
+    private void listen(Graph model) {
+        synchronized (this) {
+            this.model = model;
+        }
+        model.addGraphListener(this);
+    }
+
+    // indexes the current title of node, keeping the terms of its
+    // information, with the lock of this index held
+    private void indexTitle(Node node) {
+        UUID identifier = node.getUuid();
+        if (this.touched != null)
+            this.touched.add(identifier);
+        Map<String, int[]> positions = this.positionsOf(
+          identifier,
+          INFORMATION_START,
+          Integer.MAX_VALUE
+        );
+        addPositions(positions, tokenize(node.getTitle()), 0);
+        this.put(identifier, positions);
+    }
+
+    // queues the node of given identifier for the indexing of its
+    // information, scheduled in the background, with the lock of this index
+    // held
+    private void queue(UUID identifier) {
+        this.pending.add(identifier);
+        if (this.indexingScheduled)
+            return;
+        this.indexingScheduled = true;
+        EXECUTOR.execute(() -> {
+            synchronized (this) {
+                this.indexingScheduled = false;
+            }
+            this.indexPending();
+        });
+    }
+
+    // indexes the information of the pending nodes, or removes the terms of
+    // those not in the graph anymore. The graph is queried and the
+    // information read without the lock of this index held, a node queued
+    // again meanwhile being left to the next indexing.
+    private void indexPending() {
+        while (true) {
+            Graph graph;
+            UUID identifier;
+            synchronized (this) {
+                if (this.pending.isEmpty() || this.model == null)
+                    return;
+                graph = this.model;
+                identifier = this.pending.iterator().next();
+                this.pending.remove(identifier);
+            }
+            Node node = graph.getNode(identifier);
+            List<String> information = (node != null)
+                ? tokenize(node.getInformation())
+                : null;
+            synchronized (this) {
+                if (this.pending.contains(identifier))
+                    continue;
+                if (node == null) {
+                    this.remove(identifier);
+                    continue;
+                }
+                Map<String, int[]> positions = this.positionsOf(
+                  identifier,
+                  0,
+                  INFORMATION_START
+                );
+                addPositions(positions, information, INFORMATION_START);
+                this.put(identifier, positions);
+            }
+        }
+    }
+
+    // indexes the current title and information of node, reading them with
+    // the lock of this index held, so that the last indexing of a node reads
+    // its last state
+    private void index(Node node) {
+        Map<String, int[]> positions = new HashMap<>();
+        addPositions(positions, tokenize(node.getTitle()), 0);
+        addPositions(
+          positions,
+          tokenize(node.getInformation()),
+          INFORMATION_START
+        );
+        this.put(node.getUuid(), positions);
+    }
+
+    // the positions in [from; to) of the terms of the node of given
+    // identifier, by term
+    private Map<String, int[]> positionsOf(UUID identifier, int from, int to) {
+        Map<String, int[]> positions = new HashMap<>();
+        String[] nodeTerms = this.terms.get(identifier);
+        if (nodeTerms == null)
+            return positions;
+        for (String term: nodeTerms) {
+            int[] kept = Arrays.stream(this.postings.get(term).get(identifier))
+                .filter(position -> position >= from && position < to)
+                .toArray();
+            if (kept.length > 0)
+                positions.put(term, kept);
+        }
+        return positions;
+    }
+
+    // adds to positions the terms of tokens, the first one at start, the
+    // positions of a term staying sorted
+    private static void addPositions(
+      Map<String, int[]> positions,
+      List<String> tokens,
+      int start
+    ) {
+        Map<String, List<Integer>> added = new HashMap<>();
+        int count = tokens.size();
+        // the title terms beyond the start of the information are dropped
+        if (start == 0)
+            count = Math.min(count, INFORMATION_START - 1);
+        for (int i = 0; i < count; i++)
+            added.computeIfAbsent(tokens.get(i), t -> new ArrayList<>())
+                .add(start + i);
+        for (Map.Entry<String, List<Integer>> entry: added.entrySet()) {
+            int[] array = entry.getValue().stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+            positions.merge(entry.getKey(), array, (a, b) -> {
+                int[] union = Arrays.copyOf(a, a.length + b.length);
+                System.arraycopy(b, 0, union, a.length, b.length);
+                Arrays.sort(union);
+                return union;
+            });
+        }
+    }
+
+    // adds the terms of given positions of the node of given identifier
+    private void put(UUID identifier, Map<String, int[]> positions) {
+        this.remove(identifier);
+        for (Map.Entry<String, int[]> entry: positions.entrySet()) {
+            this.postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>())
+                .put(identifier, entry.getValue());
+        }
+        this.terms.put(identifier, positions.keySet().toArray(new String[0]));
+    }
+
+    // removes the terms of the node of given identifier
+    private void remove(UUID identifier) {
+        String[] nodeTerms = this.terms.remove(identifier);
+        if (nodeTerms == null)
+            return;
+        for (String term: nodeTerms) {
+            Map<UUID, int[]> nodes = this.postings.get(term);
+            nodes.remove(identifier);
+            if (nodes.isEmpty())
+                this.postings.remove(term);
+        }
+    }
+
+    // the clauses of query, each one a sequence of terms to find in a row
+    private static List<List<QueryTerm>> parse(String query) {
+        List<List<QueryTerm>> clauses = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int end;
+            String text;
+            if (c == PHRASE_MARK) {
+                end = query.indexOf(PHRASE_MARK, i + 1);
+                if (end < 0)
+                    end = query.length();
+                text = query.substring(i + 1, end);
+                end++;
+            } else {
+                end = i;
+                while (
+                  end < query.length()
+                  && !Character.isWhitespace(query.charAt(end))
+                  && query.charAt(end) != PHRASE_MARK
+                ) {
+                    end++;
+                }
+                text = query.substring(i, end);
+            }
+            i = end;
+            boolean prefix = text.endsWith(String.valueOf(PREFIX_MARK));
+            List<String> tokens = tokenize(text);
+            if (tokens.isEmpty())
+                continue;
+            List<QueryTerm> clause = new ArrayList<>();
+            for (int t = 0; t < tokens.size(); t++) {
+                boolean last = t == tokens.size() - 1;
+                clause.add(new QueryTerm(tokens.get(t), prefix && last));
+            }
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    // the nodes where clause occurs, with the number of its occurrences
+    private Map<UUID, Integer> match(List<QueryTerm> clause) {
+        List<Map<UUID, int[]>> termPostings = new ArrayList<>();
+        for (QueryTerm term: clause)
+            termPostings.add(this.postingsOf(term));
+        Map<UUID, Integer> matches = new HashMap<>();
+        for (Map.Entry<UUID, int[]> first: termPostings.get(0).entrySet()) {
+            int count = 0;
+            for (int position: first.getValue()) {
+                if (occursAt(termPostings, first.getKey(), position))
+                    count++;
+            }
+            if (count > 0)
+                matches.put(first.getKey(), count);
+        }
+        return matches;
+    }
+
+    // indicates if the terms of termPostings occur in a row from position in
+    // the node of given identifier
+    private static boolean occursAt(
+      List<Map<UUID, int[]>> termPostings,
+      UUID identifier,
+      int position
+    ) {
+        for (int t = 1; t < termPostings.size(); t++) {
+            int[] positions = termPostings.get(t).get(identifier);
+            if (
+              positions == null
+              || Arrays.binarySearch(positions, position + t) < 0
+            ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the sorted positions of term by node, merged over the terms it is a
+    // prefix of if it is a prefix
+    private Map<UUID, int[]> postingsOf(QueryTerm term) {
+        if (!term.prefix()) {
+            Map<UUID, int[]> nodes = this.postings.get(term.term());
+            return (nodes == null) ? Map.of() : nodes;
+        }
+        SortedMap<String, Map<UUID, int[]>> terms = this.postings.subMap(
+          term.term(),
+          term.term() + Character.MAX_VALUE
+        );
+        if (terms.size() == 1)
+            return terms.values().iterator().next();
+        Map<UUID, int[]> merged = new HashMap<>();
+        for (Map<UUID, int[]> nodes: terms.values()) {
+            for (Map.Entry<UUID, int[]> node: nodes.entrySet()) {
+                merged.merge(node.getKey(), node.getValue(), (a, b) -> {
+                    int[] union = Arrays.copyOf(a, a.length + b.length);
+                    System.arraycopy(b, 0, union, a.length, b.length);
+                    Arrays.sort(union);
+                    return union;
+                });
+            }
+        }
+        return merged;
+    }
+}
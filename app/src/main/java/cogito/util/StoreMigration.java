@@ -0,0 +1,123 @@
+package cogito.util;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command converting every graph of the graphs directory to the current
+ * storage format and encoding.
+ *
+ * Graphs stored in the directory format of previous versions, or in a graph
+ * file of another version or encoding, are rewritten, several at a time.
+ * The encoding of the graph files written is named by the system property
+ * cogito.storage.encoding, UTF-8 by default. The long information of the
+ * nodes of the graphs rewritten is moved to the blob store shared by all
+ * the graphs, and the blobs no graph references are deleted.
+ *
+ * The command must be run while the application is not.
+ *
+ * Usage: StoreMigration [threads]
+ */
+public final class StoreMigration {
+
+    // The number of graphs migrated at the same time by default
+    private static final int DEFAULT_THREADS =
+        Runtime.getRuntime().availableProcessors();
+
+    // Error messages
+    private static final String USAGE_ERROR =
+        "Usage: StoreMigration [threads]";
+
+    private StoreMigration() {}
+
+    /**
+     * Migrates the graphs of the graphs directory, and rebuilds the catalog.
+     *
+     * Prints a line per graph rewritten or that could not be, then a
+     * summary. The exit status is 1 if a graph could not be migrated.
+     *
+     * @param args The number of graphs migrated at the same time, optional.
+     * @throws Exception if the graphs directory could not be listed.
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = DEFAULT_THREADS;
+        try {
+            if (args.length > 1)
+                throw new IllegalArgumentException(USAGE_ERROR);
+            if (args.length == 1)
+                threads = Integer.parseInt(args[0]);
+            if (threads < 1)
+                throw new IllegalArgumentException(USAGE_ERROR);
+        } catch (IllegalArgumentException iae) {
+            System.err.println(USAGE_ERROR);
+            System.exit(2);
+        }
+
+        List<UUID> identifiers = listGraphs(DataManager.getGraphsDir());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<UUID, Future<Boolean>> results = new LinkedHashMap<>();
+        for (UUID identifier: identifiers) {
+            results.put(identifier, executor.submit(
+              () -> DataManager.migrateGraph(identifier)
+            ));
+        }
+        executor.shutdown();
+
+        int migrated = 0;
+        int failed = 0;
+        for (Map.Entry<UUID, Future<Boolean>> entry: results.entrySet()) {
+            try {
+                if (entry.getValue().get()) {
+                    migrated++;
+                    System.out.println("Migrated " + entry.getKey());
+                }
+            } catch (ExecutionException ee) {
+                failed++;
+                System.err.println(
+                  "Could not migrate " + entry.getKey() + ": "
+                  + ee.getCause()
+                );
+            }
+        }
+        // the sizes of the migrated graphs changed
+        DataManager.rescanSavedGraphInfos().get();
+        System.out.println(
+          migrated + " of " + identifiers.size() + " graphs migrated, "
+          + failed + " failed"
+        );
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    // Returns the identifiers of the graph directories of graphsDir
+    private static List<UUID> listGraphs(Path graphsDir) throws IOException {
+        List<UUID> identifiers = new ArrayList<>();
+        try (
+          DirectoryStream<Path> stream = Files.newDirectoryStream(graphsDir)
+        ) {
+            for (Path path: stream) {
+                if (!Files.isDirectory(path))
+                    continue;
+                try {
+                    identifiers.add(
+                      UUID.fromString(path.getFileName().toString())
+                    );
+                } catch (IllegalArgumentException iae) {
+                    // not a graph directory
+                }
+            }
+        }
+        return identifiers;
+    }
+}
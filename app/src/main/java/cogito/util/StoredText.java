@@ -0,0 +1,138 @@
+package cogito.util;
+
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A text stored in a file of the store, read when first requested.
+ *
+ * Once read, a text is softly referenced, so that the garbage collector can
+ * drop it under memory pressure, in which case it is read again when next
+ * requested.
+ *
+ * As a text can only be read while the file it is stored in is unchanged,
+ * the texts stored in a file must be pinned, that is, read and strongly
+ * referenced, before the file is replaced or deleted.
+ */
+final class StoredText implements Supplier<String> {
+
+    // The texts not pinned yet by source, weakly referenced so that the texts
+    // of the graphs no longer used are forgotten, guarded by itself
+    private static final Map<Path, Set<StoredText>> TEXTS = new HashMap<>();
+
+    // Reads the text from its file
+    private final TextLoader loader;
+
+    // The text once read, until the garbage collector drops it
+    private volatile SoftReference<String> cache;
+
+    // The text once pinned
+    private volatile String pinned;
+
+    private StoredText(TextLoader loader) {
+        this.loader = loader;
+        this.cache = new SoftReference<>(null);
+        this.pinned = null;
+    }
+
+    /**
+     * Returns a text read by loader when requested.
+     *
+     * @param source The path of the file, or of the directory of the files,
+     *        the text is read from, which must be given to pin before they
+     *        are replaced or deleted.
+     * @param loader Reads the text.
+     * @return The text read by loader.
+     */
+    static StoredText of(Path source, TextLoader loader) {
+        StoredText text = new StoredText(loader);
+        synchronized (TEXTS) {
+            TEXTS.computeIfAbsent(
+              source,
+              path -> Collections.newSetFromMap(new WeakHashMap<>())
+            ).add(text);
+        }
+        return text;
+    }
+
+    /**
+     * Reads the texts stored in source, and keeps them in memory, so that
+     * source can be replaced or deleted.
+     *
+     * @param source The path given when creating the texts to pin.
+     * @throws IOException if an I/O error occurred while reading a text.
+     */
+    static void pin(Path source) throws IOException {
+        Set<StoredText> texts;
+        synchronized (TEXTS) {
+            texts = TEXTS.remove(source);
+        }
+        if (texts == null)
+            return;
+        try {
+            for (StoredText text: texts)
+                text.pin();
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+    }
+
+    /**
+     * Returns the text, reading it if it is not in memory.
+     *
+     * @return The text.
+     * @throws UncheckedIOException if an I/O error occurred while reading the
+     *         text.
+     */
+    @Override
+    public String get() {
+        String text = this.pinned;
+        if (text == null)
+            text = this.cache.get();
+        return (text != null) ? text : this.load();
+    }
+
+    // Reads the text and keeps it in memory for good.
+    private synchronized void pin() {
+        this.pinned = this.get();
+    }
+
+    // Reads the text, unless another thread did, locked so that the file is
+    // not replaced by a pinning thread during the read.
+    private synchronized String load() {
+        String text = this.pinned;
+        if (text == null)
+            text = this.cache.get();
+        if (text != null)
+            return text;
+        try {
+            text = this.loader.load();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        this.cache = new SoftReference<>(text);
+        return text;
+    }
+
+    /**
+     * Reads a text from its file.
+     */
+    interface TextLoader {
+
+        /**
+         * Reads the text.
+         *
+         * @return The text read.
+         * @throws IOException if an I/O error occurred.
+         */
+        String load() throws IOException;
+    }
+}
@@ -0,0 +1,221 @@
+package cogito.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import cogito.model.Node;
+
+/**
+ * Encodes texts as records that are compressed when it pays off.
+ *
+ * A record starts with a method byte. A STORED record is followed by the
+ * encoded text. A DEFLATED record is followed by the length in bytes of the
+ * encoded text and by the zlib stream of the encoded text, compressed with
+ * a preset dictionary of frequent words shared by all the records, so that
+ * even a single note compresses well.
+ *
+ * Texts shorter than a threshold are stored, as well as texts that would not
+ * be smaller once compressed, and every text when compression is disabled by
+ * the system property COMPRESSION_PROPERTY.
+ */
+final class TextCodec implements Closeable {
+
+    /**
+     * The method byte of a record holding the encoded text.
+     */
+    static final byte STORED = 0;
+
+    /**
+     * The method byte of a record holding the compressed encoded text.
+     */
+    static final byte DEFLATED = 1;
+
+    // The system property that disables compression when set to false.
+    static final String COMPRESSION_PROPERTY = "cogito.storage.compression";
+
+    // Minimal size in bytes of the encoded texts that are compressed.
+    static final int THRESHOLD = 256;
+
+    // Size in bytes of the header of a DEFLATED record.
+    private static final int DEFLATED_HEADER_SIZE = 5;
+
+    // The preset dictionary, the most frequent words last as the distances
+    // to them are then the shortest.
+    private static final String DICTIONARY =
+        "http://https://www. .com .org .html example, "
+        + "because however therefore although between through during "
+        + "before after should would could might about which there "
+        + "their other these those where while when what with from "
+        + "information important question answer example problem idea "
+        + "note notes see also related following first second third "
+        + "number system process result value different same each "
+        + "into over under more most some such only also than then "
+        + "them they this that have has had been were was are is "
+        + "not but for and the of to in a an it on as at by or be "
+        + ". The , and , the . It . This . In ";
+
+    // The encodings of the dictionary, by charset.
+    private static final Map<Charset, byte[]> DICTIONARIES =
+        new ConcurrentHashMap<>();
+
+    // Error messages
+    private static final String CORRUPTED_RECORD_ERROR =
+        "Corrupted text record";
+    private static final String UNKNOWN_METHOD_ERROR =
+        "Unknown text record method: ";
+
+    // The encoding of the texts.
+    private final Charset charset;
+
+    // Compresses the texts, reset between records.
+    private final Deflater deflater;
+
+    // Receives the compressed bytes.
+    private final byte[] chunk;
+
+    /**
+     * Creates a codec of the texts encoded with charset. It holds native
+     * resources until it is closed.
+     *
+     * @param charset The encoding of the texts.
+     */
+    TextCodec(Charset charset) {
+        this.charset = charset;
+        this.deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        this.chunk = new byte[4096];
+    }
+
+    /**
+     * Indicates if the records written are compressed when it pays off, that
+     * is unless the system property COMPRESSION_PROPERTY is false.
+     *
+     * @return True if and only if compression is enabled.
+     */
+    static boolean isCompressionEnabled() {
+        return !"false".equalsIgnoreCase(
+          System.getProperty(COMPRESSION_PROPERTY)
+        );
+    }
+
+    /**
+     * Returns the record of text, DEFLATED if compression is enabled, if the
+     * encoded text is at least THRESHOLD bytes and if compressing it makes
+     * the record smaller, STORED otherwise.
+     *
+     * @param text The text to encode.
+     * @return The record of text.
+     */
+    byte[] encode(String text) {
+        byte[] bytes = text.getBytes(this.charset);
+        if (bytes.length >= THRESHOLD && isCompressionEnabled()) {
+            byte[] record = this.deflate(bytes);
+            if (record.length < bytes.length + 1)
+                return record;
+        }
+        byte[] record = new byte[bytes.length + 1];
+        record[0] = STORED;
+        System.arraycopy(bytes, 0, record, 1, bytes.length);
+        return record;
+    }
+
+    /**
+     * Decodes the text of a record.
+     *
+     * @param record The bytes holding the record.
+     * @param offset The position of the record in record.
+     * @param length The size of the record in bytes.
+     * @param charset The encoding of the text.
+     * @return The text of the record.
+     * @throws IOException if the record is not valid.
+     */
+    static String decode(
+      byte[] record,
+      int offset,
+      int length,
+      Charset charset
+    ) throws IOException {
+        if (length < 1)
+            throw new IOException(CORRUPTED_RECORD_ERROR);
+        byte method = record[offset];
+        if (method == STORED)
+            return new String(record, offset + 1, length - 1, charset);
+        if (method != DEFLATED)
+            throw new IOException(UNKNOWN_METHOD_ERROR + method);
+        if (length < DEFLATED_HEADER_SIZE)
+            throw new IOException(CORRUPTED_RECORD_ERROR);
+        int size = ByteBuffer.wrap(record, offset + 1, 4).getInt();
+        if (size < 0 || size > maxSize(charset))
+            throw new IOException(CORRUPTED_RECORD_ERROR);
+        byte[] bytes = new byte[size];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(
+              record,
+              offset + DEFLATED_HEADER_SIZE,
+              length - DEFLATED_HEADER_SIZE
+            );
+            int read = 0;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(bytes, read, size - read);
+                read += n;
+                if (n > 0)
+                    continue;
+                if (inflater.needsDictionary())
+                    inflater.setDictionary(dictionary(charset));
+                else
+                    throw new IOException(CORRUPTED_RECORD_ERROR);
+            }
+            if (read != size)
+                throw new IOException(CORRUPTED_RECORD_ERROR);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException(CORRUPTED_RECORD_ERROR, e);
+        } finally {
+            inflater.end();
+        }
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public void close() {
+        this.deflater.end();
+    }
+
+    // returns the DEFLATED record of the encoded text bytes
+    private byte[] deflate(byte[] bytes) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(
+          bytes.length / 2
+        );
+        record.write(DEFLATED);
+        record.writeBytes(
+          ByteBuffer.allocate(4).putInt(bytes.length).array()
+        );
+        this.deflater.reset();
+        this.deflater.setDictionary(dictionary(this.charset));
+        this.deflater.setInput(bytes);
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            int n = this.deflater.deflate(this.chunk);
+            record.write(this.chunk, 0, n);
+        }
+        return record.toByteArray();
+    }
+
+    // the size in bytes of the longest encoding with charset of a text of
+    // Node.MAX_TEXT_LEN characters, which bounds the size of a record read
+    private static int maxSize(Charset charset) {
+        float maxBytesPerChar = charset.newEncoder().maxBytesPerChar();
+        return (int)Math.ceil(maxBytesPerChar * Node.MAX_TEXT_LEN);
+    }
+
+    // the preset dictionary encoded with charset
+    private static byte[] dictionary(Charset charset) {
+        return DICTIONARIES.computeIfAbsent(charset, DICTIONARY::getBytes);
+    }
+}
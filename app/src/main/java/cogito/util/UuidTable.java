@@ -0,0 +1,143 @@
+package cogito.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Indexes distinct UUIDs, given as pairs of longs, by order of addition.
+ *
+ * The UUIDs are stored in primitive arrays, with open addressing, so that
+ * neither the lookups nor the additions allocate UUID objects.
+ */
+final class UuidTable {
+
+    // Initial number of slots, a power of two.
+    private static final int INITIAL_CAPACITY = 16;
+
+    // The most and least significant bits of the UUIDs, by index.
+    private long[] msbs;
+    private long[] lsbs;
+
+    // The index of the UUID of each slot.
+    private int[] slots;
+
+    // The generation each slot was filled at, a slot being empty unless it
+    // was filled at the current generation, so that clearing is immediate.
+    private int[] stamps;
+    private int generation;
+
+    // The number of UUIDs of this table.
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    UuidTable() {
+        this.msbs = new long[INITIAL_CAPACITY / 2];
+        this.lsbs = new long[INITIAL_CAPACITY / 2];
+        this.slots = new int[INITIAL_CAPACITY];
+        this.stamps = new int[INITIAL_CAPACITY];
+        this.generation = 1;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of UUIDs of this table.
+     *
+     * @return The number of UUIDs added since this table was created or
+     *         cleared.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the index of a UUID, or -1 if it is not in this table.
+     *
+     * @param msb The most significant bits of the UUID.
+     * @param lsb The least significant bits of the UUID.
+     * @return The index of the UUID, in [0; size()[, or -1.
+     */
+    int indexOf(long msb, long lsb) {
+        int mask = this.slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (this.stamps[slot] == this.generation) {
+            int index = this.slots[slot];
+            if (this.msbs[index] == msb && this.lsbs[index] == lsb)
+                return index;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a UUID to this table, unless it is already.
+     *
+     * @param msb The most significant bits of the UUID.
+     * @param lsb The least significant bits of the UUID.
+     * @return The index of the UUID, size() - 1 if it was added.
+     */
+    int add(long msb, long lsb) {
+        int mask = this.slots.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (this.stamps[slot] == this.generation) {
+            int index = this.slots[slot];
+            if (this.msbs[index] == msb && this.lsbs[index] == lsb)
+                return index;
+            slot = (slot + 1) & mask;
+        }
+        if (this.size == this.msbs.length) {
+            this.grow();
+            return this.add(msb, lsb);
+        }
+        int index = this.size++;
+        this.msbs[index] = msb;
+        this.lsbs[index] = lsb;
+        this.slots[slot] = index;
+        this.stamps[slot] = this.generation;
+        return index;
+    }
+
+    /**
+     * Returns the UUID of given index.
+     *
+     * @param index An index in [0; size()[.
+     * @return The UUID of given index.
+     */
+    UUID get(int index) {
+        return new UUID(this.msbs[index], this.lsbs[index]);
+    }
+
+    /**
+     * Removes all the UUIDs of this table, keeping its capacity.
+     */
+    void clear() {
+        this.size = 0;
+        if (++this.generation == 0) { // wrapped, forget all the stamps
+            Arrays.fill(this.stamps, 0);
+            this.generation = 1;
+        }
+    }
+
+    // Doubles the capacity, keeping the slots at most half full.
+    private void grow() {
+        int capacity = this.slots.length * 2;
+        long[] msbs = Arrays.copyOf(this.msbs, capacity / 2);
+        long[] lsbs = Arrays.copyOf(this.lsbs, capacity / 2);
+        int size = this.size;
+        this.msbs = msbs;
+        this.lsbs = lsbs;
+        this.slots = new int[capacity];
+        this.stamps = new int[capacity];
+        this.generation = 1;
+        this.size = 0;
+        for (int i = 0; i < size; i++)
+            this.add(msbs[i], lsbs[i]);
+    }
+
+    // Mixes the bits of a UUID, as random UUIDs have fixed version bits.
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
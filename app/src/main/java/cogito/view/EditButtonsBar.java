@@ -4,11 +4,25 @@ import java.util.Objects;
 import java.awt.Dimension;
 import java.awt.Color;
 import java.awt.FlowLayout;
+import java.awt.Rectangle;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import cogito.controller.GraphEditorMouseController;
 import cogito.controller.AddNodeController;
 import cogito.controller.SelectNodeController;
@@ -17,7 +31,10 @@ import cogito.controller.RemoveNodeController;
 import cogito.controller.UnlinkNodeController;
 import cogito.controller.ExplorationController;
 import cogito.model.Graph;
+import cogito.model.Node;
+import cogito.util.AutosaveService;
 import cogito.util.DataManager;
+import cogito.util.SearchIndex;
 
 /**
  * Groups the control buttons of the graph view.
@@ -59,8 +76,37 @@ public class EditButtonsBar extends JPanel {
      */
     private FrameManager frameManager;
 
+    /**
+     * Saves the graph model in the background when it is modified.
+     */
+    private AutosaveService autosaveService;
+
+    /**
+     * Shows the status of the autosave service.
+     */
+    private JLabel saveStatusLabel;
+
+    /**
+     * The search index of the graph model, opened in the background.
+     */
+    private CompletableFuture<SearchIndex> searchIndex;
+
+    /**
+     * The query typed by the user.
+     */
+    private JTextField searchField;
+
+    /**
+     * The nodes matching the last query searched, and the position of the
+     * one shown in them.
+     */
+    private String lastQuery;
+    private List<UUID> searchResults;
+    private int searchPosition;
+
     private JPanel graphButtonsPane;
     private JPanel generalButtonsPane;
+    private JPanel searchPane;
 
     // Error messages
     private static final String NULL_GRAPH_VIEW_ERROR =
@@ -97,6 +143,7 @@ public class EditButtonsBar extends JPanel {
         this.generalButtonsPane = EditButtonsBar.createButtonsSubPane(
           "General"
         );
+        this.searchPane = EditButtonsBar.createButtonsSubPane("Search");
 
         this.currentController = new AddNodeController(
           this.graphView,
@@ -106,6 +153,21 @@ public class EditButtonsBar extends JPanel {
         this.currentController.enable();
         this.frameManager = frameManager;
 
+        this.saveStatusLabel = new JLabel();
+        this.autosaveService = new AutosaveService(this.graphModel);
+        this.autosaveService.subscribe(
+          data -> SwingUtilities.invokeLater(this::updateSaveStatus)
+        );
+        this.updateSaveStatus();
+
+        this.searchIndex = CompletableFuture.supplyAsync(() -> {
+            try {
+                return DataManager.openSearchIndex(this.graphModel);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        });
+
         // Layout
         FlowLayout layout = new FlowLayout(FlowLayout.LEADING);
         this.setLayout(layout);
@@ -225,24 +287,40 @@ public class EditButtonsBar extends JPanel {
         // Save graph button
         JButton saveGraphButton = new JButton("Save");
         saveGraphButton.addActionListener(
-          al -> this.saveGraph()
+          al -> this.autosaveService.saveNow()
         );
         this.generalButtonsPane.add(saveGraphButton);
 
+        // Export graph button
+        JButton exportGraphButton = new JButton("Export");
+        exportGraphButton.addActionListener(
+          al -> this.exportGraph(exportGraphButton)
+        );
+        this.generalButtonsPane.add(exportGraphButton);
+
         // Back to main screen button
         JButton backToMainScreenButton = new JButton("Back to main screen");
         backToMainScreenButton.addActionListener(
-          al -> {
-              this.saveGraph();
-              this.frameManager.setCurrentScreen(
-                new MainScreen(this.frameManager)
-              );
-          }
+          al -> this.backToMainScreen(backToMainScreenButton)
         );
         this.generalButtonsPane.add(backToMainScreenButton);
+        this.generalButtonsPane.add(this.saveStatusLabel);
+
+        // Search field and button, the next match being shown on each
+        // search of the same query
+        this.searchField = new JTextField(12);
+        this.searchField.setToolTipText(
+          "Words, \"phrases\" and prefix* of titles and information"
+        );
+        this.searchField.addActionListener(al -> this.searchNext());
+        this.searchPane.add(this.searchField);
+        JButton findButton = new JButton("Find");
+        findButton.addActionListener(al -> this.searchNext());
+        this.searchPane.add(findButton);
 
         this.add(this.graphButtonsPane);
         this.add(this.generalButtonsPane);
+        this.add(this.searchPane);
     }
 
     @Override
@@ -250,22 +328,163 @@ public class EditButtonsBar extends JPanel {
         return new Dimension(this.preferredWidth, this.preferredHeight);
     }
 
-    private void saveGraph() {
-        try {
-            DataManager.saveGraph(this.graphModel);
+    // Exports the graph to a file chosen by the user in the background,
+    // button being disabled meanwhile. The file is a GraphML file unless
+    // its name ends with the extension of CSV edge lists.
+    private void exportGraph(JButton button) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter(
+          "GraphML files and CSV edge lists",
+          DataManager.GRAPHML_EXTENSION.substring(1),
+          DataManager.CSV_EXTENSION.substring(1)
+        ));
+        int choice = chooser.showSaveDialog(this.graphView.getAppFrame());
+        if (choice != JFileChooser.APPROVE_OPTION)
+            return;
+        Path file = chooser.getSelectedFile().toPath();
+        String name = file.getFileName().toString().toLowerCase();
+        if (
+          !name.endsWith(DataManager.GRAPHML_EXTENSION)
+          && !name.endsWith(DataManager.CSV_EXTENSION)
+        ) {
+            file = file.resolveSibling(
+              file.getFileName() + DataManager.GRAPHML_EXTENSION
+            );
+        }
+        Path target = file;
+        button.setEnabled(false);
+        CompletableFuture.runAsync(() -> {
+            try {
+                DataManager.exportGraph(this.graphModel, target);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            button.setEnabled(true);
+            if (error == null)
+                return;
+            Throwable cause = error;
+            if (cause instanceof CompletionException)
+                cause = cause.getCause();
+            if (cause instanceof UncheckedIOException)
+                cause = cause.getCause();
             JOptionPane.showMessageDialog(
               this.graphView.getAppFrame(),
-              "Graph succesfully saved!",
-              "Succes",
-              JOptionPane.INFORMATION_MESSAGE
+              cause.getMessage(),
+              "Graph could not be exported",
+              JOptionPane.ERROR_MESSAGE
+            );
+        }));
+    }
+
+    // Saves the graph in the background, committing it as a version, button
+    // being disabled and the save status shown meanwhile, then closes the
+    // search index and shows the main screen, so that the graph can not be
+    // opened again before its last save.
+    private void backToMainScreen(JButton button) {
+        button.setEnabled(false);
+        Future<?> lastSave = this.autosaveService.close();
+        CompletableFuture.runAsync(() -> {
+            try {
+                lastSave.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ee) {
+                // whatever its error, a failed save sets the status of the
+                // service to FAILED
+            }
+        }).thenRun(() -> SwingUtilities.invokeLater(() -> {
+            AutosaveService.Status status = this.autosaveService.getStatus();
+            if (status == AutosaveService.Status.FAILED) {
+                JOptionPane.showMessageDialog(
+                  this.graphView.getAppFrame(),
+                  this.autosaveService.getLastError().getMessage(),
+                  "Graph could not be saved",
+                  JOptionPane.ERROR_MESSAGE
+                );
+            }
+            this.searchIndex.thenAcceptAsync(DataManager::closeSearchIndex);
+            this.frameManager.setCurrentScreen(
+              new MainScreen(this.frameManager)
+            );
+        }));
+    }
+
+    // Shows the next node matching the query of the search field, the first
+    // one if the query changed, once the search index is open.
+    private void searchNext() {
+        String query = this.searchField.getText();
+        if (!this.searchIndex.isDone()) {
+            this.searchField.setEnabled(false);
+            this.searchIndex.whenComplete(
+              (index, error) -> SwingUtilities.invokeLater(() -> {
+                  this.searchField.setEnabled(true);
+                  this.searchNext();
+              })
             );
-        } catch (IOException ioe) {
+            return;
+        }
+        SearchIndex index;
+        try {
+            index = this.searchIndex.join();
+        } catch (CompletionException ce) {
             JOptionPane.showMessageDialog(
               this.graphView.getAppFrame(),
-              "I/O error: " + ioe.getMessage(),
-              "Graph could not be saved",
+              ce.getCause().getMessage(),
+              "Graph could not be indexed",
               JOptionPane.ERROR_MESSAGE
             );
+            return;
+        }
+        if (!query.equals(this.lastQuery)) {
+            this.lastQuery = query;
+            this.searchResults = index.search(query);
+            this.searchPosition = -1;
+        }
+        // the nodes removed since the search are skipped
+        for (int i = 0; i < this.searchResults.size(); i++) {
+            this.searchPosition =
+                (this.searchPosition + 1) % this.searchResults.size();
+            Node node = this.graphModel.getNode(
+              this.searchResults.get(this.searchPosition)
+            );
+            if (node != null) {
+                this.showNode(node);
+                return;
+            }
+        }
+        this.searchField.selectAll();
+    }
+
+    // Centers the rectangle view on node and shows its details.
+    private void showNode(Node node) {
+        Rectangle rect = this.graphView.getRectangleView();
+        rect.setLocation(
+          node.getX() - rect.width / 2,
+          node.getY() - rect.height / 2
+        );
+        this.graphView.updateRectangleView(rect);
+        this.detailedNodeView.setModel(node);
+    }
+
+    // Shows the current status of the autosave service, on the EDT.
+    private void updateSaveStatus() {
+        switch (this.autosaveService.getStatus()) {
+            case SAVED:
+                this.saveStatusLabel.setText("All changes saved");
+                break;
+            case MODIFIED:
+                this.saveStatusLabel.setText("Unsaved changes");
+                break;
+            case SAVING:
+                this.saveStatusLabel.setText("Saving...");
+                break;
+            case FAILED:
+                this.saveStatusLabel.setText(
+                  "Save failed: "
+                  + this.autosaveService.getLastError().getMessage()
+                );
+                break;
         }
     }
 
@@ -28,6 +28,7 @@ import java.awt.event.MouseEvent;
 import cogito.util.Pair;
 import cogito.model.Graph;
 import cogito.model.Node;
+import cogito.model.Viewport;
 
 /**
  * View of the graph model.
@@ -42,6 +43,9 @@ public class GraphView extends JPanel implements Observer,
     // The model represented by this GraphView.
     private Graph model;
 
+    // The part of the graph that is visible in the rectangle view.
+    private Viewport viewport;
+
     // The part of the graph that is visible in the rectangle view, as a Graph.
     private Map<Node, ArrayList<Node>> visibleModel;
 
@@ -101,7 +105,8 @@ public class GraphView extends JPanel implements Observer,
         this.rect = new Rectangle(0, 0, width, height);
         this.beginTransRect = new Rectangle(this.rect);
 
-        this.visibleModel = this.model.getSubGraphInRectangle(this.rect);
+        this.viewport = new Viewport(this.model, this.rect);
+        this.visibleModel = this.viewport.getSubGraph();
 
         this.preferredWidth = width;
         this.preferredHeight = height;
@@ -128,8 +133,14 @@ public class GraphView extends JPanel implements Observer,
         Objects.requireNonNull(object, NULL_OBJECT_ERROR);
         if (!(object instanceof Graph))
             throw new IllegalArgumentException(NOT_A_GRAPH_ERROR);
-        this.model = (Graph)object;
-        this.updateRectangleView(this.rect);
+        Graph graph = (Graph)object;
+        if (graph != this.model) {
+            this.model = graph;
+            this.viewport = new Viewport(this.model, this.rect);
+            this.visibleModel = this.viewport.getSubGraph();
+        } else
+            this.viewport.reset(this.rect);
+        this.refresh();
     }
 
     // Loads the node views
@@ -348,10 +359,13 @@ public class GraphView extends JPanel implements Observer,
 
     /**
      * Updates the rectangle view and this graph view accordingly.
+     *
+     * Only the part of the graph that entered or left the rectangle view is
+     * computed, the model is assumed unchanged since the last update.
      */
     public void updateRectangleView(Rectangle newRect) {
         this.rect = new Rectangle(newRect);
-        this.visibleModel = this.model.getSubGraphInRectangle(this.rect);
+        this.viewport.moveTo(this.rect);
         this.refresh();
     }
 
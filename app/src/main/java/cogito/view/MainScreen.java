@@ -5,6 +5,7 @@ import javax.swing.BorderFactory;
 import java.awt.BorderLayout;
 import javax.swing.Box;
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JOptionPane;
@@ -12,15 +13,25 @@ import javax.swing.JList;
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.Dimension;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import cogito.model.Graph;
+import cogito.model.ConcurrentGraph;
 import cogito.model.GraphInfo;
+import cogito.model.GraphVersion;
 import cogito.model.Node;
 import cogito.util.DataManager;
 
@@ -57,6 +68,16 @@ public class MainScreen extends Screen implements ListSelectionListener {
      */
     private JButton openButton;
 
+    /**
+     * Import graph button.
+     */
+    private JButton importButton;
+
+    /**
+     * Graph history button.
+     */
+    private JButton historyButton;
+
     /**
      * Name and identifier of saved graphs.
      */
@@ -85,6 +106,7 @@ public class MainScreen extends Screen implements ListSelectionListener {
         try {
             this.graphInfos = DataManager.getSavedGraphInfos();
         } catch (Exception e) {
+            this.graphInfos = new ArrayList<>(); // filled by the rescan
             JOptionPane.showMessageDialog(
               frameManager.getAppFrame(),
               "Could not retrieve saved graphs.",
@@ -121,7 +143,7 @@ public class MainScreen extends Screen implements ListSelectionListener {
               if (input == null) // click on cancel
                   return;
               try {
-                  Graph model = new Graph(input);
+                  Graph model = new ConcurrentGraph(input);
                   this.frameManager.setCurrentScreen(
                     new GraphEditor(this.frameManager, model)
                   );
@@ -180,6 +202,21 @@ public class MainScreen extends Screen implements ListSelectionListener {
         );
         this.openButton.setEnabled(false);
 
+        // Imports a graph from a GraphML file or a CSV edge list
+        this.importButton = createNamedButton(
+          "Import",
+          KeyEvent.VK_I,
+          al -> this.importGraph()
+        );
+
+        // Restores a version of the selected graph
+        this.historyButton = createNamedButton(
+          "History",
+          KeyEvent.VK_H,
+          al -> this.showHistory()
+        );
+        this.historyButton.setEnabled(false);
+
         JPanel buttonPane = new JPanel();
         buttonPane.setLayout(new BoxLayout(buttonPane, BoxLayout.LINE_AXIS));
         buttonPane.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
@@ -187,9 +224,151 @@ public class MainScreen extends Screen implements ListSelectionListener {
         buttonPane.add(this.openButton);
         buttonPane.add(Box.createRigidArea(new Dimension(10, 0)));
         buttonPane.add(this.newButton);
+        buttonPane.add(Box.createRigidArea(new Dimension(10, 0)));
+        buttonPane.add(this.importButton);
+        buttonPane.add(Box.createRigidArea(new Dimension(10, 0)));
+        buttonPane.add(this.historyButton);
 
         this.add(listPane, BorderLayout.CENTER);
         this.add(buttonPane, BorderLayout.PAGE_END);
+
+        // the catalog may lag behind the graphs directory
+        DataManager.rescanSavedGraphInfos().thenAccept(
+          infos -> SwingUtilities.invokeLater(() -> this.setGraphInfos(infos))
+        );
+    }
+
+    // Imports the graph of a file chosen by the user and saves it in the
+    // background, then opens it
+    private void importGraph() {
+        JFrame appFrame = this.frameManager.getAppFrame();
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter(
+          "GraphML files and CSV edge lists",
+          DataManager.GRAPHML_EXTENSION.substring(1),
+          DataManager.CSV_EXTENSION.substring(1)
+        ));
+        if (chooser.showOpenDialog(appFrame) != JFileChooser.APPROVE_OPTION)
+            return;
+        Path file = chooser.getSelectedFile().toPath();
+        this.importButton.setEnabled(false);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                Graph model = DataManager.importGraph(file);
+                DataManager.saveGraph(model);
+                return model;
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }).whenComplete((model, error) -> SwingUtilities.invokeLater(() -> {
+            this.importButton.setEnabled(true);
+            if (error == null) {
+                this.frameManager.setCurrentScreen(
+                  new GraphEditor(this.frameManager, model)
+                );
+                return;
+            }
+            Throwable cause = error;
+            if (cause instanceof CompletionException)
+                cause = cause.getCause();
+            if (cause instanceof UncheckedIOException)
+                cause = cause.getCause();
+            JOptionPane.showMessageDialog(
+              appFrame,
+              cause.getMessage(),
+              "Could not import graph",
+              JOptionPane.ERROR_MESSAGE
+            );
+        }));
+    }
+
+    // Lists the versions of the selected graph, the last one first, and
+    // restores the one chosen by the user in the background, then opens it
+    private void showHistory() {
+        JFrame appFrame = this.frameManager.getAppFrame();
+        GraphInfo selected = (GraphInfo)this.graphNames.getSelectedValue();
+        if (selected == null)
+            return;
+        List<GraphVersion> versions;
+        try {
+            versions = new ArrayList<>(
+              DataManager.getGraphVersions(selected.identifier())
+            );
+        } catch (IOException ioe) {
+            JOptionPane.showMessageDialog(
+              appFrame,
+              ioe.getMessage(),
+              "Could not read graph history",
+              JOptionPane.ERROR_MESSAGE
+            );
+            return;
+        }
+        if (versions.isEmpty()) {
+            JOptionPane.showMessageDialog(
+              appFrame,
+              "This graph has no saved version.",
+              "History of " + selected.name(),
+              JOptionPane.INFORMATION_MESSAGE
+            );
+            return;
+        }
+        Collections.reverse(versions);
+        JList<GraphVersion> versionList = new JList<>(
+          versions.toArray(new GraphVersion[0])
+        );
+        versionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        versionList.setSelectedIndex(0);
+        versionList.setVisibleRowCount(10);
+        int choice = JOptionPane.showConfirmDialog(
+          appFrame,
+          new JScrollPane(versionList),
+          "Restore a version of " + selected.name(),
+          JOptionPane.OK_CANCEL_OPTION,
+          JOptionPane.PLAIN_MESSAGE
+        );
+        GraphVersion version = versionList.getSelectedValue();
+        if (choice != JOptionPane.OK_OPTION || version == null)
+            return;
+        this.historyButton.setEnabled(false);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return DataManager.restoreGraphVersion(version);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }).whenComplete((model, error) -> SwingUtilities.invokeLater(() -> {
+            this.historyButton.setEnabled(true);
+            if (error == null) {
+                this.frameManager.setCurrentScreen(
+                  new GraphEditor(this.frameManager, model)
+                );
+                return;
+            }
+            Throwable cause = error;
+            if (cause instanceof CompletionException)
+                cause = cause.getCause();
+            if (cause instanceof UncheckedIOException)
+                cause = cause.getCause();
+            JOptionPane.showMessageDialog(
+              appFrame,
+              cause.getMessage(),
+              "Could not restore graph",
+              JOptionPane.ERROR_MESSAGE
+            );
+        }));
+    }
+
+    // Replaces the listed graphs by infos, keeping the selected graph
+    private void setGraphInfos(List<GraphInfo> infos) {
+        GraphInfo selected = (GraphInfo)this.graphNames.getSelectedValue();
+        this.graphInfos = infos;
+        this.graphNames.setListData(infos.toArray());
+        if (selected == null)
+            return;
+        for (GraphInfo info: infos) {
+            if (info.identifier().equals(selected.identifier()))
+                this.graphNames.setSelectedValue(info, true);
+        }
     }
 
     // Returns a named button, sets its mnemonic and action listener
@@ -211,10 +390,9 @@ public class MainScreen extends Screen implements ListSelectionListener {
         if (this.graphNames == null)
             return;
         if (e.getValueIsAdjusting() == false) {
-            if (this.graphNames.getSelectedIndex() == -1)
-                openButton.setEnabled(false);
-            else
-                openButton.setEnabled(true);
+            boolean selected = this.graphNames.getSelectedIndex() != -1;
+            openButton.setEnabled(selected);
+            historyButton.setEnabled(selected);
         }
     }
 }
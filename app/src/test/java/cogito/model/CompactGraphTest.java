@@ -0,0 +1,86 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.UUID;
+import cogito.TestUtils;
+
+class CompactGraphTest {
+    Graph graph;
+    Node n1;
+    Node n2;
+    Node n3;
+
+    @BeforeEach
+    void createTriangle() {
+        graph = new Graph();
+        n1 = new Node("1");
+        n2 = new Node("2");
+        n3 = new Node("3");
+        graph.add(n1);
+        graph.add(n2);
+        graph.add(n3);
+        graph.link(n1, n2);
+        graph.link(n1, n3);
+        graph.link(n2, n3);
+    }
+
+    @Test
+    void compactGraphOfEmptyGraphIsEmpty() {
+        CompactGraph sut = new Graph().toCompactGraph();
+        assertEquals(0, sut.nodeCount());
+        assertEquals(0, sut.edgeCount());
+    }
+
+    @Test
+    void compactGraphHasTheNodesAndLinksOfTheGraph() {
+        CompactGraph sut = graph.toCompactGraph();
+        assertEquals(3, sut.nodeCount());
+        assertEquals(3, sut.edgeCount());
+        int id1 = sut.idOf(n1);
+        assertEquals(n1, sut.getNode(id1));
+        assertEquals(n1.getUuid(), sut.getUuid(id1));
+        assertEquals(2, sut.neighborCount(id1));
+        Set<Node> neighbors = new HashSet<>();
+        sut.forEachNeighbor(id1, id -> neighbors.add(sut.getNode(id)));
+        assertEquals(Set.of(n2, n3), neighbors);
+        assertEquals(0, sut.neighborCount(sut.idOf(n3)));
+    }
+
+    @Test
+    void offsetsAndTargetsDescribeTheLinks() {
+        CompactGraph sut = graph.toCompactGraph();
+        int[] offsets = sut.getOffsets();
+        int[] targets = sut.getTargets();
+        int id2 = sut.idOf(n2);
+        assertEquals(1, offsets[id2 + 1] - offsets[id2]);
+        assertEquals(sut.idOf(n3), targets[offsets[id2]]);
+        assertEquals(targets.length, offsets[sut.nodeCount()]);
+    }
+
+    @Test
+    void compactGraphDoesNotReflectLaterChanges() {
+        CompactGraph sut = graph.toCompactGraph();
+        graph.unlink(n1, n2);
+        graph.add(new Node("4"));
+        assertEquals(3, sut.nodeCount());
+        assertEquals(3, sut.edgeCount());
+    }
+
+    @Test
+    void idOfAbsentNodeReturnsMinusOne() {
+        CompactGraph sut = graph.toCompactGraph();
+        assertEquals(-1, sut.idOf(new Node("absent")));
+        assertEquals(-1, sut.idOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void getNodeWithInvalidIdThrowsIAE() {
+        CompactGraph sut = graph.toCompactGraph();
+        TestUtils.assertThrowsIAEWithMsg("Invalid node identifier",
+                () -> sut.getNode(3));
+    }
+}
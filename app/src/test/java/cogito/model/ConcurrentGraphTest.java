@@ -0,0 +1,160 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.awt.Rectangle;
+import cogito.TestUtils;
+
+class ConcurrentGraphTest {
+    ConcurrentGraph sut;
+
+    @BeforeEach
+    void createNewGraph() {
+        sut = new ConcurrentGraph();
+    }
+
+    @Test
+    void addWithNullThrowsNPE() {
+        TestUtils.assertThrowsNPEWithMsg("Node must not be null",
+                () -> sut.add(null));
+    }
+
+    @Test
+    void viewsAreCopies() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        Set<Node> nodes = sut.getNodesView();
+        sut.add(n2);
+        assertEquals(Set.of(n1), nodes);
+    }
+
+    @Test
+    void batchAndNodeMovesDoNotDeadlock() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.batch(b -> b.add(n1).add(n2).link(n1, n2).move(n2, 300, 300));
+        n1.setX(600);
+        assertEquals(n1, sut.getNodeAt(600, 0, 0));
+        assertEquals(n2, sut.getNodeAt(300, 300, 0));
+    }
+
+    @Test
+    void readersTraverseWhileAWriterModifiesTheGraph() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Node node = new Node("n" + i, i, i);
+            nodes.add(node);
+            sut.add(node);
+        }
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            futures.add(readers.submit(() -> {
+                while (!done.get()) {
+                    sut.forEachNode(node -> sut.forEachNeighbor(node,
+                            neighbor -> assertTrue(sut.contains(neighbor))));
+                    sut.toCompactGraph();
+                }
+            }));
+        }
+        for (int i = 0; i < 2000; i++) {
+            Node src = nodes.get(i % nodes.size());
+            Node dst = nodes.get((i * 7 + 1) % nodes.size());
+            if (src.equals(dst))
+                continue;
+            if (sut.hasEdge(src, dst))
+                sut.unlink(src, dst);
+            else
+                sut.link(src, dst);
+            if (i % 100 == 0) {
+                Node removed = nodes.remove(nodes.size() - 1);
+                sut.remove(removed);
+            }
+        }
+        done.set(true);
+        for (Future<?> future: futures)
+            future.get(10, TimeUnit.SECONDS);
+        readers.shutdown();
+        assertEquals(nodes.size(), sut.size());
+    }
+
+    @Test
+    void readersSeeMovedNodesWhereTheSpatialIndexHasThem() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Node node = new Node("n" + i, 1000 * i, 0);
+            nodes.add(node);
+            sut.add(node);
+        }
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            futures.add(readers.submit(() -> {
+                while (!done.get()) {
+                    sut.forEachNode(node -> assertEquals(
+                      node,
+                      sut.getNodeAt(node.getX(), node.getY(), 0)
+                    ));
+                }
+            }));
+        }
+        for (int k = 1; k < 2000; k++) {
+            for (int i = 0; i < nodes.size(); i++)
+                nodes.get(i).setX(1000 * i + k);
+        }
+        done.set(true);
+        for (Future<?> future: futures)
+            future.get(10, TimeUnit.SECONDS);
+        readers.shutdown();
+    }
+
+    @Test
+    void viewportsAreBuiltWhileAWriterModifiesTheGraph() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Node node = new Node("n" + i, i, i);
+            nodes.add(node);
+            sut.add(node);
+        }
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            futures.add(readers.submit(() -> {
+                while (!done.get()) {
+                    Viewport viewport = new Viewport(
+                      sut,
+                      new Rectangle(0, 0, 50, 50)
+                    );
+                    viewport.moveTo(new Rectangle(25, 25, 50, 50));
+                }
+            }));
+        }
+        for (int i = 0; i < 20000; i++) {
+            Node src = nodes.get(i % nodes.size());
+            Node dst = nodes.get((i * 7 + 1) % nodes.size());
+            if (src.equals(dst))
+                continue;
+            if (sut.hasEdge(src, dst))
+                sut.unlink(src, dst);
+            else
+                sut.link(src, dst);
+        }
+        done.set(true);
+        for (Future<?> future: futures)
+            future.get(10, TimeUnit.SECONDS);
+        readers.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import cogito.TestUtils;
+
+class GraphBatchTest {
+    Graph graph;
+    AtomicInteger updates;
+
+    @BeforeEach
+    void createNewGraph() {
+        graph = new Graph();
+        updates = new AtomicInteger();
+        graph.subscribe(object -> updates.incrementAndGet());
+    }
+
+    @Test
+    void batchWithNullEditsThrowsNPE() {
+        TestUtils.assertThrowsNPEWithMsg("Edits can not be null",
+                () -> graph.batch(null));
+    }
+
+    @Test
+    void batchAppliesEveryModificationAndUpdatesObserversOnce() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        Node n3 = new Node("3");
+        graph.batch(b -> b.add(n1)
+                          .add(n2)
+                          .add(n3)
+                          .link(n1, n2)
+                          .link(n2, n3)
+                          .unlink(n1, n2)
+                          .move(n3, 500, 600)
+                          .remove(n1));
+        assertEquals(2, graph.size());
+        assertFalse(graph.contains(n1));
+        assertEquals(List.of(n3), graph.getNodesLinkedTo(n2));
+        assertEquals(n3, graph.getNodeAt(500, 600, 0));
+        assertEquals(1, updates.get());
+    }
+
+    @Test
+    void invalidBatchLeavesGraphUnchanged() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        graph.add(n1);
+        TestUtils.assertThrowsIAEWithMsg(
+          "Node not in graph",
+          () -> graph.batch(b -> b.add(n2).remove(n2).link(n1, n2))
+        );
+        assertEquals(1, graph.size());
+        assertFalse(graph.contains(n2));
+        assertEquals(0, updates.get());
+    }
+
+    @Test
+    void linkTwiceInBatchThrowsIAE() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        TestUtils.assertThrowsIAEWithMsg(
+          "Nodes already linked",
+          () -> graph.batch(b -> b.add(n1).add(n2).link(n1, n2).link(n1, n2))
+        );
+        assertEquals(0, graph.size());
+    }
+
+    @Test
+    void linkAfterRemovingAndAddingBackANodeIsValid() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+        graph.batch(b -> b.remove(n2).add(n2).link(n1, n2));
+        assertTrue(graph.hasEdge(n1, n2));
+    }
+
+    @Test
+    void batchUsedAfterCommitThrowsISE() {
+        GraphBatch[] kept = new GraphBatch[1];
+        graph.batch(b -> kept[0] = b);
+        assertThrows(IllegalStateException.class,
+                () -> kept[0].add(new Node("late")));
+    }
+}
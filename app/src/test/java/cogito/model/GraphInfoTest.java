@@ -30,4 +30,13 @@ class GraphInfoTest {
         GraphInfo sut = new GraphInfo("test", UUID.randomUUID());
         assertEquals("test", sut.toString());
     }
+
+    @Test
+    void graphInfoOfNameAndUuidHasAnEmptySummary() {
+        GraphInfo sut = new GraphInfo("test", UUID.randomUUID());
+        assertEquals(0, sut.nodeCount());
+        assertEquals(0, sut.edgeCount());
+        assertEquals(0, sut.lastModified());
+        assertEquals(0, sut.byteSize());
+    }
 }
@@ -0,0 +1,162 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.List;
+import java.util.ArrayList;
+
+class GraphSnapshotTest {
+    Graph graph;
+    Node n1;
+    Node n2;
+
+    @BeforeEach
+    void createGraph() {
+        graph = new Graph("test");
+        n1 = new Node("1", 10, 20);
+        n2 = new Node("2");
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+    }
+
+    @Test
+    void snapshotHasTheStateOfTheGraph() {
+        GraphSnapshot sut = graph.snapshot();
+        assertEquals("test", sut.getName());
+        assertEquals(graph.getUuid(), sut.getUuid());
+        assertEquals(2, sut.size());
+        assertEquals(1, sut.edgeCount());
+        assertTrue(sut.hasEdge(n1.getUuid(), n2.getUuid()));
+        assertFalse(sut.hasEdge(n2.getUuid(), n1.getUuid()));
+        NodeRecord record = sut.getNode(n1.getUuid());
+        assertEquals("1", record.title());
+        assertEquals(10, record.x());
+        assertEquals(20, record.y());
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterModifications() {
+        GraphSnapshot sut = graph.snapshot();
+        n1.setTitle("changed");
+        n1.setX(500);
+        n2.setInformation("info");
+        graph.unlink(n1, n2);
+        graph.remove(n2);
+        graph.add(new Node("3"));
+        assertEquals(2, sut.size());
+        assertEquals(1, sut.edgeCount());
+        assertTrue(sut.hasEdge(n1.getUuid(), n2.getUuid()));
+        assertEquals("1", sut.getNode(n1.getUuid()).title());
+        assertEquals(10, sut.getNode(n1.getUuid()).x());
+        assertEquals("", sut.getNode(n2.getUuid()).information());
+    }
+
+    @Test
+    void snapshotDoesNotLoadLazyInformation() {
+        Node lazy = new Node("lazy", () -> fail("loaded"), 0, 0,
+                UUID.randomUUID());
+        graph.add(lazy);
+        GraphSnapshot before = graph.snapshot();
+        lazy.setX(5);
+        lazy.setTitle("moved");
+        GraphSnapshot sut = graph.snapshot();
+        assertEquals(5, sut.getNode(lazy.getUuid()).x());
+        Recorder recorder = new Recorder();
+        sut.diff(before, recorder);
+        assertEquals(List.of("put moved"), recorder.changes);
+    }
+
+    @Test
+    void laterSnapshotsSeeTheModifications() {
+        n1.setTitle("changed");
+        graph.remove(n2);
+        GraphSnapshot sut = graph.snapshot();
+        assertEquals("changed", sut.getNode(n1.getUuid()).title());
+        assertFalse(sut.contains(n2.getUuid()));
+        assertEquals(0, sut.edgeCount());
+        assertEquals(0, sut.neighborCount(n1.getUuid()));
+    }
+
+    @Test
+    void forEachNeighborVisitsTheNeighborIdentifiers() {
+        GraphSnapshot sut = graph.snapshot();
+        Set<UUID> neighbors = new HashSet<>();
+        sut.forEachNeighbor(n1.getUuid(), neighbors::add);
+        assertEquals(Set.of(n2.getUuid()), neighbors);
+    }
+
+    @Test
+    void toGraphRebuildsTheGraph() {
+        Graph copy = graph.snapshot().toGraph();
+        assertEquals(graph.getUuid(), copy.getUuid());
+        assertEquals(2, copy.size());
+        Node copy1 = copy.getNode(n1.getUuid());
+        assertNotSame(n1, copy1);
+        assertEquals("1", copy1.getTitle());
+        assertTrue(copy.hasEdge(copy1, copy.getNode(n2.getUuid())));
+    }
+
+    // records the changes reported by a diff
+    static class Recorder implements ChangeVisitor {
+        List<String> changes = new ArrayList<>();
+
+        @Override
+        public void nodePut(NodeRecord node) {
+            changes.add("put " + node.title());
+        }
+
+        @Override
+        public void nodeRemoved(UUID identifier) {
+            changes.add("removed " + identifier);
+        }
+
+        @Override
+        public void linked(UUID src, UUID dst) {
+            changes.add("linked " + src + " " + dst);
+        }
+
+        @Override
+        public void unlinked(UUID src, UUID dst) {
+            changes.add("unlinked " + src + " " + dst);
+        }
+    }
+
+    @Test
+    void diffWithItselfReportsNothing() {
+        GraphSnapshot sut = graph.snapshot();
+        Recorder recorder = new Recorder();
+        sut.diff(sut, recorder);
+        assertEquals(List.of(), recorder.changes);
+    }
+
+    @Test
+    void diffReportsTheChangesInOrder() {
+        GraphSnapshot previous = graph.snapshot();
+        Node n3 = new Node("3");
+        graph.add(n3);
+        graph.link(n3, n1);
+        n1.setTitle("changed");
+        graph.remove(n2);
+        Recorder recorder = new Recorder();
+        graph.snapshot().diff(previous, recorder);
+        List<String> changes = recorder.changes;
+        assertEquals(5, changes.size());
+        assertEquals(
+          Set.of("put changed", "put 3"),
+          new HashSet<>(changes.subList(0, 2))
+        );
+        assertEquals(
+          Set.of(
+            "unlinked " + n1.getUuid() + " " + n2.getUuid(),
+            "linked " + n3.getUuid() + " " + n1.getUuid()
+          ),
+          new HashSet<>(changes.subList(2, 4))
+        );
+        assertEquals("removed " + n2.getUuid(), changes.get(4));
+    }
+}
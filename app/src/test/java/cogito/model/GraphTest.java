@@ -279,6 +279,208 @@ class GraphTest {
         assertTrue(sut.getNodesLinkedTo(n1).isEmpty());
     }
 
+    @Test
+    void getNodesLinkingToNodeInCycleReturnsCorrectSourceList() {
+        Node n1 = new Node("test");
+        Node n2 = new Node("test");
+        Node n3 = new Node("test");
+        sut.add(n1);
+        sut.add(n2);
+        sut.add(n3);
+        sut.link(n1, n2);
+        sut.link(n2, n3);
+        sut.link(n3, n1);
+        assertEquals(List.of(n3), sut.getNodesLinkingTo(n1));
+        assertEquals(List.of(n1), sut.getNodesLinkingTo(n2));
+        assertEquals(List.of(n2), sut.getNodesLinkingTo(n3));
+        assertEquals(1, sut.inDegree(n1));
+    }
+
+    @Test
+    void getNodesLinkingToAbsentNodeThrowsIAE() {
+        TestUtils.assertThrowsIAEWithMsg("Node not in graph",
+                () -> sut.getNodesLinkingTo(new Node("absent")));
+    }
+
+    @Test
+    void removeNodeRemovesItsIncomingAndOutgoingLinks() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        Node n3 = new Node("3");
+        sut.add(n1);
+        sut.add(n2);
+        sut.add(n3);
+        sut.link(n1, n2);
+        sut.link(n2, n3);
+        sut.link(n1, n3);
+        sut.remove(n2);
+        assertEquals(List.of(n3), sut.getNodesLinkedTo(n1));
+        assertEquals(List.of(n1), sut.getNodesLinkingTo(n3));
+        assertEquals(0, sut.inDegree(n1));
+    }
+
+    @Test
+    void unlinkSrcFromDstRemovesIncomingLink() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        sut.add(n2);
+        sut.link(n1, n2);
+        sut.unlink(n1, n2);
+        assertEquals(0, sut.inDegree(n2));
+    }
+
+    @Test
+    void getNodeByUuidAndByStringReturnsTheAddedNode() {
+        Node node = new Node("test");
+        sut.add(node);
+        assertEquals(node, sut.getNode(node.getUuid()));
+        assertEquals(node, sut.getNode(node.getUuid().toString()));
+    }
+
+    @Test
+    void getNodeAfterRemovalReturnsNull() {
+        Node node = new Node("test");
+        sut.add(node);
+        sut.remove(node);
+        assertNull(sut.getNode(node.getUuid()));
+    }
+
+    @Test
+    void getNodeWithInvalidIdentifierReturnsNull() {
+        assertNull(sut.getNode("not a uuid"));
+    }
+
+    @Test
+    void getNodeAtReturnsTheNearestNodeInsideTheRadius() {
+        Node far = new Node("far", 8, 0);
+        Node near = new Node("near", 0, 3);
+        sut.add(far);
+        sut.add(near);
+        assertEquals(near, sut.getNodeAt(0, 0, 10));
+    }
+
+    @Test
+    void getNodeAtFindsAMovedNodeAtItsNewPosition() {
+        Node node = new Node("test", 0, 0);
+        sut.add(node);
+        node.setX(1000);
+        node.setY(-1000);
+        assertNull(sut.getNodeAt(0, 0, 10));
+        assertEquals(node, sut.getNodeAt(1000, -1000, 0));
+    }
+
+    @Test
+    void getNodesInRectangleFindsAMovedNode() {
+        Node node = new Node("test", 0, 0);
+        sut.add(node);
+        node.setX(-500);
+        Set<Node> res = sut.getNodesInRectangle(
+          new Rectangle(-600, -100, 200, 200)
+        );
+        assertEquals(Set.of(node), res);
+    }
+
+    @Test
+    void forEachNeighborVisitsEveryNeighbor() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        Node n3 = new Node("3");
+        sut.add(n1);
+        sut.add(n2);
+        sut.add(n3);
+        sut.link(n1, n2);
+        sut.link(n1, n3);
+        List<Node> visited = new ArrayList<>();
+        sut.forEachNeighbor(n1, visited::add);
+        assertEquals(List.of(n2, n3), visited);
+        assertEquals(2, sut.neighborCount(n1));
+    }
+
+    @Test
+    void forEachNodeVisitsEveryNode() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        sut.add(n2);
+        List<Node> visited = new ArrayList<>();
+        sut.forEachNode(visited::add);
+        assertEquals(Set.of(n1, n2), Set.copyOf(visited));
+    }
+
+    @Test
+    void forEachNeighborWithNullActionThrowsNPE() {
+        Node node = new Node("test");
+        sut.add(node);
+        TestUtils.assertThrowsNPEWithMsg("Action can not be null",
+                () -> sut.forEachNeighbor(node, null));
+    }
+
+    @Test
+    void viewsReflectLaterChangesAndAreReadOnly() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        Set<Node> nodes = sut.getNodesView();
+        Set<Node> neighbors = sut.getNeighborsView(n1);
+        sut.add(n2);
+        sut.link(n1, n2);
+        assertEquals(Set.of(n1, n2), nodes);
+        assertEquals(Set.of(n2), neighbors);
+        assertThrows(UnsupportedOperationException.class,
+                () -> nodes.remove(n1));
+        assertThrows(UnsupportedOperationException.class,
+                () -> neighbors.add(n1));
+    }
+
+    @Test
+    void linkTwiceThrowsIAE() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        sut.add(n2);
+        sut.link(n1, n2);
+        TestUtils.assertThrowsIAEWithMsg("Nodes already linked",
+                () -> sut.link(n1, n2));
+        assertEquals(1, sut.neighborCount(n1));
+    }
+
+    @Test
+    void hasEdgeIsTrueOnlyForLinkedNodesInLinkDirection() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        sut.add(n1);
+        sut.add(n2);
+        assertFalse(sut.hasEdge(n1, n2));
+        sut.link(n1, n2);
+        assertTrue(sut.hasEdge(n1, n2));
+        assertFalse(sut.hasEdge(n2, n1));
+        sut.unlink(n1, n2);
+        assertFalse(sut.hasEdge(n1, n2));
+    }
+
+    @Test
+    void hasEdgeWithAbsentNodesReturnsFalse() {
+        assertFalse(sut.hasEdge(new Node("1"), new Node("2")));
+    }
+
+    @Test
+    void neighborsAreKeptInLinkOrder() {
+        Node n1 = new Node("1");
+        Node n2 = new Node("2");
+        Node n3 = new Node("3");
+        Node n4 = new Node("4");
+        sut.add(n1);
+        sut.add(n2);
+        sut.add(n3);
+        sut.add(n4);
+        sut.link(n1, n4);
+        sut.link(n1, n2);
+        sut.link(n1, n3);
+        sut.unlink(n1, n2);
+        assertEquals(List.of(n4, n3), sut.getNodesLinkedTo(n1));
+    }
+
     @Nested
     class AfterAddingANode{
         Node node;
@@ -442,4 +644,124 @@ class GraphTest {
             assertEquals("test", sut.getName());
         }
     }
+
+    @Nested
+    class WithGraphListener {
+        List<String> events;
+        GraphListener listener;
+
+        @BeforeEach
+        void addListener() {
+            events = new ArrayList<>();
+            listener = new GraphListener() {
+                @Override
+                public void nodeAdded(Node node) {
+                    events.add("added " + node.getTitle());
+                }
+
+                @Override
+                public void nodeRemoved(Node node) {
+                    events.add("removed " + node.getTitle());
+                }
+
+                @Override
+                public void nodesLinked(Node src, Node dst) {
+                    events.add("linked " + src.getTitle() + dst.getTitle());
+                }
+
+                @Override
+                public void nodesUnlinked(Node src, Node dst) {
+                    events.add("unlinked " + src.getTitle() + dst.getTitle());
+                }
+
+                @Override
+                public void nodeMoved(Node node) {
+                    events.add("moved " + node.getTitle());
+                }
+
+                @Override
+                public void nodeTitleChanged(Node node) {
+                    events.add("retitled " + node.getTitle());
+                }
+
+                @Override
+                public void nodeInformationChanged(Node node) {
+                    events.add("reinfo " + node.getTitle());
+                }
+            };
+            sut.addGraphListener(listener);
+        }
+
+        @Test
+        void addGraphListenerWithNullThrowsNPE() {
+            TestUtils.assertThrowsNPEWithMsg("Listener can not be null",
+                    () -> sut.addGraphListener(null));
+        }
+
+        @Test
+        void addGraphListenerTwiceThrowsIAE() {
+            TestUtils.assertThrowsIAEWithMsg("Listener already added",
+                    () -> sut.addGraphListener(listener));
+        }
+
+        @Test
+        void listenerIsNotifiedOfEachModification() {
+            Node a = new Node("a");
+            Node b = new Node("b");
+            sut.add(a);
+            sut.add(b);
+            sut.link(a, b);
+            a.setX(10);
+            a.setTitle("c");
+            a.setInformation("info");
+            sut.unlink(a, b);
+            sut.remove(b);
+            assertEquals(
+              List.of(
+                "added a",
+                "added b",
+                "linked ab",
+                "moved a",
+                "retitled c",
+                "reinfo c",
+                "unlinked cb",
+                "removed b"
+              ),
+              events
+            );
+        }
+
+        @Test
+        void listenerIsNotifiedOfTheModificationsOfABatch() {
+            Node a = new Node("a");
+            Node b = new Node("b");
+            sut.batch(edits -> edits
+                .add(a)
+                .add(b)
+                .link(b, a)
+                .move(a, 1, a.getY()));
+            assertEquals(
+              List.of("added a", "added b", "linked ba", "moved a"),
+              events
+            );
+        }
+
+        @Test
+        void removedListenerIsNotNotified() {
+            sut.removeGraphListener(listener);
+            Node a = new Node("a");
+            sut.add(a);
+            a.setTitle("b");
+            assertEquals(List.of(), events);
+        }
+
+        @Test
+        void removedNodeDoesNotNotify() {
+            Node a = new Node("a");
+            sut.add(a);
+            sut.remove(a);
+            a.setTitle("b");
+            assertEquals(List.of("added a", "removed a"), events);
+        }
+    }
 }
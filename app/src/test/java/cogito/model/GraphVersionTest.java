@@ -0,0 +1,31 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import cogito.TestUtils;
+import java.util.UUID;
+
+class GraphVersionTest {
+
+    @Test
+    void newGraphVersionWithNullUuidThrowsNPE() {
+        TestUtils.assertThrowsNPEWithMsg(
+          "Identifier can not be null.",
+          () -> new GraphVersion(null, 1, 0)
+        );
+    }
+
+    @Test
+    void newGraphVersionWithNumberBelowOneThrowsIAE() {
+        TestUtils.assertThrowsIAEWithMsg(
+          "Version number must be at least 1.",
+          () -> new GraphVersion(UUID.randomUUID(), 0, 0)
+        );
+    }
+
+    @Test
+    void graphVersionToStringStartsWithNumber() {
+        GraphVersion sut = new GraphVersion(UUID.randomUUID(), 3, 0);
+        assertTrue(sut.toString().startsWith("Version 3, "));
+    }
+}
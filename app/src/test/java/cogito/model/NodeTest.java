@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.UUID;
 import cogito.view.Observer;
 import cogito.TestUtils;
 
@@ -64,6 +65,26 @@ class NodeTest {
         );
     }
 
+    @Test
+    void lazyInformationIsLoadedOnFirstRequest() {
+        int[] loads = new int[1];
+        Node sut = new Node("lazy", () -> {
+            loads[0]++;
+            return "info";
+        }, 1, 2, UUID.randomUUID());
+        assertEquals(0, loads[0]);
+        assertEquals("info", sut.getInformation());
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void setInformationReplacesLazyInformation() {
+        Node sut = new Node("lazy", () -> fail("loaded"), 1, 2,
+                UUID.randomUUID());
+        sut.setInformation("new");
+        assertEquals("new", sut.getInformation());
+    }
+
     @Nested
     class AtLocationX5Y10 {
         Node sut;
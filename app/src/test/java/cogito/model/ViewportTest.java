@@ -0,0 +1,91 @@
+package cogito.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.awt.Rectangle;
+import cogito.TestUtils;
+
+class ViewportTest {
+    Graph graph;
+
+    @BeforeEach
+    void createNewGraph() {
+        graph = new Graph();
+    }
+
+    @Test
+    void newViewportWithNullGraphThrowsNPE() {
+        TestUtils.assertThrowsNPEWithMsg("Graph can not be null",
+                () -> new Viewport(null, new Rectangle()));
+    }
+
+    @Test
+    void moveToNullRectangleThrowsNPE() {
+        Viewport sut = new Viewport(graph, new Rectangle());
+        TestUtils.assertThrowsNPEWithMsg("Rectangle cannot be null",
+                () -> sut.moveTo(null));
+    }
+
+    @Test
+    void moveToKeepsTheLinksOfTheNodeLeavingTheRectangle() {
+        Node n1 = new Node("n1", 10, 10);
+        Node n2 = new Node("n2", 150, 10);
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+        Viewport sut = new Viewport(graph, new Rectangle(0, 0, 100, 100));
+        assertEquals(List.of(n2), sut.getSubGraph().get(n1));
+        assertFalse(sut.getSubGraph().containsKey(n2));
+        sut.moveTo(new Rectangle(100, 0, 100, 100));
+        assertEquals(List.of(n2), sut.getSubGraph().get(n1));
+        assertTrue(sut.getSubGraph().get(n2).isEmpty());
+        sut.moveTo(new Rectangle(300, 0, 100, 100));
+        assertTrue(sut.getSubGraph().isEmpty());
+    }
+
+    @Test
+    void moveToComputesTheSameSubGraphAsReset() {
+        Random random = new Random(42);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Node node = new Node("n" + i, random.nextInt(2000),
+                    random.nextInt(2000));
+            graph.add(node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < 600; i++) {
+            Node src = nodes.get(random.nextInt(nodes.size()));
+            Node dst = nodes.get(random.nextInt(nodes.size()));
+            if (!src.equals(dst) && !graph.hasEdge(src, dst))
+                graph.link(src, dst);
+        }
+        Rectangle rect = new Rectangle(0, 0, 640, 480);
+        Viewport sut = new Viewport(graph, rect);
+        for (int i = 0; i < 50; i++) {
+            rect.translate(random.nextInt(401) - 200,
+                    random.nextInt(401) - 200);
+            sut.moveTo(rect);
+            assertSameAdjacencies(
+              new Viewport(graph, rect).getSubGraph(),
+              sut.getSubGraph()
+            );
+        }
+    }
+
+    // compares adjacencies regardless of the order of the neighbors
+    private static void assertSameAdjacencies(
+      Map<Node, ArrayList<Node>> expected,
+      Map<Node, ArrayList<Node>> actual
+    ) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Node node: expected.keySet())
+            assertEquals(new HashSet<>(expected.get(node)),
+                    new HashSet<>(actual.get(node)));
+    }
+}
@@ -0,0 +1,67 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.UUID;
+
+class AdjacencyReaderTest {
+    UUID u1 = UUID.randomUUID();
+    UUID u2 = UUID.randomUUID();
+    UUID u3 = UUID.randomUUID();
+
+    static AdjacencyReader readerOf(String content) {
+        return new AdjacencyReader(new StringReader(content));
+    }
+
+    static void assertNextUuid(UUID expected, AdjacencyReader sut)
+            throws IOException {
+        assertTrue(sut.nextUuid());
+        assertEquals(expected, new UUID(sut.msb(), sut.lsb()));
+    }
+
+    @Test
+    void readerReturnsTheNameAndTheUuidsOfEachLine() throws IOException {
+        AdjacencyReader sut = readerOf(
+          "graph, name\n" + u1 + "," + u2 + "," + u3 + "\n" + u2 + "\n"
+        );
+        assertEquals("graph, name", sut.readName());
+        assertTrue(sut.nextLine());
+        assertNextUuid(u1, sut);
+        assertNextUuid(u2, sut);
+        assertNextUuid(u3, sut);
+        assertFalse(sut.nextUuid());
+        assertTrue(sut.nextLine());
+        assertNextUuid(u2, sut);
+        assertFalse(sut.nextUuid());
+        assertFalse(sut.nextLine());
+    }
+
+    @Test
+    void nextLineSkipsTheRestOfTheLineAndEmptyLines() throws IOException {
+        AdjacencyReader sut = readerOf(
+          "name\r\n" + u1 + "," + u2 + "\r\n\r\n" + u3
+        );
+        sut.readName();
+        assertTrue(sut.nextLine());
+        assertNextUuid(u1, sut);
+        assertTrue(sut.nextLine());
+        assertNextUuid(u3, sut);
+        assertFalse(sut.nextLine());
+    }
+
+    @Test
+    void readNameReturnsNullIfTheFileIsEmpty() throws IOException {
+        assertNull(readerOf("").readName());
+    }
+
+    @Test
+    void nextUuidThrowsIOExceptionIfTheTokenIsNotAUuid() throws IOException {
+        AdjacencyReader sut = readerOf("name\n" + u1 + ",not-a-uuid\n");
+        sut.readName();
+        sut.nextLine();
+        assertNextUuid(u1, sut);
+        assertThrows(IOException.class, () -> sut.nextUuid());
+    }
+}
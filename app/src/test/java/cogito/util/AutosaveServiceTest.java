@@ -0,0 +1,163 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import cogito.TestUtils;
+import cogito.model.ConcurrentGraph;
+import cogito.model.Graph;
+import cogito.model.Node;
+import cogito.view.Observer;
+
+class AutosaveServiceTest {
+    Graph graph;
+    AtomicInteger saves;
+    AtomicInteger versions;
+    AutosaveService sut;
+
+    @BeforeEach
+    void createGraphAndService() {
+        graph = new ConcurrentGraph("graph");
+        saves = new AtomicInteger();
+        versions = new AtomicInteger();
+        sut = createService();
+    }
+
+    AutosaveService createService() {
+        return new AutosaveService(
+          graph,
+          model -> saves.incrementAndGet(),
+          model -> versions.incrementAndGet()
+        );
+    }
+
+    // modifies the graph and waits for its autosave
+    void modifyAndWaitForSave(Node node) throws InterruptedException {
+        CountDownLatch saved = new CountDownLatch(1);
+        Observer observer = data -> {
+            if (sut.getStatus() == AutosaveService.Status.SAVED)
+                saved.countDown();
+        };
+        sut.subscribe(observer);
+        graph.add(node);
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        sut.unsubscribe(observer);
+    }
+
+    @Test
+    void constructorThrowsNPEOnNullGraph() {
+        TestUtils.assertThrowsNPEWithMsg(
+          "Graph can not be null",
+          () -> new AutosaveService(null)
+        );
+    }
+
+    @Test
+    void statusIsSavedInitially() {
+        assertEquals(AutosaveService.Status.SAVED, sut.getStatus());
+        assertNull(sut.getLastError());
+    }
+
+    @Test
+    void modificationsMarkTheGraphModified() {
+        graph.add(new Node("a"));
+        assertEquals(AutosaveService.Status.MODIFIED, sut.getStatus());
+    }
+
+    @Test
+    void modificationsAreSavedOnce() throws Exception {
+        CountDownLatch saved = new CountDownLatch(1);
+        sut.subscribe(data -> {
+            if (sut.getStatus() == AutosaveService.Status.SAVED)
+                saved.countDown();
+        });
+        Node a = new Node("a");
+        Node b = new Node("b");
+        graph.add(a);
+        graph.add(b);
+        graph.link(a, b);
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        assertEquals(1, saves.get());
+        assertEquals(0, versions.get());
+    }
+
+    @Test
+    void saveNowSavesTheGraphAsAVersion() throws Exception {
+        graph.add(new Node("a"));
+        sut.saveNow().get(5, TimeUnit.SECONDS);
+        assertEquals(0, saves.get());
+        assertEquals(1, versions.get());
+        assertEquals(AutosaveService.Status.SAVED, sut.getStatus());
+    }
+
+    @Test
+    void severalAutosavesCommitASingleVersion() throws Exception {
+        modifyAndWaitForSave(new Node("a"));
+        modifyAndWaitForSave(new Node("b"));
+        modifyAndWaitForSave(new Node("c"));
+        assertEquals(3, saves.get());
+        assertEquals(0, versions.get());
+        sut.close().get(5, TimeUnit.SECONDS);
+        assertEquals(3, saves.get());
+        assertEquals(1, versions.get());
+    }
+
+    @Test
+    void failedSaveSetsTheError() throws Exception {
+        IOException error = new IOException("disk full");
+        sut = new AutosaveService(
+          graph,
+          model -> { throw error; },
+          model -> { throw error; }
+        );
+        sut.saveNow().get(5, TimeUnit.SECONDS);
+        assertEquals(AutosaveService.Status.FAILED, sut.getStatus());
+        assertSame(error, sut.getLastError());
+    }
+
+    @Test
+    void uncheckedFailedSaveSetsTheError() throws Exception {
+        IOException error = new IOException("missing blob");
+        sut = new AutosaveService(
+          graph,
+          model -> { throw new UncheckedIOException(error); },
+          model -> { throw new UncheckedIOException(error); }
+        );
+        sut.saveNow().get(5, TimeUnit.SECONDS);
+        assertEquals(AutosaveService.Status.FAILED, sut.getStatus());
+        assertSame(error, sut.getLastError());
+    }
+
+    @Test
+    void closeCommitsAVersion() throws Exception {
+        sut.close().get(5, TimeUnit.SECONDS);
+        assertEquals(1, versions.get());
+        sut = createService();
+        graph.add(new Node("a"));
+        sut.close().get(5, TimeUnit.SECONDS);
+        assertEquals(0, saves.get());
+        assertEquals(2, versions.get());
+    }
+
+    @Test
+    void closedServiceIgnoresModifications() throws Exception {
+        sut.close().get(5, TimeUnit.SECONDS);
+        graph.add(new Node("a"));
+        assertEquals(AutosaveService.Status.SAVED, sut.getStatus());
+    }
+
+    @Test
+    void subscribeThrowsIAEOnObserverAlreadySubscribed() {
+        Observer observer = data -> {};
+        sut.subscribe(observer);
+        TestUtils.assertThrowsIAEWithMsg(
+          "Observer already subscribed",
+          () -> sut.subscribe(observer)
+        );
+    }
+}
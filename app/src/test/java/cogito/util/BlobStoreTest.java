@@ -0,0 +1,117 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class BlobStoreTest {
+    Path dir;
+    String text;
+    BlobStore sut;
+
+    @BeforeEach
+    void createStore() throws IOException {
+        dir = Files.createTempDirectory("blobs");
+        text = "A long note, pasted from node to node. \u00e9".repeat(40);
+        sut = new BlobStore(dir);
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path: (Iterable<Path>)paths
+                    .sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    // the number of blob files of the store
+    long blobCount() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    String get(byte[] reference) throws IOException {
+        return sut.get(reference, 0, reference.length);
+    }
+
+    @Test
+    void acceptsOnlyLongTexts() {
+        assertFalse(BlobStore.accepts("short"));
+        assertFalse(BlobStore.accepts("x".repeat(BlobStore.THRESHOLD - 1)));
+        assertTrue(BlobStore.accepts("x".repeat(BlobStore.THRESHOLD)));
+        // two bytes per char in UTF-8
+        String accented = "\u00e9".repeat(BlobStore.THRESHOLD / 2);
+        assertTrue(BlobStore.accepts(accented));
+    }
+
+    @Test
+    void getReturnsThePutText() throws IOException {
+        byte[] reference = sut.put(text);
+        assertEquals(BlobStore.REFERENCE_SIZE, reference.length);
+        assertEquals(BlobStore.REFERENCE, reference[0]);
+        assertEquals(text, get(reference));
+        assertEquals(text, get(new BlobStore(dir).put(text)));
+        assertEquals(text, new BlobStore(dir).get(reference, 0, 33));
+    }
+
+    @Test
+    void identicalTextsAreStoredOnce() throws IOException {
+        byte[] first = sut.put(text);
+        byte[] second = new BlobStore(dir).put(new String(text));
+        assertArrayEquals(first, second);
+        assertEquals(1, blobCount());
+        sut.put(text + ".");
+        assertEquals(2, blobCount());
+    }
+
+    @Test
+    void blobsAreCompressed() throws IOException {
+        sut.put(text);
+        try (Stream<Path> paths = Files.walk(dir)) {
+            Path blob = paths.filter(Files::isRegularFile).findAny().get();
+            assertTrue(Files.size(blob) < text.length() / 4);
+        }
+    }
+
+    @Test
+    void collectDeletesTheUnreferencedBlobs() throws IOException {
+        byte[] kept = sut.put(text);
+        byte[] dropped = sut.put(text + ".");
+        String key = BlobStore.keyOf(kept, 0, kept.length);
+        assertEquals(1, sut.collect(Set.of(key)));
+        assertEquals(1, blobCount());
+        assertEquals(text, new BlobStore(dir).get(kept, 0, kept.length));
+        assertThrows(IOException.class, () -> get(dropped));
+        assertEquals(1, sut.collect(Set.of()));
+        assertEquals(0, blobCount());
+    }
+
+    @Test
+    void getThrowsIOEForInvalidReference() {
+        assertThrows(IOException.class, () -> get(new byte[] {0, 1, 2}));
+        byte[] reference = new byte[BlobStore.REFERENCE_SIZE];
+        assertThrows(IOException.class, () -> get(reference));
+    }
+
+    @Test
+    void getThrowsIOEForCorruptedBlob() throws IOException {
+        byte[] reference = sut.put(text);
+        try (Stream<Path> paths = Files.walk(dir)) {
+            Path blob = paths.filter(Files::isRegularFile).findAny().get();
+            Files.write(blob, new byte[] {BlobStore.REFERENCE});
+        }
+        assertThrows(
+          IOException.class,
+          () -> new BlobStore(dir).get(reference, 0, reference.length)
+        );
+    }
+}
@@ -0,0 +1,91 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import cogito.model.Graph;
+import cogito.model.Node;
+
+class EdgeListCsvTest {
+    Graph graph;
+    Node n1;
+    Node n2;
+    Node n3;
+
+    @BeforeEach
+    void createGraph() {
+        graph = new Graph("test");
+        n1 = new Node("1");
+        n2 = new Node("2");
+        n3 = new Node("3");
+        graph.add(n1);
+        graph.add(n2);
+        graph.add(n3);
+        graph.link(n1, n2);
+        graph.link(n2, n1);
+    }
+
+    Graph read(String csv) throws IOException {
+        return EdgeListCsv.read(new StringReader(csv), "imported");
+    }
+
+    // the node of sut titled title
+    static Node titled(Graph sut, String title) {
+        for (Node node: sut.getNodes()) {
+            if (node.getTitle().equals(title))
+                return node;
+        }
+        return null;
+    }
+
+    @Test
+    void readReturnsTheWrittenStructure() throws IOException {
+        StringWriter out = new StringWriter();
+        EdgeListCsv.write(graph.snapshot(), out);
+        assertTrue(out.toString().startsWith("source,target\r\n"));
+        Graph sut = read(out.toString());
+        assertEquals("imported", sut.getName());
+        assertEquals(3, sut.size());
+        Node r1 = sut.getNode(n1.getUuid());
+        Node r2 = sut.getNode(n2.getUuid());
+        assertTrue(sut.hasEdge(r1, r2));
+        assertTrue(sut.hasEdge(r2, r1));
+        assertNotNull(sut.getNode(n3.getUuid()));
+        assertEquals(2, sut.snapshot().edgeCount());
+    }
+
+    @Test
+    void readParsesQuotedFieldsWithoutHeader() throws IOException {
+        Graph sut = read(
+          "\"a, b\",\"say \"\"hi\"\"\",ignored\n"
+          + "\n"
+          + "c,\"multi\nline\"\r\n"
+          + "lonely"
+        );
+        assertEquals(5, sut.size());
+        Node ab = titled(sut, "a, b");
+        Node hi = titled(sut, "say \"hi\"");
+        assertNotNull(ab);
+        assertNotNull(hi);
+        assertTrue(sut.hasEdge(ab, hi));
+        assertTrue(sut.hasEdge(titled(sut, "c"), titled(sut, "multi\nline")));
+        assertNotNull(titled(sut, "lonely"));
+    }
+
+    @Test
+    void readThrowsIOExceptionOnUnterminatedQuote() {
+        IOException e = assertThrows(
+          IOException.class,
+          () -> read("source,target\na,\"b\n")
+        );
+        assertEquals("Unterminated quoted field at record 2", e.getMessage());
+    }
+
+    @Test
+    void readThrowsIOExceptionOnInvalidTitle() {
+        assertThrows(IOException.class, () -> read("a," + "x".repeat(200)));
+    }
+}
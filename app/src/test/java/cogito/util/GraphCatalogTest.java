@@ -0,0 +1,72 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import cogito.model.GraphInfo;
+
+class GraphCatalogTest {
+    Path file;
+    GraphInfo info1;
+    GraphInfo info2;
+
+    @BeforeEach
+    void createInfosAndFile() throws IOException {
+        file = Files.createTempFile("catalog", ".cgc");
+        info1 = new GraphInfo(
+          "graph \u00e9",
+          UUID.randomUUID(),
+          3,
+          2,
+          1000,
+          512
+        );
+        info2 = new GraphInfo("other", UUID.randomUUID());
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void readReturnsTheWrittenInfosInOrder() throws IOException {
+        GraphCatalog.write(file, List.of(info1, info2));
+        Map<UUID, GraphInfo> sut = GraphCatalog.read(file);
+        assertEquals(List.of(info1, info2), List.copyOf(sut.values()));
+        assertEquals(info1, sut.get(info1.identifier()));
+    }
+
+    @Test
+    void writeReplacesTheContentOfTheFile() throws IOException {
+        GraphCatalog.write(file, List.of(info1, info2));
+        GraphCatalog.write(file, List.of(info2));
+        assertEquals(
+          List.of(info2),
+          List.copyOf(GraphCatalog.read(file).values())
+        );
+    }
+
+    @Test
+    void readThrowsIOExceptionIfFileIsNotACatalog() throws IOException {
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> GraphCatalog.read(file));
+    }
+
+    @Test
+    void readThrowsIOExceptionIfFileIsTruncated() throws IOException {
+        GraphCatalog.write(file, List.of(info1, info2));
+        byte[] content = Files.readAllBytes(file);
+        byte[] truncated = new byte[content.length - 4];
+        System.arraycopy(content, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> GraphCatalog.read(file));
+    }
+}
@@ -0,0 +1,203 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import cogito.model.Graph;
+import cogito.model.GraphInfo;
+import cogito.model.Node;
+import cogito.TestUtils;
+
+class GraphFileTest {
+    Path file;
+    Graph graph;
+    Node n1;
+    Node n2;
+    Node n3;
+
+    @BeforeEach
+    void createGraphAndFile() throws IOException {
+        file = Files.createTempFile("graph", GraphFile.EXTENSION);
+        graph = new Graph("test graph \u00e9");
+        n1 = new Node("title 1", "information", 10, -20, UUID.randomUUID());
+        n2 = new Node("title 2", "", 0, 0, UUID.randomUUID());
+        n3 = new Node("title \u00fc", "in\nfo", -5, 7, UUID.randomUUID());
+        graph.add(n1);
+        graph.add(n2);
+        graph.add(n3);
+        graph.link(n1, n2);
+        graph.link(n1, n3);
+        graph.link(n3, n1);
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+        System.clearProperty(GraphFile.ENCODING_PROPERTY);
+    }
+
+    @Test
+    void readReturnsTheWrittenGraph() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        Graph sut = GraphFile.read(file);
+        assertEquals(graph.getName(), sut.getName());
+        assertEquals(graph.getUuid(), sut.getUuid());
+        assertEquals(3, sut.size());
+        for (Node node: graph.getNodes()) {
+            Node read = sut.getNode(node.getUuid());
+            assertEquals(node.getTitle(), read.getTitle());
+            assertEquals(node.getInformation(), read.getInformation());
+            assertEquals(node.getX(), read.getX());
+            assertEquals(node.getY(), read.getY());
+        }
+        Node r1 = sut.getNode(n1.getUuid());
+        Node r2 = sut.getNode(n2.getUuid());
+        Node r3 = sut.getNode(n3.getUuid());
+        assertTrue(sut.hasEdge(r1, r2));
+        assertTrue(sut.hasEdge(r1, r3));
+        assertTrue(sut.hasEdge(r3, r1));
+        assertFalse(sut.hasEdge(r2, r1));
+        assertEquals(3, sut.toCompactGraph().edgeCount());
+    }
+
+    @Test
+    void informationReadLaterIsTheWrittenOne() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        Graph sut = GraphFile.read(file);
+        StoredText.pin(file);
+        Files.delete(file);
+        assertEquals("in\nfo", sut.getNode(n3.getUuid()).getInformation());
+    }
+
+    @Test
+    void longInformationIsStoredCompressed() throws IOException {
+        String information = "A long note about the graph. ".repeat(50);
+        n2.setInformation(information);
+        GraphFile.write(file, graph.snapshot());
+        assertTrue(Files.size(file) < information.length());
+        Graph sut = GraphFile.read(file);
+        assertEquals(information, sut.getNode(n2.getUuid()).getInformation());
+        assertEquals("in\nfo", sut.getNode(n3.getUuid()).getInformation());
+    }
+
+    @Test
+    void longInformationIsReferencedAsABlob() throws IOException {
+        Path blobsDir = Files.createTempDirectory("blobs");
+        try {
+            BlobStore blobs = new BlobStore(blobsDir);
+            String information = "A long note about the graph. ".repeat(50);
+            n1.setInformation(information);
+            n2.setInformation(information);
+            GraphFile.write(file, graph.snapshot(), blobs);
+            assertTrue(Files.size(file) < 300);
+            List<String> keys = new ArrayList<>();
+            GraphFile.forEachBlob(file, keys::add);
+            assertEquals(2, keys.size());
+            assertEquals(keys.get(0), keys.get(1));
+            Graph sut = GraphFile.read(file, new BlobStore(blobsDir));
+            for (Node node: graph.getNodes()) {
+                assertEquals(
+                  node.getInformation(),
+                  sut.getNode(node.getUuid()).getInformation()
+                );
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(blobsDir)) {
+                for (Path path: (Iterable<Path>)paths
+                        .sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void readReturnsAnEmptyGraph() throws IOException {
+        Graph empty = new Graph("empty");
+        GraphFile.write(file, empty.snapshot());
+        Graph sut = GraphFile.read(file);
+        assertEquals("empty", sut.getName());
+        assertEquals(empty.getUuid(), sut.getUuid());
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    void readNameReturnsTheNameOfTheGraph() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        assertEquals(graph.getName(), GraphFile.readName(file));
+    }
+
+    @Test
+    void readInfoReturnsTheNameAndCountsOfTheGraph() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        GraphInfo sut = GraphFile.readInfo(file);
+        assertEquals(graph.getName(), sut.name());
+        assertEquals(graph.getUuid(), sut.identifier());
+        assertEquals(3, sut.nodeCount());
+        assertEquals(3, sut.edgeCount());
+    }
+
+    @Test
+    void writeReplacesTheContentOfTheFile() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        graph.remove(n2);
+        GraphFile.write(file, graph.snapshot());
+        Graph sut = GraphFile.read(file);
+        assertEquals(2, sut.size());
+        assertNull(sut.getNode(n2.getUuid()));
+    }
+
+    @Test
+    void readReturnsAGraphWrittenInUtf16() throws IOException {
+        System.setProperty(GraphFile.ENCODING_PROPERTY, "UTF-16BE");
+        GraphFile.write(file, graph.snapshot());
+        System.clearProperty(GraphFile.ENCODING_PROPERTY);
+        Graph sut = GraphFile.read(file);
+        assertEquals(graph.getName(), sut.getName());
+        Node r3 = sut.getNode(n3.getUuid());
+        assertEquals("title \u00fc", r3.getTitle());
+        assertEquals("in\nfo", r3.getInformation());
+    }
+
+    @Test
+    void fileIsUpToDateOnlyInTheStorageEncoding() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        assertTrue(GraphFile.isUpToDate(file));
+        System.setProperty(GraphFile.ENCODING_PROPERTY, "UTF-16BE");
+        assertFalse(GraphFile.isUpToDate(file));
+    }
+
+    @Test
+    void writeThrowsIAEIfTheStorageEncodingIsNotSupported() {
+        System.setProperty(GraphFile.ENCODING_PROPERTY, "ISO-8859-1");
+        TestUtils.assertThrowsIAEWithMsg(
+          "Unsupported storage encoding: ISO-8859-1",
+          () -> GraphFile.write(file, graph.snapshot())
+        );
+    }
+
+    @Test
+    void readThrowsIOExceptionIfFileIsNotAGraphFile() throws IOException {
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> GraphFile.read(file));
+        assertThrows(IOException.class, () -> GraphFile.readName(file));
+    }
+
+    @Test
+    void readThrowsIOExceptionIfFileIsTruncated() throws IOException {
+        GraphFile.write(file, graph.snapshot());
+        byte[] content = Files.readAllBytes(file);
+        byte[] truncated = new byte[content.length - 10];
+        System.arraycopy(content, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+        assertThrows(IOException.class, () -> GraphFile.read(file));
+    }
+}
@@ -0,0 +1,160 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import cogito.model.ConcurrentGraph;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+import cogito.model.GraphVersion;
+import cogito.model.Node;
+
+class GraphHistoryTest {
+    Path dir;
+    Graph graph;
+    Node n1;
+    Node n2;
+    GraphHistory sut;
+
+    @BeforeEach
+    void createGraphAndHistory() throws IOException {
+        dir = Files.createTempDirectory("history");
+        graph = new ConcurrentGraph("test");
+        n1 = new Node("1", "information", 10, 20, UUID.randomUUID());
+        n2 = new Node("2", "", 0, 0, UUID.randomUUID());
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+        sut = GraphHistory.open(dir, graph.getUuid(), null);
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path: (Iterable<Path>)paths
+                    .sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    // asserts that model is in the state of expected
+    void assertSameState(GraphSnapshot expected, Graph model) {
+        assertEquals(expected.getName(), model.getName());
+        assertEquals(expected.getUuid(), model.getUuid());
+        assertEquals(expected.size(), model.size());
+        assertEquals(expected.edgeCount(), model.snapshot().edgeCount());
+        expected.forEachNode(node -> {
+            Node read = model.getNode(node.identifier());
+            assertNotNull(read);
+            assertEquals(node.title(), read.getTitle());
+            assertEquals(node.information(), read.getInformation());
+            assertEquals(node.x(), read.getX());
+            assertEquals(node.y(), read.getY());
+            expected.forEachNeighbor(
+              node.identifier(),
+              dst -> assertTrue(model.hasEdge(read, model.getNode(dst)))
+            );
+        });
+    }
+
+    @Test
+    void firstVersionIsACheckpointAndNextOnesAreDeltas() throws IOException {
+        assertTrue(sut.record(graph.snapshot()));
+        n1.setTitle("one");
+        assertTrue(sut.record(graph.snapshot()));
+        assertTrue(Files.exists(dir.resolve("1" + GraphFile.EXTENSION)));
+        assertTrue(Files.exists(dir.resolve("2" + GraphLog.EXTENSION)));
+        List<GraphVersion> versions = sut.versions();
+        assertEquals(2, versions.size());
+        assertEquals(1, versions.get(0).number());
+        assertEquals(2, versions.get(1).number());
+        assertEquals(graph.getUuid(), versions.get(1).identifier());
+    }
+
+    @Test
+    void unchangedStateIsNotRecorded() throws IOException {
+        assertTrue(sut.record(graph.snapshot()));
+        assertFalse(sut.record(graph.snapshot()));
+        assertEquals(1, sut.versions().size());
+    }
+
+    @Test
+    void readRebuildsEachVersion() throws IOException {
+        List<GraphSnapshot> states = new ArrayList<>();
+        states.add(graph.snapshot());
+        n1.setInformation("changed");
+        states.add(graph.snapshot());
+        Node n3 = new Node("3", "new", 5, 5, UUID.randomUUID());
+        graph.add(n3);
+        graph.link(n3, n1);
+        states.add(graph.snapshot());
+        graph.unlink(n1, n2);
+        n2.setX(42);
+        states.add(graph.snapshot());
+        graph.remove(n1);
+        states.add(graph.snapshot());
+        for (GraphSnapshot state: states)
+            assertTrue(sut.record(state));
+        for (int i = 0; i < states.size(); i++)
+            assertSameState(states.get(i), sut.read(i + 1));
+    }
+
+    @Test
+    void checkpointIsWrittenEveryInterval() throws IOException {
+        List<GraphSnapshot> states = new ArrayList<>();
+        for (int i = 0; i <= GraphHistory.CHECKPOINT_INTERVAL; i++) {
+            n1.setX(i);
+            states.add(graph.snapshot());
+            assertTrue(sut.record(graph.snapshot()));
+        }
+        int next = GraphHistory.CHECKPOINT_INTERVAL + 1;
+        assertTrue(Files.exists(dir.resolve(next + GraphFile.EXTENSION)));
+        assertFalse(Files.exists(dir.resolve(next + GraphLog.EXTENSION)));
+        assertSameState(states.get(next - 2), sut.read(next - 1));
+        assertSameState(states.get(next - 1), sut.read(next));
+    }
+
+    @Test
+    void largeDeltasLeadToACheckpoint() throws IOException {
+        assertTrue(sut.record(graph.snapshot()));
+        for (int i = 0; i < 20; i++)
+            graph.add(new Node("node " + i, "", i, i, UUID.randomUUID()));
+        assertTrue(sut.record(graph.snapshot()));
+        n1.setX(0);
+        assertTrue(sut.record(graph.snapshot()));
+        assertTrue(Files.exists(dir.resolve("2" + GraphLog.EXTENSION)));
+        assertTrue(Files.exists(dir.resolve("3" + GraphFile.EXTENSION)));
+        assertSameState(graph.snapshot(), sut.read(3));
+    }
+
+    @Test
+    void reopenedHistoryContinuesWithDeltas() throws IOException {
+        sut.record(graph.snapshot());
+        n2.setTitle("two");
+        sut.record(graph.snapshot());
+        GraphHistory reopened = GraphHistory.open(dir, graph.getUuid(), null);
+        assertEquals(2, reopened.versions().size());
+        assertFalse(reopened.record(graph.snapshot()));
+        n2.setY(-3);
+        assertTrue(reopened.record(graph.snapshot()));
+        assertTrue(Files.exists(dir.resolve("3" + GraphLog.EXTENSION)));
+        assertSameState(graph.snapshot(), reopened.read(3));
+    }
+
+    @Test
+    void readThrowsIOEForMissingVersion() throws IOException {
+        assertThrows(IOException.class, () -> sut.read(1));
+        sut.record(graph.snapshot());
+        assertThrows(IOException.class, () -> sut.read(0));
+        assertThrows(IOException.class, () -> sut.read(2));
+    }
+}
@@ -0,0 +1,150 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import cogito.model.Graph;
+import cogito.model.ConcurrentGraph;
+import cogito.model.GraphSnapshot;
+import cogito.model.Node;
+
+class GraphJournalTest {
+    Path dir;
+    Path graphFile;
+    Path logFile;
+    Path oldLogFile;
+    Graph graph;
+    Node n1;
+    Node n2;
+    GraphSnapshot base;
+    GraphJournal sut;
+
+    @BeforeEach
+    void openJournal() throws IOException {
+        dir = Files.createTempDirectory("graph");
+        graphFile = dir.resolve("graph" + GraphFile.EXTENSION);
+        logFile = dir.resolve("graph" + GraphLog.EXTENSION);
+        oldLogFile = dir.resolve("graph" + GraphLog.EXTENSION + ".old");
+        graph = new ConcurrentGraph("test");
+        n1 = new Node("1", 10, 20);
+        n2 = new Node("2");
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+        base = graph.snapshot();
+        GraphFile.write(graphFile, base);
+        sut = GraphJournal.open(
+          graph,
+          graphFile,
+          logFile,
+          oldLogFile,
+          null,
+          this
+        );
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        sut.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path: (Iterable<Path>)paths
+                    .sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    // the graph read from the files of the journal, with the store lock
+    // held as a compaction may be running
+    Graph reload() throws IOException {
+        synchronized (this) {
+            Graph copy = GraphFile.read(graphFile);
+            if (Files.exists(oldLogFile))
+                GraphLog.replay(oldLogFile, copy);
+            if (Files.exists(logFile))
+                GraphLog.replay(logFile, copy);
+            return copy;
+        }
+    }
+
+    @Test
+    void flushWritesEachModificationToTheLog() throws IOException {
+        Node n3 = new Node("3");
+        graph.add(n3);
+        graph.link(n3, n1);
+        graph.unlink(n1, n2);
+        n1.setTitle("changed");
+        n1.setInformation("information");
+        n2.setX(-4);
+        graph.remove(n3);
+        sut.flush();
+        Graph copy = reload();
+        assertEquals(2, copy.size());
+        Node c1 = copy.getNode(n1.getUuid());
+        Node c2 = copy.getNode(n2.getUuid());
+        assertEquals("changed", c1.getTitle());
+        assertEquals("information", c1.getInformation());
+        assertEquals(-4, c2.getX());
+        assertFalse(copy.hasEdge(c1, c2));
+        assertNull(copy.getNode(n3.getUuid()));
+    }
+
+    @Test
+    void closedJournalDoesNotRecordModifications() throws IOException {
+        n1.setTitle("before");
+        sut.close();
+        n1.setTitle("after");
+        sut.flush();
+        assertEquals("before", reload().getNode(n1.getUuid()).getTitle());
+    }
+
+    @Test
+    void segmentsAppendedAfterATornSegmentAreReplayed() throws IOException {
+        n1.setTitle("kept");
+        sut.flush();
+        n1.setTitle("torn");
+        sut.flush();
+        sut.close();
+        // the last segment torn by a crash
+        GraphLog.truncate(logFile, Files.size(logFile) - 3);
+        Graph copy = GraphFile.read(graphFile);
+        GraphJournal.replay(copy, logFile, oldLogFile);
+        assertEquals("kept", copy.getNode(n1.getUuid()).getTitle());
+        sut = GraphJournal.open(
+          copy,
+          graphFile,
+          logFile,
+          oldLogFile,
+          null,
+          this
+        );
+        Node n3 = new Node("3");
+        copy.add(n3);
+        sut.flush();
+        Graph reloaded = reload();
+        assertEquals(3, reloaded.size());
+        assertNotNull(reloaded.getNode(n3.getUuid()));
+        assertEquals("kept", reloaded.getNode(n1.getUuid()).getTitle());
+    }
+
+    @Test
+    void largeLogIsCompactedInTheBackground() throws Exception {
+        for (int i = 0; i < 200; i++)
+            n1.setX(i);
+        sut.flush();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (
+          (Files.exists(logFile) || Files.exists(oldLogFile))
+          && System.currentTimeMillis() < deadline
+        )
+            Thread.sleep(10);
+        assertFalse(Files.exists(logFile));
+        assertFalse(Files.exists(oldLogFile));
+        assertEquals(199, reload().getNode(n1.getUuid()).getX());
+    }
+}
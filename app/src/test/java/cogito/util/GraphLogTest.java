@@ -0,0 +1,129 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import cogito.model.Graph;
+import cogito.model.GraphSnapshot;
+import cogito.model.Node;
+
+class GraphLogTest {
+    Path file;
+    Graph graph;
+    Node n1;
+    Node n2;
+
+    @BeforeEach
+    void createGraphAndFile() throws IOException {
+        file = Files.createTempFile("graph", GraphLog.EXTENSION);
+        Files.delete(file);
+        graph = new Graph("test");
+        n1 = new Node("1", 10, 20);
+        n2 = new Node("2");
+        graph.add(n1);
+        graph.add(n2);
+        graph.link(n1, n2);
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // the state of graph, as read back from a copy updated by the log
+    Graph replayOn(GraphSnapshot base) throws IOException {
+        Graph copy = base.toGraph();
+        GraphLog.replay(file, copy);
+        return copy;
+    }
+
+    static void assertSameState(Graph expected, Graph actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Node node: expected.getNodes()) {
+            Node other = actual.getNode(node.getUuid());
+            assertNotNull(other);
+            assertEquals(node.getTitle(), other.getTitle());
+            assertEquals(node.getInformation(), other.getInformation());
+            assertEquals(node.getX(), other.getX());
+            assertEquals(node.getY(), other.getY());
+            assertEquals(
+              expected.neighborCount(node),
+              actual.neighborCount(other)
+            );
+            for (Node neighbor: expected.getNodesLinkedTo(node)) {
+                Node otherNeighbor = actual.getNode(neighbor.getUuid());
+                assertTrue(actual.hasEdge(other, otherNeighbor));
+            }
+        }
+    }
+
+    @Test
+    void appendWithoutChangeWritesNothing() throws IOException {
+        GraphSnapshot base = graph.snapshot();
+        assertFalse(GraphLog.append(file, base, base));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void replayAppliesTheAppendedChanges() throws IOException {
+        GraphSnapshot base = graph.snapshot();
+        Node n3 = new Node("3", "information", 5, 5, UUID.randomUUID());
+        graph.add(n3);
+        graph.link(n3, n1);
+        n1.setTitle("changed");
+        n1.setX(-3);
+        GraphSnapshot second = graph.snapshot();
+        assertTrue(GraphLog.append(file, second, base));
+        graph.remove(n2);
+        n3.setInformation("new information");
+        assertTrue(GraphLog.append(file, graph.snapshot(), second));
+        assertSameState(graph, replayOn(base));
+    }
+
+    @Test
+    void replayAppliesCompressedInformation() throws IOException {
+        String information = "A long note about the graph. ".repeat(50);
+        GraphSnapshot base = graph.snapshot();
+        Node n3 = new Node("3", information, 5, 5, UUID.randomUUID());
+        graph.add(n3);
+        GraphSnapshot second = graph.snapshot();
+        GraphLog.append(file, second, base);
+        n1.setInformation(information + "\u00e9");
+        GraphLog.append(file, graph.snapshot(), second);
+        assertTrue(Files.size(file) < information.length());
+        assertSameState(graph, replayOn(base));
+    }
+
+    @Test
+    void replayingTwiceHasTheEffectOfReplayingOnce() throws IOException {
+        GraphSnapshot base = graph.snapshot();
+        graph.unlink(n1, n2);
+        graph.remove(n2);
+        graph.add(new Node("3"));
+        GraphLog.append(file, graph.snapshot(), base);
+        Graph copy = replayOn(base);
+        GraphLog.replay(file, copy);
+        assertSameState(graph, copy);
+    }
+
+    @Test
+    void replayIgnoresATornSegment() throws IOException {
+        GraphSnapshot base = graph.snapshot();
+        n1.setTitle("first");
+        GraphSnapshot first = graph.snapshot();
+        GraphLog.append(file, first, base);
+        Graph expected = first.toGraph();
+        n1.setTitle("second");
+        GraphLog.append(file, graph.snapshot(), first);
+        byte[] content = Files.readAllBytes(file);
+        byte[] torn = new byte[content.length - 3];
+        System.arraycopy(content, 0, torn, 0, torn.length);
+        Files.write(file, torn);
+        assertSameState(expected, replayOn(base));
+    }
+}
@@ -0,0 +1,133 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import cogito.model.Graph;
+import cogito.model.Node;
+
+class GraphMLTest {
+    Graph graph;
+    Node n1;
+    Node n2;
+    Node n3;
+
+    @BeforeEach
+    void createGraph() {
+        graph = new Graph("test graph \u00e9");
+        n1 = new Node("title 1", "a <b> & \"c\"", 10, -20, UUID.randomUUID());
+        n2 = new Node("title 2", "", 0, 0, UUID.randomUUID());
+        n3 = new Node("title \u00fc", "in\nfo", -5, 7, UUID.randomUUID());
+        graph.add(n1);
+        graph.add(n2);
+        graph.add(n3);
+        graph.link(n1, n2);
+        graph.link(n1, n3);
+        graph.link(n3, n1);
+    }
+
+    Graph read(String xml) throws IOException {
+        return GraphML.read(
+          new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+          "default"
+        );
+    }
+
+    @Test
+    void readReturnsTheWrittenGraph() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GraphML.write(graph.snapshot(), out);
+        Graph sut = GraphML.read(
+          new ByteArrayInputStream(out.toByteArray()),
+          "default"
+        );
+        assertEquals(graph.getName(), sut.getName());
+        assertNotEquals(graph.getUuid(), sut.getUuid());
+        assertEquals(3, sut.size());
+        for (Node node: graph.getNodes()) {
+            Node read = sut.getNode(node.getUuid());
+            assertEquals(node.getTitle(), read.getTitle());
+            assertEquals(node.getInformation(), read.getInformation());
+            assertEquals(node.getX(), read.getX());
+            assertEquals(node.getY(), read.getY());
+        }
+        Node r1 = sut.getNode(n1.getUuid());
+        Node r2 = sut.getNode(n2.getUuid());
+        Node r3 = sut.getNode(n3.getUuid());
+        assertTrue(sut.hasEdge(r1, r2));
+        assertTrue(sut.hasEdge(r1, r3));
+        assertTrue(sut.hasEdge(r3, r1));
+        assertFalse(sut.hasEdge(r2, r1));
+    }
+
+    @Test
+    void readMatchesTheKeysOfOtherTools() throws IOException {
+        Graph sut = read(
+          "<?xml version=\"1.0\"?>"
+          + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">"
+          + "<key id=\"d0\" for=\"node\" attr.name=\"label\"/>"
+          + "<key id=\"d1\" for=\"node\" yfiles.type=\"nodegraphics\"/>"
+          + "<graph edgedefault=\"directed\">"
+          + "<edge source=\"a\" target=\"b\"/>"
+          + "<node id=\"a\"><data key=\"d0\">Alpha</data>"
+          + "<data key=\"d1\"><shape>x</shape></data></node>"
+          + "<node id=\"b\"/>"
+          + "</graph></graphml>"
+        );
+        assertEquals("default", sut.getName());
+        assertEquals(2, sut.size());
+        Node a = null;
+        Node b = null;
+        for (Node node: sut.getNodes()) {
+            if (node.getTitle().equals("Alpha"))
+                a = node;
+            else if (node.getTitle().equals("b"))
+                b = node;
+        }
+        assertNotNull(a);
+        assertNotNull(b);
+        assertTrue(sut.hasEdge(a, b));
+    }
+
+    @Test
+    void readSkipsSelfAndDuplicateLinks() throws IOException {
+        Graph sut = read(
+          "<graphml><graph>"
+          + "<edge source=\"a\" target=\"a\"/>"
+          + "<edge source=\"a\" target=\"b\"/>"
+          + "<edge source=\"a\" target=\"b\"/>"
+          + "</graph></graphml>"
+        );
+        assertEquals(2, sut.size());
+        assertEquals(1, sut.snapshot().edgeCount());
+    }
+
+    @Test
+    void readAddsNodesByBatches() throws IOException {
+        StringBuilder xml = new StringBuilder("<graphml><graph>");
+        int count = GraphImporter.CHUNK_SIZE + 10;
+        for (int i = 0; i < count; i++) {
+            xml.append("<edge source=\"n").append(i);
+            xml.append("\" target=\"n").append(i + 1).append("\"/>");
+        }
+        xml.append("</graph></graphml>");
+        Graph sut = read(xml.toString());
+        assertEquals(count + 1, sut.size());
+        assertEquals(count, sut.snapshot().edgeCount());
+    }
+
+    @Test
+    void readThrowsIOExceptionOnInvalidFiles() {
+        assertThrows(IOException.class, () -> read("<graphml><graph>"));
+        assertThrows(IOException.class, () -> read("<other/>"));
+        assertThrows(
+          IOException.class,
+          () -> read("<graphml><graph><edge source=\"a\"/></graph></graphml>")
+        );
+    }
+}
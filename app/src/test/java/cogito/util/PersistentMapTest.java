@@ -0,0 +1,162 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Random;
+import cogito.TestUtils;
+
+class PersistentMapTest {
+
+    // a key whose hash code is chosen, to force collisions
+    record Key(int id, int hash) {
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    @Test
+    void emptyMapHasNoEntry() {
+        PersistentMap<String, Integer> sut = PersistentMap.empty();
+        assertTrue(sut.isEmpty());
+        assertNull(sut.get("a"));
+    }
+
+    @Test
+    void putWithNullKeyThrowsNPE() {
+        TestUtils.assertThrowsNPEWithMsg("Key can not be null",
+                () -> PersistentMap.empty().put(null, 1));
+    }
+
+    @Test
+    void putReturnsANewMapAndLeavesThisMapUnchanged() {
+        PersistentMap<String, Integer> m1 = PersistentMap.empty();
+        m1 = m1.put("a", 1);
+        PersistentMap<String, Integer> m2 = m1.put("b", 2).put("a", 3);
+        assertEquals(1, m1.size());
+        assertEquals(1, m1.get("a"));
+        assertNull(m1.get("b"));
+        assertEquals(2, m2.size());
+        assertEquals(3, m2.get("a"));
+        assertEquals(2, m2.get("b"));
+    }
+
+    @Test
+    void removeOfAbsentKeyReturnsThisMap() {
+        PersistentMap<String, Integer> sut = PersistentMap.empty();
+        sut = sut.put("a", 1);
+        assertSame(sut, sut.remove("b"));
+    }
+
+    @Test
+    void collidingKeysAreKeptApart() {
+        Key k1 = new Key(1, 42);
+        Key k2 = new Key(2, 42);
+        Key k3 = new Key(3, 42 + 32);
+        PersistentMap<Key, String> sut = PersistentMap.<Key, String>empty()
+            .put(k1, "1")
+            .put(k2, "2")
+            .put(k3, "3");
+        assertEquals(3, sut.size());
+        assertEquals("2", sut.get(k2));
+        sut = sut.remove(k1);
+        assertNull(sut.get(k1));
+        assertEquals("2", sut.get(k2));
+        assertEquals("3", sut.get(k3));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    void randomOperationsMatchAHashMap() {
+        Random random = new Random(7);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentMap<Key, Integer> sut = PersistentMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(3000);
+            Key key = new Key(id, id % 500 * 31);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                sut = sut.remove(key);
+            } else {
+                expected.put(key, i);
+                sut = sut.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), sut.size());
+        Map<Key, Integer> actual = new HashMap<>();
+        sut.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void diffWithNullMapThrowsNPE() {
+        PersistentMap<String, Integer> sut = PersistentMap.empty();
+        TestUtils.assertThrowsNPEWithMsg("Map can not be null",
+                () -> sut.diff(null, (k, v) -> {}, (k, v) -> {}));
+    }
+
+    @Test
+    void diffOfAMapWithItselfReportsNothing() {
+        PersistentMap<String, Integer> sut = PersistentMap.empty();
+        PersistentMap<String, Integer> map = sut.put("a", 1).put("b", 2);
+        map.diff(
+          map,
+          (k, v) -> fail("Unexpected put " + k),
+          (k, v) -> fail("Unexpected removal " + k)
+        );
+    }
+
+    @Test
+    void diffReportsPutAndRemovedEntries() {
+        PersistentMap<String, Integer> previous = PersistentMap.empty();
+        previous = previous.put("a", 1).put("b", 2).put("c", 3);
+        PersistentMap<String, Integer> sut = previous
+            .put("a", 10)
+            .put("c", 3)
+            .put("d", 4)
+            .remove("b");
+        Map<String, Integer> put = new HashMap<>();
+        Map<String, Integer> removed = new HashMap<>();
+        sut.diff(previous, put::put, removed::put);
+        assertEquals(Map.of("a", 10, "d", 4), put);
+        assertEquals(Map.of("b", 2), removed);
+    }
+
+    @Test
+    void randomDiffsMatchTheDifferencesOfHashMaps() {
+        Random random = new Random(11);
+        PersistentMap<Key, Integer> previous = PersistentMap.empty();
+        for (int i = 0; i < 3000; i++) {
+            int id = random.nextInt(3000);
+            previous = previous.put(new Key(id, id % 500 * 31), i);
+        }
+        for (int round = 0; round < 20; round++) {
+            PersistentMap<Key, Integer> sut = previous;
+            for (int i = 0; i < random.nextInt(200); i++) {
+                int id = random.nextInt(3000);
+                Key key = new Key(id, id % 500 * 31);
+                if (random.nextBoolean())
+                    sut = sut.remove(key);
+                else
+                    sut = sut.put(key, random.nextInt(3));
+            }
+            Map<Key, Integer> before = new HashMap<>();
+            previous.forEach(before::put);
+            Map<Key, Integer> after = new HashMap<>();
+            sut.forEach(after::put);
+            Map<Key, Integer> expectedPut = new HashMap<>(after);
+            expectedPut.entrySet().removeAll(before.entrySet());
+            Map<Key, Integer> expectedRemoved = new HashMap<>(before);
+            expectedRemoved.keySet().removeAll(after.keySet());
+
+            Map<Key, Integer> put = new HashMap<>();
+            Map<Key, Integer> removed = new HashMap<>();
+            sut.diff(previous, put::put, removed::put);
+            assertEquals(expectedPut, put);
+            assertEquals(expectedRemoved, removed);
+            previous = sut;
+        }
+    }
+}
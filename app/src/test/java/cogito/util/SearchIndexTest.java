@@ -0,0 +1,210 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import cogito.model.Graph;
+import cogito.model.Node;
+
+class SearchIndexTest {
+    Path file;
+    Graph graph;
+    Node n1;
+    Node n2;
+    Node n3;
+    SearchIndex sut;
+
+    @BeforeEach
+    void createGraphAndIndex() throws IOException {
+        file = Files.createTempFile("index", SearchIndex.EXTENSION);
+        graph = new Graph("test graph");
+        n1 = new Node(
+          "Graph theory",
+          "A graph is made of nodes and edges.",
+          0,
+          0,
+          UUID.randomUUID()
+        );
+        n2 = new Node(
+          "Caf\u00e9 notes",
+          "Notes about coffee and graphs.",
+          100,
+          50,
+          UUID.randomUUID()
+        );
+        n3 = new Node("Edges", "", -30, 20, UUID.randomUUID());
+        graph.add(n1);
+        graph.add(n2);
+        graph.add(n3);
+        sut = SearchIndex.build(graph);
+    }
+
+    @AfterEach
+    void closeIndex() throws IOException {
+        sut.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void termQueryMatchesTitlesAndInformation() {
+        assertEquals(List.of(n1), nodesOf(sut.search("graph")));
+        assertEquals(2, sut.search("edges").size());
+        assertTrue(sut.search("edges").contains(n3.getUuid()));
+        assertEquals(List.of(), sut.search("tea"));
+    }
+
+    @Test
+    void termsAreCaseAndDiacriticInsensitive() {
+        assertEquals(List.of(n2), nodesOf(sut.search("CAFE")));
+        assertEquals(List.of(n2), nodesOf(sut.search("caf\u00e9")));
+    }
+
+    @Test
+    void prefixQueryMatchesTermsStartingWithIt() {
+        List<UUID> result = sut.search("graph*");
+        assertEquals(2, result.size());
+        assertTrue(result.contains(n1.getUuid()));
+        assertTrue(result.contains(n2.getUuid()));
+    }
+
+    @Test
+    void phraseQueryMatchesConsecutiveTerms() {
+        assertEquals(List.of(n1), nodesOf(sut.search("\"nodes and edges\"")));
+        assertEquals(List.of(), sut.search("\"edges and nodes\""));
+        // a phrase does not span the title and the information
+        assertEquals(List.of(), sut.search("\"theory a\""));
+    }
+
+    @Test
+    void allClausesMustMatch() {
+        assertEquals(List.of(n2), nodesOf(sut.search("notes coffee")));
+        assertEquals(List.of(), sut.search("notes theory"));
+    }
+
+    @Test
+    void emptyQueryMatchesNothing() {
+        assertEquals(List.of(), sut.search(""));
+        assertEquals(List.of(), sut.search(" - "));
+    }
+
+    @Test
+    void indexFollowsModifications() {
+        n3.setTitle("Vertices");
+        n3.setInformation("Also called nodes.");
+        assertEquals(List.of(n1), nodesOf(sut.search("edges")));
+        assertEquals(List.of(n3), nodesOf(sut.search("vertices")));
+        graph.remove(n1);
+        assertEquals(List.of(n3), nodesOf(sut.search("nodes")));
+        Node n4 = new Node("More edges", "", 0, 0, UUID.randomUUID());
+        graph.add(n4);
+        assertEquals(List.of(n4), nodesOf(sut.search("edges")));
+    }
+
+    @Test
+    void titleChangeDoesNotReadTheInformation() {
+        AtomicInteger reads = new AtomicInteger();
+        Node lazy = new Node(
+          "Lazy",
+          () -> {
+              reads.incrementAndGet();
+              return "stored words";
+          },
+          0,
+          0,
+          UUID.randomUUID()
+        );
+        graph.add(lazy);
+        assertEquals(List.of(lazy), nodesOf(sut.search("stored")));
+        int count = reads.get();
+        lazy.setTitle("Renamed lazy node");
+        assertEquals(List.of(lazy), nodesOf(sut.search("renamed")));
+        assertEquals(List.of(lazy), nodesOf(sut.search("\"stored words\"")));
+        assertEquals(List.of(), sut.search("\"node stored\""));
+        assertEquals(count, reads.get());
+    }
+
+    @Test
+    void closedIndexStopsFollowingModifications() {
+        sut.close();
+        assertNull(sut.getModel());
+        n3.setTitle("Vertices");
+        assertEquals(List.of(), sut.search("vertices"));
+    }
+
+    @Test
+    void readReturnsTheWrittenIndex() throws IOException {
+        long[] stamp = {1, 2, 3};
+        sut.write(file, stamp);
+        SearchIndex read = SearchIndex.read(file, graph, stamp);
+        try {
+            assertSame(graph, read.getModel());
+            assertEquals(sut.search("graph*"), read.search("graph*"));
+            assertEquals(
+              List.of(n1),
+              nodesOf(read.search("\"nodes and edges\""))
+            );
+            n1.setTitle("Vertices");
+            assertEquals(List.of(n1), nodesOf(read.search("vertices")));
+        } finally {
+            read.close();
+        }
+    }
+
+    @Test
+    void readIgnoresTheNodesRemoved() throws IOException {
+        long[] stamp = {1, 2, 3};
+        sut.write(file, stamp);
+        graph.remove(n1);
+        SearchIndex read = SearchIndex.read(file, graph, stamp);
+        try {
+            assertEquals(List.of(), read.search("theory"));
+        } finally {
+            read.close();
+        }
+    }
+
+    @Test
+    void readReturnsNullForAnotherStamp() throws IOException {
+        sut.write(file, new long[] {1, 2, 3});
+        assertNull(SearchIndex.read(file, graph, new long[] {1, 2, 4}));
+        assertNull(SearchIndex.read(file, graph, new long[] {1, 2}));
+    }
+
+    @Test
+    void readThrowsIOEForCorruptedFile() throws IOException {
+        long[] stamp = {1, 2, 3};
+        sut.write(file, stamp);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(
+          IOException.class,
+          () -> SearchIndex.read(file, graph, stamp)
+        );
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6});
+        assertThrows(
+          IOException.class,
+          () -> SearchIndex.read(file, graph, stamp)
+        );
+    }
+
+    @Test
+    void tokenizeSplitsLowersAndStripsDiacritics() {
+        assertEquals(
+          List.of("e", "mail", "naive", "cafe", "42"),
+          SearchIndex.tokenize("E-mail, Na\u00efve CAF\u00c9 42!")
+        );
+    }
+
+    // the nodes of identifiers, in order
+    List<Node> nodesOf(List<UUID> identifiers) {
+        return identifiers.stream().map(graph::getNode).toList();
+    }
+}
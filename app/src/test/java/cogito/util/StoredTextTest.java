@@ -0,0 +1,58 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class StoredTextTest {
+    Path file;
+    int loads;
+    StoredText sut;
+
+    @BeforeEach
+    void createText() throws IOException {
+        file = Files.createTempFile("text", ".txt");
+        Files.writeString(file, "stored");
+        loads = 0;
+        sut = StoredText.of(file, () -> {
+            loads++;
+            return Files.readString(file);
+        });
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void textIsNotReadBeforeRequested() {
+        assertEquals(0, loads);
+    }
+
+    @Test
+    void textIsReadOnce() {
+        assertEquals("stored", sut.get());
+        assertEquals("stored", sut.get());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    void pinnedTextOutlivesItsFile() throws IOException {
+        StoredText.pin(file);
+        Files.delete(file);
+        assertEquals("stored", sut.get());
+    }
+
+    @Test
+    void getThrowsUncheckedIOExceptionIfTheFileIsMissing()
+            throws IOException {
+        Files.delete(file);
+        assertThrows(UncheckedIOException.class, () -> sut.get());
+    }
+}
@@ -0,0 +1,98 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import cogito.model.Node;
+
+class TextCodecTest {
+    String longText;
+    TextCodec sut;
+
+    @BeforeEach
+    void createCodec() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++)
+            text.append("This is the note number ").append(i).append(". ");
+        longText = text.toString();
+        sut = new TextCodec(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void closeCodec() {
+        sut.close();
+        System.clearProperty(TextCodec.COMPRESSION_PROPERTY);
+    }
+
+    String decode(byte[] record) throws IOException {
+        return TextCodec.decode(
+          record,
+          0,
+          record.length,
+          StandardCharsets.UTF_8
+        );
+    }
+
+    @Test
+    void shortTextIsStored() throws IOException {
+        byte[] record = sut.encode("short note \u00e9");
+        assertEquals(TextCodec.STORED, record[0]);
+        assertEquals("short note \u00e9", decode(record));
+    }
+
+    @Test
+    void longTextIsDeflated() throws IOException {
+        byte[] record = sut.encode(longText);
+        assertEquals(TextCodec.DEFLATED, record[0]);
+        assertTrue(record.length < longText.length() / 2);
+        assertEquals(longText, decode(record));
+    }
+
+    @Test
+    void codecIsReusable() throws IOException {
+        String other = longText + " \u00fc";
+        assertEquals(longText, decode(sut.encode(longText)));
+        assertEquals(other, decode(sut.encode(other)));
+    }
+
+    @Test
+    void longTextIsStoredIfCompressionIsDisabled() throws IOException {
+        System.setProperty(TextCodec.COMPRESSION_PROPERTY, "false");
+        byte[] record = sut.encode(longText);
+        assertEquals(TextCodec.STORED, record[0]);
+        assertEquals(longText, decode(record));
+    }
+
+    @Test
+    void decodeReadsTheRecordAtOffset() throws IOException {
+        byte[] record = sut.encode(longText);
+        byte[] bytes = new byte[record.length + 3];
+        System.arraycopy(record, 0, bytes, 2, record.length);
+        assertEquals(
+          longText,
+          TextCodec.decode(bytes, 2, record.length, StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    void decodeThrowsIOExceptionOnCorruptedRecord() {
+        byte[] record = sut.encode(longText);
+        record[record.length / 2] ^= 0x55;
+        assertThrows(IOException.class, () -> decode(record));
+        assertThrows(IOException.class, () -> decode(new byte[] {7, 1}));
+        assertThrows(IOException.class, () -> decode(new byte[0]));
+    }
+
+    @Test
+    void decodeThrowsIOExceptionOnOversizedRecord() throws IOException {
+        byte[] record = sut.encode(longText);
+        // the size of a text longer than any node information
+        record[1] = 0x7f;
+        assertThrows(IOException.class, () -> decode(record));
+        String longest = "\u00e9".repeat(Node.MAX_TEXT_LEN);
+        assertEquals(longest, decode(sut.encode(longest)));
+    }
+}
@@ -0,0 +1,67 @@
+package cogito.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.UUID;
+
+class UuidTableTest {
+    UuidTable sut;
+
+    @BeforeEach
+    void createTable() {
+        sut = new UuidTable();
+    }
+
+    static int add(UuidTable table, UUID uuid) {
+        return table.add(
+          uuid.getMostSignificantBits(),
+          uuid.getLeastSignificantBits()
+        );
+    }
+
+    @Test
+    void addIndexesTheUuidsByOrderOfAddition() {
+        UUID[] uuids = new UUID[1000];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            assertEquals(i, add(sut, uuids[i]));
+        }
+        assertEquals(1000, sut.size());
+        for (int i = 0; i < uuids.length; i++) {
+            assertEquals(uuids[i], sut.get(i));
+            assertEquals(i, sut.indexOf(
+              uuids[i].getMostSignificantBits(),
+              uuids[i].getLeastSignificantBits()
+            ));
+        }
+    }
+
+    @Test
+    void addReturnsTheIndexOfAUuidAlreadyAdded() {
+        UUID uuid = UUID.randomUUID();
+        add(sut, UUID.randomUUID());
+        add(sut, uuid);
+        assertEquals(1, add(sut, uuid));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    void indexOfReturnsMinusOneForAnAbsentUuid() {
+        add(sut, UUID.randomUUID());
+        assertEquals(-1, sut.indexOf(1, 2));
+    }
+
+    @Test
+    void clearRemovesAllTheUuids() {
+        UUID uuid = UUID.randomUUID();
+        add(sut, uuid);
+        sut.clear();
+        assertEquals(0, sut.size());
+        assertEquals(-1, sut.indexOf(
+          uuid.getMostSignificantBits(),
+          uuid.getLeastSignificantBits()
+        ));
+        assertEquals(0, add(sut, UUID.randomUUID()));
+    }
+}